@@ -0,0 +1,60 @@
+package bench.jmh;
+
+import juc.locks.ReentrantLock;
+import juc.locks.UnpaddedReentrantLock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * AQS字段布局的对比：padded是当前的AbstractQueuedSynchronizer，head/state与tail之间有填充；
+ * unpadded是UnpaddedQueuedSynchronizer，独占路径的代码相同，字段紧挨着，即填充之前的布局。
+ * 多个线程争用同一把锁，临界区很短，排队线程写tail的同时持有者反复读写state/head，
+ * 伪共享会直接体现在吞吐量上。需要多核机器，并用BenchmarkRunner或-t让线程数超过1。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+@State(Scope.Benchmark)
+public class AqsLayoutBenchmark {
+
+    @Param({"padded", "unpadded"})
+    public String layout;
+
+    @Param({"false", "true"})
+    public boolean fair;
+
+    private Mutexes.Mutex mutex;
+
+    private long counter;
+
+    @Setup
+    public void setup() {
+        if ("padded".equals(layout)) {
+            mutex = Mutexes.of(new ReentrantLock(fair));
+        } else {
+            UnpaddedReentrantLock lock = new UnpaddedReentrantLock(fair);
+            mutex = new Mutexes.Mutex() {
+                public void lock() {
+                    lock.lock();
+                }
+
+                public void unlock() {
+                    lock.unlock();
+                }
+            };
+        }
+    }
+
+    @Benchmark
+    public long lockUnlock() {
+        mutex.lock();
+        try {
+            return ++counter;
+        } finally {
+            mutex.unlock();
+        }
+    }
+}
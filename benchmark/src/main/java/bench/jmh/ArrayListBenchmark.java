@@ -0,0 +1,160 @@
+package bench.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collections;
+import java.util.Random;
+
+/**
+ * container.ArrayList对照java.util.ArrayList：逐个追加、批量追加、遍历、removeIf、replaceAll、sort，
+ * 以及串行和并行流求和。会修改列表的基准使用Copies，每次调用前重新复制一份（Level.Invocation），只适合size较大的情况。
+ * 只测单线程，运行时用-t 1；并行流使用公共ForkJoinPool，核数越多差别越明显。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+@State(Scope.Thread)
+public class ArrayListBenchmark {
+
+    @Param({"1000", "1000000"})
+    public int size;
+
+    private Integer[] values;
+
+    private java.util.List<Integer> source;
+
+    private container.ArrayList<Integer> mine;
+
+    private java.util.ArrayList<Integer> jdk;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        Random random = new Random(42);
+        values = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = random.nextInt();
+        }
+        source = java.util.Arrays.asList(values);
+        mine = new container.ArrayList<>(source);
+        jdk = new java.util.ArrayList<>(source);
+    }
+
+    /**
+     * 每次调用前复制一份，供removeIf、replaceAll、sort修改
+     */
+    @State(Scope.Thread)
+    public static class Copies {
+
+        container.ArrayList<Integer> mine;
+
+        java.util.ArrayList<Integer> jdk;
+
+        @Setup(Level.Invocation)
+        public void setup(ArrayListBenchmark benchmark) {
+            mine = new container.ArrayList<>(benchmark.source);
+            jdk = new java.util.ArrayList<>(benchmark.source);
+        }
+    }
+
+    @Benchmark
+    public Object addContainer() {
+        container.ArrayList<Integer> list = new container.ArrayList<>();
+        for (Integer v : values) {
+            list.add(v);
+        }
+        return list;
+    }
+
+    @Benchmark
+    public Object addJdk() {
+        java.util.ArrayList<Integer> list = new java.util.ArrayList<>();
+        for (Integer v : values) {
+            list.add(v);
+        }
+        return list;
+    }
+
+    @Benchmark
+    public Object addAllContainer() {
+        container.ArrayList<Integer> list = new container.ArrayList<>();
+        list.addAll(mine);
+        return list;
+    }
+
+    @Benchmark
+    public Object addAllJdk() {
+        java.util.ArrayList<Integer> list = new java.util.ArrayList<>();
+        list.addAll(jdk);
+        return list;
+    }
+
+    @Benchmark
+    public void iterateContainer(Blackhole bh) {
+        for (Integer v : mine) {
+            bh.consume(v);
+        }
+    }
+
+    @Benchmark
+    public void iterateJdk(Blackhole bh) {
+        for (Integer v : jdk) {
+            bh.consume(v);
+        }
+    }
+
+    @Benchmark
+    public boolean removeIfContainer(Copies copies) {
+        return copies.mine.removeIf(v -> (v & 1) == 0);
+    }
+
+    @Benchmark
+    public boolean removeIfJdk(Copies copies) {
+        return copies.jdk.removeIf(v -> (v & 1) == 0);
+    }
+
+    @Benchmark
+    public void replaceAllContainer(Copies copies) {
+        copies.mine.replaceAll(v -> v + 1);
+    }
+
+    @Benchmark
+    public void replaceAllJdk(Copies copies) {
+        copies.jdk.replaceAll(v -> v + 1);
+    }
+
+    @Benchmark
+    public void sortContainer(Copies copies) {
+        copies.mine.sort(null);
+    }
+
+    @Benchmark
+    public void sortJdk(Copies copies) {
+        Collections.sort(copies.jdk);
+    }
+
+    @Benchmark
+    public long streamSumContainer() {
+        return mine.stream().mapToLong(Integer::longValue).sum();
+    }
+
+    @Benchmark
+    public long streamSumJdk() {
+        return jdk.stream().mapToLong(Integer::longValue).sum();
+    }
+
+    @Benchmark
+    public long parallelSumContainer() {
+        return mine.parallelStream().mapToLong(Integer::longValue).sum();
+    }
+
+    @Benchmark
+    public long parallelSumJdk() {
+        return jdk.parallelStream().mapToLong(Integer::longValue).sum();
+    }
+}
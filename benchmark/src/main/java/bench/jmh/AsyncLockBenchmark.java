@@ -0,0 +1,100 @@
+package bench.jmh;
+
+import juc.locks.LockHandle;
+import juc.locks.ReentrantLock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * juc.locks.ReentrantLock的异步获取：
+ * lockUnlock中每个线程用lock()、lockAsync()或tryLockAsync()获取后立即释放，异步方式以join等待，
+ * 与同步获取对比完成回调和LockHandle的开销；
+ * pipeline中一个线程一次发出BATCH个lockAsync，每个在回调中执行临界区并释放，锁在回调之间依次交接，
+ * 等待者只是队列中的节点，不占用线程，lock对应的是同一个线程同步获取、释放BATCH次。
+ * 完成回调都在释放锁的线程上直接执行。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+@State(Scope.Benchmark)
+public class AsyncLockBenchmark {
+
+    private static final int BATCH = 128;
+
+    private static final Executor DIRECT = Runnable::run;
+
+    @Param({"lock", "lockAsync", "tryLockAsync"})
+    public String acquire;
+
+    private ReentrantLock lock;
+
+    private long counter;
+
+    @Setup
+    public void setup() {
+        lock = new ReentrantLock();
+    }
+
+    @Benchmark
+    public long lockUnlock() {
+        switch (acquire) {
+            case "lock":
+                lock.lock();
+                try {
+                    return ++counter;
+                } finally {
+                    lock.unlock();
+                }
+            case "lockAsync":
+                return critical(lock.lockAsync(DIRECT).join());
+            default:
+                return critical(lock.tryLockAsync(1, TimeUnit.SECONDS, DIRECT).join());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long pipeline() {
+        long sum = 0;
+        if ("lock".equals(acquire)) {
+            // 对照组：同一个线程同步地获取、释放BATCH次
+            for (int i = 0; i < BATCH; i++) {
+                lock.lock();
+                try {
+                    sum += ++counter;
+                } finally {
+                    lock.unlock();
+                }
+            }
+            return sum;
+        }
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        CompletableFuture<Long>[] futures = new CompletableFuture[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            CompletableFuture<LockHandle> f = "tryLockAsync".equals(acquire)
+                    ? lock.tryLockAsync(1, TimeUnit.SECONDS, DIRECT)
+                    : lock.lockAsync(DIRECT);
+            futures[i] = f.thenApply(this::critical);
+        }
+        for (CompletableFuture<Long> f : futures) {
+            sum += f.join();
+        }
+        return sum;
+    }
+
+    private long critical(LockHandle handle) {
+        try {
+            return ++counter;
+        } finally {
+            handle.unlock();
+        }
+    }
+}
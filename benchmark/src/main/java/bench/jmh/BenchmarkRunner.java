@@ -0,0 +1,73 @@
+package bench.jmh;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 依次以1、2、4……直到2倍核数个线程运行基准，同时测吞吐量（Throughput）和延迟分布（SampleTime，
+ * 输出p50/p90/p99/p99.9等分位数），并开启GC分析器输出分配速率（gc.alloc.rate、gc.alloc.rate.norm）。
+ * 参数为要运行的基准名的正则，不传时运行全部。
+ * 以@Group声明的基准（条件队列、读写锁、队列）线程数固定为组的大小的整数倍，JMH会把线程数向上取整。
+ * 只想运行单个组合时可以直接使用JMH的命令行：java -cp benchmarks.jar org.openjdk.jmh.Main 正则 -t 4 -prof gc
+ *
+ * 可用系统属性调整：bench.forks（默认1）、bench.warmup（预热轮数，默认3）、bench.iterations（测量轮数，默认5）、
+ * bench.seconds（每轮秒数，默认1）、bench.maxThreads（最大线程数，默认2倍核数）、bench.result（结果文件前缀，不设置时不写文件）。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int maxThreads = Integer.getInteger("bench.maxThreads", 2 * cores);
+        int seconds = Integer.getInteger("bench.seconds", 1);
+        String result = System.getProperty("bench.result");
+        for (int threads : threadCounts(maxThreads)) {
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .mode(Mode.Throughput)
+                    .mode(Mode.SampleTime)
+                    .timeUnit(TimeUnit.MICROSECONDS)
+                    .threads(threads)
+                    .forks(Integer.getInteger("bench.forks", 1))
+                    .warmupIterations(Integer.getInteger("bench.warmup", 3))
+                    .warmupTime(TimeValue.seconds(seconds))
+                    .measurementIterations(Integer.getInteger("bench.iterations", 5))
+                    .measurementTime(TimeValue.seconds(seconds))
+                    .addProfiler(GCProfiler.class);
+            if (args.length == 0) {
+                options.include(BenchmarkRunner.class.getPackage().getName() + ".");
+            }
+            for (String include : args) {
+                options.include(include);
+            }
+            if (result != null) {
+                options.result(result + "-t" + threads + ".json")
+                        .resultFormat(ResultFormatType.JSON);
+            }
+            new Runner(options.build()).run();
+        }
+    }
+
+    /**
+     * 1、2、4……的倍增序列，最后一项总是maxThreads
+     */
+    static List<Integer> threadCounts(int maxThreads) {
+        List<Integer> counts = new ArrayList<>();
+        for (int t = 1; t < maxThreads; t <<= 1) {
+            counts.add(t);
+        }
+        counts.add(Math.max(1, maxThreads));
+        return counts;
+    }
+}
@@ -0,0 +1,113 @@
+package bench.jmh;
+
+import juc.RingBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 有界队列的生产者、消费者：juc.ArrayBlockingQueue、juc.LinkedBlockingQueue、juc.RingBuffer，
+ * 对照java.util.concurrent中的ArrayBlockingQueue和LinkedBlockingQueue。
+ * 迭代结束时另一方可能已经停下，所以用带超时的offer/poll，超时后直接返回。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+@State(Scope.Group)
+public class BlockingQueueBenchmark {
+
+    private static final long TIMEOUT_MILLIS = 1;
+
+    private static final Integer ITEM = 1;
+
+    interface Queue {
+        boolean offer(Integer e) throws InterruptedException;
+
+        Integer poll() throws InterruptedException;
+    }
+
+    @Param({"juc-abq", "juc-lbq", "juc-ring", "jdk-abq", "jdk-lbq"})
+    public String queue;
+
+    @Param({"1024"})
+    public int capacity;
+
+    private Queue q;
+
+    @Setup
+    public void setup() {
+        switch (queue) {
+            case "juc-abq":
+                q = of(new juc.ArrayBlockingQueue<>(capacity));
+                break;
+            case "juc-lbq":
+                q = of(new juc.LinkedBlockingQueue<>(capacity));
+                break;
+            case "juc-ring": {
+                RingBuffer<Integer> ring = new RingBuffer<>(capacity);
+                q = new Queue() {
+                    public boolean offer(Integer e) throws InterruptedException {
+                        return ring.offer(e, TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                    }
+
+                    public Integer poll() throws InterruptedException {
+                        return ring.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                    }
+                };
+                break;
+            }
+            case "jdk-abq":
+                q = of(new java.util.concurrent.ArrayBlockingQueue<>(capacity));
+                break;
+            case "jdk-lbq":
+                q = of(new java.util.concurrent.LinkedBlockingQueue<>(capacity));
+                break;
+            default:
+                throw new IllegalArgumentException("unknown queue: " + queue);
+        }
+    }
+
+    private static Queue of(juc.BlockingQueue<Integer> bq) {
+        return new Queue() {
+            public boolean offer(Integer e) throws InterruptedException {
+                return bq.offer(e, TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            }
+
+            public Integer poll() throws InterruptedException {
+                return bq.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        };
+    }
+
+    private static Queue of(java.util.concurrent.BlockingQueue<Integer> bq) {
+        return new Queue() {
+            public boolean offer(Integer e) throws InterruptedException {
+                return bq.offer(e, TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            }
+
+            public Integer poll() throws InterruptedException {
+                return bq.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        };
+    }
+
+    @Benchmark
+    @Group("producerConsumer")
+    @GroupThreads(1)
+    public boolean producer() throws InterruptedException {
+        return q.offer(ITEM);
+    }
+
+    @Benchmark
+    @Group("producerConsumer")
+    @GroupThreads(1)
+    public Integer consumer() throws InterruptedException {
+        return q.poll();
+    }
+}
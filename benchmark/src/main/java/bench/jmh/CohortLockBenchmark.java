@@ -0,0 +1,49 @@
+package bench.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * cohort锁的吞吐量：所有线程在锁内修改同一块共享数据，每个缓存行写一次，words是共享数据的long个数，
+ * 数据留在同一个插槽的缓存里时临界区更快，共享数据越大、插槽越多，CohortLock相对普通锁的优势越明显。
+ * 需要按插槽分簇时应当用numactl等工具把线程绑到固定的插槽上，并用BenchmarkRunner或-t让线程数超过1。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+@State(Scope.Benchmark)
+public class CohortLockBenchmark {
+
+    @Param({"juc-nonfair", "juc-cohort", "jdk-nonfair"})
+    public String lock;
+
+    @Param({"64", "512", "4096"})
+    public int words;
+
+    private Mutexes.Mutex mutex;
+
+    private long[] shared;
+
+    @Setup
+    public void setup() {
+        mutex = Mutexes.create(lock);
+        shared = new long[words];
+    }
+
+    @Benchmark
+    public long lockUnlock() {
+        mutex.lock();
+        try {
+            long[] s = shared;
+            for (int j = 0; j < s.length; j += 8) {
+                s[j]++;
+            }
+            return s[0];
+        } finally {
+            mutex.unlock();
+        }
+    }
+}
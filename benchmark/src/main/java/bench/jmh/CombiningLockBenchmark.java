@@ -0,0 +1,48 @@
+package bench.jmh;
+
+import juc.locks.CombiningLock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * CombiningLock.execute由持有锁的线程代为执行其他线程发布的临界区，
+ * 对照java.util.concurrent.locks.ReentrantLock上直接加锁执行同样的临界区。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+@State(Scope.Benchmark)
+public class CombiningLockBenchmark {
+
+    @Param({"0", "100", "1000"})
+    public int work;
+
+    private final CombiningLock combining = new CombiningLock();
+
+    private final java.util.concurrent.locks.ReentrantLock jdk = new java.util.concurrent.locks.ReentrantLock();
+
+    private long counter;
+
+    @Benchmark
+    public long jucExecute() {
+        return combining.execute(this::criticalSection);
+    }
+
+    @Benchmark
+    public long jdkLock() {
+        jdk.lock();
+        try {
+            return criticalSection();
+        } finally {
+            jdk.unlock();
+        }
+    }
+
+    private long criticalSection() {
+        Blackhole.consumeCPU(work);
+        return ++counter;
+    }
+}
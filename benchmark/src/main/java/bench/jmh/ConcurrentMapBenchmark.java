@@ -0,0 +1,118 @@
+package bench.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.SplittableRandom;
+
+/**
+ * 并发缓存：container.ConcurrentHashMap（分段数16、64）对照java.util.concurrent.ConcurrentHashMap。
+ * mixed中每个线程按readPercent的比例get，其余一半put、一半remove，键在size个键中均匀随机，表的大小基本稳定；
+ * sum用reduceToLong并行求所有值的和。用BenchmarkRunner或-t改变线程数。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+@State(Scope.Benchmark)
+public class ConcurrentMapBenchmark {
+
+    interface Cache {
+        Integer get(Integer key);
+
+        void put(Integer key, Integer value);
+
+        void remove(Integer key);
+
+        long sum();
+    }
+
+    @Param({"juc-16", "juc-64", "jdk"})
+    public String map;
+
+    @Param({"100000"})
+    public int size;
+
+    @Param({"90", "50"})
+    public int readPercent;
+
+    private Integer[] keys;
+
+    private Cache cache;
+
+    @State(Scope.Thread)
+    public static class ThreadRandom {
+        final SplittableRandom random = new SplittableRandom(Thread.currentThread().getId());
+    }
+
+    @Setup
+    public void setup() {
+        if (map.startsWith("juc-")) {
+            container.ConcurrentHashMap<Integer, Integer> m =
+                    new container.ConcurrentHashMap<>(16, 0.75f, Integer.parseInt(map.substring(4)));
+            cache = new Cache() {
+                public Integer get(Integer key) {
+                    return m.get(key);
+                }
+
+                public void put(Integer key, Integer value) {
+                    m.put(key, value);
+                }
+
+                public void remove(Integer key) {
+                    m.remove(key);
+                }
+
+                public long sum() {
+                    return m.reduceToLong(1, (k, v) -> v, 0, Long::sum);
+                }
+            };
+        } else {
+            java.util.concurrent.ConcurrentHashMap<Integer, Integer> m = new java.util.concurrent.ConcurrentHashMap<>();
+            cache = new Cache() {
+                public Integer get(Integer key) {
+                    return m.get(key);
+                }
+
+                public void put(Integer key, Integer value) {
+                    m.put(key, value);
+                }
+
+                public void remove(Integer key) {
+                    m.remove(key);
+                }
+
+                public long sum() {
+                    return m.reduceValuesToLong(1, Integer::longValue, 0, Long::sum);
+                }
+            };
+        }
+        keys = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = i;
+            cache.put(keys[i], i);
+        }
+    }
+
+    @Benchmark
+    public Integer mixed(ThreadRandom t) {
+        Integer key = keys[t.random.nextInt(size)];
+        int op = t.random.nextInt(200);
+        if (op < readPercent * 2) {
+            return cache.get(key);
+        }
+        if ((op & 1) == 0) {
+            cache.put(key, key);
+        } else {
+            cache.remove(key);
+        }
+        return key;
+    }
+
+    @Benchmark
+    public long sum() {
+        return cache.sum();
+    }
+}
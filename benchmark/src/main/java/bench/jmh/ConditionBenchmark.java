@@ -0,0 +1,109 @@
+package bench.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 条件队列的signal/await：两个线程在同一把锁的两个条件上交替唤醒对方，每次操作包含一次await和一次signal。
+ * 对比juc.locks.ReentrantLock的公平、非公平模式与java.util.concurrent.locks.ReentrantLock。
+ * 迭代结束时对方可能已经停下，所以用带超时的await，超时后直接返回，不会卡住JMH。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+@State(Scope.Group)
+public class ConditionBenchmark {
+
+    private static final long TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    interface Signaller {
+        /**
+         * 等轮到me，然后把轮次交给对方
+         */
+        void handOff(boolean me) throws InterruptedException;
+    }
+
+    @Param({"juc-nonfair", "juc-fair", "jdk-nonfair"})
+    public String lock;
+
+    private Signaller signaller;
+
+    /**
+     * true表示轮到ping
+     */
+    private boolean turn = true;
+
+    @Setup
+    public void setup() {
+        switch (lock) {
+            case "juc-nonfair":
+            case "juc-fair": {
+                juc.locks.ReentrantLock l = new juc.locks.ReentrantLock("juc-fair".equals(lock));
+                juc.locks.Condition ping = l.newCondition();
+                juc.locks.Condition pong = l.newCondition();
+                signaller = me -> {
+                    l.lock();
+                    try {
+                        long nanos = TIMEOUT_NANOS;
+                        while (turn != me) {
+                            if (nanos <= 0L) {
+                                return;
+                            }
+                            nanos = (me ? ping : pong).awaitNanos(nanos);
+                        }
+                        turn = !me;
+                        (me ? pong : ping).signal();
+                    } finally {
+                        l.unlock();
+                    }
+                };
+                break;
+            }
+            case "jdk-nonfair": {
+                java.util.concurrent.locks.ReentrantLock l = new java.util.concurrent.locks.ReentrantLock();
+                java.util.concurrent.locks.Condition ping = l.newCondition();
+                java.util.concurrent.locks.Condition pong = l.newCondition();
+                signaller = me -> {
+                    l.lock();
+                    try {
+                        long nanos = TIMEOUT_NANOS;
+                        while (turn != me) {
+                            if (nanos <= 0L) {
+                                return;
+                            }
+                            nanos = (me ? ping : pong).awaitNanos(nanos);
+                        }
+                        turn = !me;
+                        (me ? pong : ping).signal();
+                    } finally {
+                        l.unlock();
+                    }
+                };
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("unknown lock: " + lock);
+        }
+    }
+
+    @Benchmark
+    @Group("pingPong")
+    @GroupThreads(1)
+    public void ping() throws InterruptedException {
+        signaller.handOff(true);
+    }
+
+    @Benchmark
+    @Group("pingPong")
+    @GroupThreads(1)
+    public void pong() throws InterruptedException {
+        signaller.handOff(false);
+    }
+}
@@ -0,0 +1,132 @@
+package bench.jmh;
+
+import juc.locks.Lock;
+import juc.locks.MultiLock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 一次持有多把锁：每次操作从locks把锁中随机取3把不同的锁。
+ * multiLock用MultiLock.acquireAll（阻塞的线程不持有任何锁），
+ * jucOrdered和jdkOrdered按下标顺序逐把加锁，分别使用juc.locks.ReentrantLock和java.util.concurrent.locks.ReentrantLock。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+@State(Scope.Benchmark)
+public class MultiLockBenchmark {
+
+    private static final int PICK = 3;
+
+    @Param({"4", "64"})
+    public int locks;
+
+    @Param({"0", "100"})
+    public int work;
+
+    private Lock[] jucLocks;
+
+    private java.util.concurrent.locks.Lock[] jdkLocks;
+
+    private long[] counters;
+
+    @State(Scope.Thread)
+    public static class Picked {
+
+        final int[] index = new int[PICK];
+
+        final Lock[] locks = new Lock[PICK];
+
+        void next(int n) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < PICK; i++) {
+                int k;
+                do {
+                    k = random.nextInt(n);
+                } while (contains(k, i));
+                index[i] = k;
+            }
+        }
+
+        private boolean contains(int k, int len) {
+            for (int i = 0; i < len; i++) {
+                if (index[i] == k) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        jucLocks = new Lock[locks];
+        jdkLocks = new java.util.concurrent.locks.Lock[locks];
+        for (int i = 0; i < locks; i++) {
+            jucLocks[i] = new juc.locks.ReentrantLock();
+            jdkLocks[i] = new java.util.concurrent.locks.ReentrantLock();
+        }
+        counters = new long[locks];
+    }
+
+    private long update(int[] index) {
+        long sum = 0;
+        for (int i : index) {
+            sum += ++counters[i];
+        }
+        Blackhole.consumeCPU(work);
+        return sum;
+    }
+
+    @Benchmark
+    public long multiLock(Picked picked) {
+        picked.next(locks);
+        for (int i = 0; i < PICK; i++) {
+            picked.locks[i] = jucLocks[picked.index[i]];
+        }
+        try (MultiLock ignored = MultiLock.acquireAll(picked.locks)) {
+            return update(picked.index);
+        }
+    }
+
+    @Benchmark
+    public long jucOrdered(Picked picked) {
+        picked.next(locks);
+        int[] index = picked.index;
+        Arrays.sort(index);
+        for (int i : index) {
+            jucLocks[i].lock();
+        }
+        try {
+            return update(index);
+        } finally {
+            for (int i = PICK - 1; i >= 0; i--) {
+                jucLocks[index[i]].unlock();
+            }
+        }
+    }
+
+    @Benchmark
+    public long jdkOrdered(Picked picked) {
+        picked.next(locks);
+        int[] index = picked.index;
+        Arrays.sort(index);
+        for (int i : index) {
+            jdkLocks[i].lock();
+        }
+        try {
+            return update(index);
+        } finally {
+            for (int i = PICK - 1; i >= 0; i--) {
+                jdkLocks[index[i]].unlock();
+            }
+        }
+    }
+}
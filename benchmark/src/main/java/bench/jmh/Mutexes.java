@@ -0,0 +1,73 @@
+package bench.jmh;
+
+import juc.locks.CohortLock;
+import juc.locks.CombiningLock;
+import juc.locks.DeadlineLock;
+import juc.locks.Lock;
+import juc.locks.ReentrantLock;
+
+/**
+ * 把juc.locks和java.util.concurrent.locks中的互斥锁统一成一个接口，供各个基准按名字创建。
+ * 名字以juc-开头的是本仓库的实现，以jdk-开头的是对照组。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+final class Mutexes {
+
+    interface Mutex {
+        void lock();
+
+        void unlock();
+    }
+
+    private Mutexes() {
+    }
+
+    static Mutex create(String name) {
+        switch (name) {
+            case "juc-nonfair":
+                return of(new ReentrantLock());
+            case "juc-fair":
+                return of(new ReentrantLock(true));
+            case "juc-barging":
+                return of(ReentrantLock.boundedBarging());
+            case "juc-cohort":
+                return of(new CohortLock());
+            case "juc-combining":
+                return of(new CombiningLock());
+            case "juc-deadline":
+                return of(new DeadlineLock());
+            case "jdk-nonfair":
+                return of(new java.util.concurrent.locks.ReentrantLock());
+            case "jdk-fair":
+                return of(new java.util.concurrent.locks.ReentrantLock(true));
+            default:
+                throw new IllegalArgumentException("unknown lock: " + name);
+        }
+    }
+
+    static Mutex of(Lock lock) {
+        return new Mutex() {
+            public void lock() {
+                lock.lock();
+            }
+
+            public void unlock() {
+                lock.unlock();
+            }
+        };
+    }
+
+    static Mutex of(java.util.concurrent.locks.Lock lock) {
+        return new Mutex() {
+            public void lock() {
+                lock.lock();
+            }
+
+            public void unlock() {
+                lock.unlock();
+            }
+        };
+    }
+}
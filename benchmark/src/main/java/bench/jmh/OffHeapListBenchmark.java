@@ -0,0 +1,93 @@
+package bench.jmh;
+
+import container.OffHeapList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 按下标随机读取定长记录：OffHeapList按字段读取（getLong，不解码）、按记录解码（get），
+ * 对照堆上的java.util.ArrayList。记录为(id: long, value: double, tag: int)，20字节。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+@State(Scope.Benchmark)
+public class OffHeapListBenchmark {
+
+    static final class Sample {
+        final long id;
+
+        final double value;
+
+        final int tag;
+
+        Sample(long id, double value, int tag) {
+            this.id = id;
+            this.value = value;
+            this.tag = tag;
+        }
+    }
+
+    static final OffHeapList.Codec<Sample> CODEC = new OffHeapList.Codec<Sample>() {
+        public int recordSize() {
+            return 20;
+        }
+
+        public void write(Sample s, ByteBuffer buf, int offset) {
+            buf.putLong(offset, s.id);
+            buf.putDouble(offset + 8, s.value);
+            buf.putInt(offset + 16, s.tag);
+        }
+
+        public Sample read(ByteBuffer buf, int offset) {
+            return new Sample(buf.getLong(offset), buf.getDouble(offset + 8), buf.getInt(offset + 16));
+        }
+    };
+
+    @Param({"10000000"})
+    public int size;
+
+    private OffHeapList<Sample> offHeap;
+
+    private java.util.ArrayList<Sample> heap;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        offHeap = OffHeapList.allocate(CODEC, size);
+        heap = new java.util.ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Sample s = new Sample(i, i * 0.5, i & 0xff);
+            offHeap.add(s);
+            heap.add(s);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        offHeap.close();
+    }
+
+    @Benchmark
+    public long offHeapField() {
+        return offHeap.getLong(ThreadLocalRandom.current().nextInt(size), 0);
+    }
+
+    @Benchmark
+    public long offHeapDecode() {
+        return offHeap.get(ThreadLocalRandom.current().nextInt(size)).id;
+    }
+
+    @Benchmark
+    public long heap() {
+        return heap.get(ThreadLocalRandom.current().nextInt(size)).id;
+    }
+}
@@ -0,0 +1,103 @@
+package bench.jmh;
+
+import container.LongList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Collections;
+import java.util.Random;
+
+/**
+ * container.LongList对照java.util.ArrayList&lt;Long&gt;：追加、求和、排序、二分查找。
+ * 配合-prof gc看gc.alloc.rate.norm，LongList追加时只有扩容的数组分配，ArrayList&lt;Long&gt;每个元素还要一个Long。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+@State(Scope.Thread)
+public class PrimitiveListBenchmark {
+
+    @Param({"1000", "1000000"})
+    public int size;
+
+    private long[] values;
+
+    private LongList longs;
+
+    private java.util.ArrayList<Long> boxed;
+
+    private long key;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        values = new long[size];
+        longs = new LongList(size);
+        boxed = new java.util.ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values[i] = random.nextLong();
+            longs.add(values[i]);
+            boxed.add(values[i]);
+        }
+        key = values[size / 2];
+        longs.sort();
+        Collections.sort(boxed);
+    }
+
+    @Benchmark
+    public Object addLongList() {
+        LongList list = new LongList();
+        for (long v : values) {
+            list.add(v);
+        }
+        return list;
+    }
+
+    @Benchmark
+    public Object addBoxed() {
+        java.util.ArrayList<Long> list = new java.util.ArrayList<>();
+        for (long v : values) {
+            list.add(v);
+        }
+        return list;
+    }
+
+    @Benchmark
+    public long sumLongList() {
+        return longs.longStream().sum();
+    }
+
+    @Benchmark
+    public long sumBoxed() {
+        return boxed.stream().mapToLong(Long::longValue).sum();
+    }
+
+    @Benchmark
+    public Object sortLongList() {
+        LongList list = LongList.of(values);
+        list.sort();
+        return list;
+    }
+
+    @Benchmark
+    public Object sortBoxed() {
+        java.util.ArrayList<Long> list = new java.util.ArrayList<>(boxed);
+        Collections.shuffle(list, new Random(1));
+        Collections.sort(list);
+        return list;
+    }
+
+    @Benchmark
+    public int binarySearchLongList() {
+        return longs.binarySearch(key);
+    }
+
+    @Benchmark
+    public int binarySearchBoxed() {
+        return Collections.binarySearch(boxed, key);
+    }
+}
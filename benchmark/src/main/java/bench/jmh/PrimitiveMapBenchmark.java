@@ -0,0 +1,116 @@
+package bench.jmh;
+
+import container.LongIntHashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * ID到下标的查找：container.LongIntHashMap对照java.util.HashMap&lt;Long, Integer&gt;，
+ * 命中、未命中的get，以及从空表逐个put到size个元素（包含全部扩容）。
+ * 配合-prof gc看每次操作的分配，LongIntHashMap的get和put都不装箱。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+@State(Scope.Thread)
+public class PrimitiveMapBenchmark {
+
+    private static final int LOOKUPS = 1024;
+
+    @Param({"1000", "1000000"})
+    public int size;
+
+    private long[] ids;
+
+    /**
+     * 命中和未命中各LOOKUPS个键，顺序随机
+     */
+    private long[] hits;
+
+    private long[] misses;
+
+    private LongIntHashMap primitive;
+
+    private HashMap<Long, Integer> boxed;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        ids = new long[size];
+        primitive = new LongIntHashMap();
+        boxed = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            // 偶数是存在的键，奇数不存在
+            ids[i] = random.nextLong() << 1;
+            primitive.put(ids[i], i);
+            boxed.put(ids[i], i);
+        }
+        hits = new long[LOOKUPS];
+        misses = new long[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            hits[i] = ids[random.nextInt(size)];
+            misses[i] = random.nextLong() | 1;
+        }
+    }
+
+    @Benchmark
+    public long getHitPrimitive() {
+        long sum = 0;
+        for (long id : hits) {
+            sum += primitive.get(id);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long getHitBoxed() {
+        long sum = 0;
+        for (long id : hits) {
+            sum += boxed.get(id);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long getMissPrimitive() {
+        long sum = 0;
+        for (long id : misses) {
+            sum += primitive.get(id);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long getMissBoxed() {
+        long sum = 0;
+        for (long id : misses) {
+            sum += boxed.getOrDefault(id, 0);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public Object putAllPrimitive() {
+        LongIntHashMap map = new LongIntHashMap();
+        for (int i = 0; i < ids.length; i++) {
+            map.put(ids[i], i);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public Object putAllBoxed() {
+        HashMap<Long, Integer> map = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            map.put(ids[i], i);
+        }
+        return map;
+    }
+}
@@ -0,0 +1,159 @@
+package bench.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * 读多写少：每组3个读线程、1个写线程，读一对坐标、写时同时修改两者。
+ * 对比juc.locks.ReentrantReadWriteLock、juc.locks.StampedLock（先乐观读，失败再加读锁）
+ * 与java.util.concurrent.locks中的同名类。work是写临界区内Blackhole.consumeCPU的令牌数。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+@State(Scope.Group)
+public class ReadWriteLockBenchmark {
+
+    interface Point {
+        long read();
+
+        void write(int work);
+    }
+
+    @Param({"juc-rrw", "juc-rrw-fair", "juc-stamped", "jdk-rrw", "jdk-rrw-fair", "jdk-stamped"})
+    public String lock;
+
+    @Param({"0", "100"})
+    public int work;
+
+    private Point point;
+
+    private long x;
+
+    private long y;
+
+    @Setup
+    public void setup() {
+        switch (lock) {
+            case "juc-rrw":
+            case "juc-rrw-fair": {
+                juc.locks.ReentrantReadWriteLock rw = new juc.locks.ReentrantReadWriteLock(lock.endsWith("fair"));
+                point = of(Mutexes.of(rw.readLock()), Mutexes.of(rw.writeLock()));
+                break;
+            }
+            case "jdk-rrw":
+            case "jdk-rrw-fair": {
+                java.util.concurrent.locks.ReentrantReadWriteLock rw =
+                        new java.util.concurrent.locks.ReentrantReadWriteLock(lock.endsWith("fair"));
+                point = of(Mutexes.of(rw.readLock()), Mutexes.of(rw.writeLock()));
+                break;
+            }
+            case "juc-stamped": {
+                juc.locks.StampedLock sl = new juc.locks.StampedLock();
+                point = new Point() {
+                    public long read() {
+                        long stamp = sl.tryOptimisticRead();
+                        long r = x + y;
+                        if (!sl.validate(stamp)) {
+                            stamp = sl.readLock();
+                            try {
+                                r = x + y;
+                            } finally {
+                                sl.unlockRead(stamp);
+                            }
+                        }
+                        return r;
+                    }
+
+                    public void write(int work) {
+                        long stamp = sl.writeLock();
+                        try {
+                            update(work);
+                        } finally {
+                            sl.unlockWrite(stamp);
+                        }
+                    }
+                };
+                break;
+            }
+            case "jdk-stamped": {
+                java.util.concurrent.locks.StampedLock sl = new java.util.concurrent.locks.StampedLock();
+                point = new Point() {
+                    public long read() {
+                        long stamp = sl.tryOptimisticRead();
+                        long r = x + y;
+                        if (!sl.validate(stamp)) {
+                            stamp = sl.readLock();
+                            try {
+                                r = x + y;
+                            } finally {
+                                sl.unlockRead(stamp);
+                            }
+                        }
+                        return r;
+                    }
+
+                    public void write(int work) {
+                        long stamp = sl.writeLock();
+                        try {
+                            update(work);
+                        } finally {
+                            sl.unlockWrite(stamp);
+                        }
+                    }
+                };
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("unknown lock: " + lock);
+        }
+    }
+
+    private Point of(Mutexes.Mutex read, Mutexes.Mutex write) {
+        return new Point() {
+            public long read() {
+                read.lock();
+                try {
+                    return x + y;
+                } finally {
+                    read.unlock();
+                }
+            }
+
+            public void write(int work) {
+                write.lock();
+                try {
+                    update(work);
+                } finally {
+                    write.unlock();
+                }
+            }
+        };
+    }
+
+    private void update(int work) {
+        x++;
+        Blackhole.consumeCPU(work);
+        y--;
+    }
+
+    @Benchmark
+    @Group("readMostly")
+    @GroupThreads(3)
+    public long reader() {
+        return point.read();
+    }
+
+    @Benchmark
+    @Group("readMostly")
+    @GroupThreads(1)
+    public void writer() {
+        point.write(work);
+    }
+}
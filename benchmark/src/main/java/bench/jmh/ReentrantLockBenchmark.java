@@ -0,0 +1,48 @@
+package bench.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * 互斥锁的加锁、解锁：juc.locks.ReentrantLock的公平、非公平、有界插队模式，
+ * CohortLock、CombiningLock、DeadlineLock，对照java.util.concurrent.locks.ReentrantLock。
+ * CombiningLock代为执行临界区的方式见CombiningLockBenchmark。
+ * work是临界区内Blackhole.consumeCPU的令牌数，用来改变临界区长度；线程数由运行参数-t决定。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+@State(Scope.Benchmark)
+public class ReentrantLockBenchmark {
+
+    @Param({"juc-nonfair", "juc-fair", "juc-barging", "juc-cohort", "juc-combining", "juc-deadline",
+            "jdk-nonfair", "jdk-fair"})
+    public String lock;
+
+    @Param({"0", "100", "1000"})
+    public int work;
+
+    private Mutexes.Mutex mutex;
+
+    private long counter;
+
+    @Setup
+    public void setup() {
+        mutex = Mutexes.create(lock);
+    }
+
+    @Benchmark
+    public long lockUnlock() {
+        mutex.lock();
+        try {
+            Blackhole.consumeCPU(work);
+            return ++counter;
+        } finally {
+            mutex.unlock();
+        }
+    }
+}
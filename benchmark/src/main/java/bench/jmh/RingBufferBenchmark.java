@@ -0,0 +1,130 @@
+package bench.jmh;
+
+import juc.RingBuffer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Control;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * juc.RingBuffer不同等待方式下的生产者、消费者：single中逐个put、take，batch中生产者每次putAll BATCH个元素，
+ * 消费者每次drainTo最多BATCH个。与基于锁的队列的对照在BlockingQueueBenchmark的juc-ring中。
+ * BUSY_SPIN在线程数超过核数时会严重退化，这里不测；YIELDING同样要求线程数不超过核数。
+ * 本线程的测量结束后（Control.stopMeasurement），JMH仍会继续调用基准方法直到同组的线程都结束测量，
+ * 这时改用不等待的offer、poll，保证对方停下以后不会永久阻塞；测量期间的put、take总能等到对方。
+ * batch中生产者一行是每秒发布的元素数，消费者一行是drainTo的调用次数，辅助计数drained是每秒取出的元素数。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+@State(Scope.Group)
+public class RingBufferBenchmark {
+
+    private static final int BATCH = 32;
+
+    private static final Integer ITEM = 1;
+
+    private static final List<Integer> ITEMS = Collections.nCopies(BATCH, ITEM);
+
+    @Param({"BLOCKING", "PARKING", "YIELDING"})
+    public String waitStrategy;
+
+    @Param({"1024"})
+    public int capacity;
+
+    private RingBuffer<Integer> ring;
+
+    @Setup
+    public void setup() {
+        RingBuffer.WaitStrategy strategy;
+        switch (waitStrategy) {
+            case "BLOCKING":
+                strategy = RingBuffer.BLOCKING;
+                break;
+            case "PARKING":
+                strategy = RingBuffer.PARKING;
+                break;
+            case "YIELDING":
+                strategy = RingBuffer.YIELDING;
+                break;
+            default:
+                throw new IllegalArgumentException("unknown wait strategy: " + waitStrategy);
+        }
+        ring = new RingBuffer<>(capacity, strategy);
+    }
+
+    /**
+     * 消费者取出的元素数
+     */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Drained {
+
+        public long drained;
+
+        final List<Integer> buffer = new ArrayList<>(BATCH);
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            drained = 0;
+        }
+    }
+
+    @Benchmark
+    @Group("single")
+    @GroupThreads(1)
+    public boolean put(Control control) throws InterruptedException {
+        if (control.stopMeasurement) {
+            return ring.offer(ITEM);
+        }
+        ring.put(ITEM);
+        return true;
+    }
+
+    @Benchmark
+    @Group("single")
+    @GroupThreads(1)
+    public Integer take(Control control) throws InterruptedException {
+        if (control.stopMeasurement) {
+            return ring.poll();
+        }
+        return ring.take();
+    }
+
+    @Benchmark
+    @Group("batch")
+    @GroupThreads(1)
+    @OperationsPerInvocation(BATCH)
+    public int putAll(Control control) throws InterruptedException {
+        if (control.stopMeasurement) {
+            return ring.offerAll(ITEMS);
+        }
+        ring.putAll(ITEMS);
+        return BATCH;
+    }
+
+    @Benchmark
+    @Group("batch")
+    @GroupThreads(1)
+    public int drainTo(Control control, Drained drained) throws InterruptedException {
+        List<Integer> buffer = drained.buffer;
+        buffer.clear();
+        int n = control.stopMeasurement
+                ? ring.drainTo(buffer, BATCH)
+                : ring.drainTo(buffer, BATCH, 10, TimeUnit.MILLISECONDS);
+        drained.drained += n;
+        return n;
+    }
+}
@@ -0,0 +1,86 @@
+package bench.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * 信号量的acquire/release：juc.locks.Semaphore的公平、非公平和分段模式，
+ * 对照java.util.concurrent.Semaphore。permits小于线程数时才会出现排队；
+ * work是持有许可期间Blackhole.consumeCPU的令牌数。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+@State(Scope.Benchmark)
+public class SemaphoreBenchmark {
+
+    interface Permits {
+        void acquire() throws InterruptedException;
+
+        void release();
+    }
+
+    @Param({"juc-nonfair", "juc-fair", "juc-striped", "jdk-nonfair", "jdk-fair"})
+    public String semaphore;
+
+    @Param({"1", "4", "64"})
+    public int permits;
+
+    @Param({"0", "100"})
+    public int work;
+
+    private Permits sem;
+
+    @Setup
+    public void setup() {
+        switch (semaphore) {
+            case "juc-nonfair":
+            case "juc-fair":
+            case "juc-striped": {
+                juc.locks.Semaphore s = "juc-striped".equals(semaphore)
+                        ? juc.locks.Semaphore.striped(permits)
+                        : new juc.locks.Semaphore(permits, "juc-fair".equals(semaphore));
+                sem = new Permits() {
+                    public void acquire() throws InterruptedException {
+                        s.acquire();
+                    }
+
+                    public void release() {
+                        s.release();
+                    }
+                };
+                break;
+            }
+            case "jdk-nonfair":
+            case "jdk-fair": {
+                java.util.concurrent.Semaphore s = new java.util.concurrent.Semaphore(permits, "jdk-fair".equals(semaphore));
+                sem = new Permits() {
+                    public void acquire() throws InterruptedException {
+                        s.acquire();
+                    }
+
+                    public void release() {
+                        s.release();
+                    }
+                };
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("unknown semaphore: " + semaphore);
+        }
+    }
+
+    @Benchmark
+    public void acquireRelease() throws InterruptedException {
+        sem.acquire();
+        try {
+            Blackhole.consumeCPU(work);
+        } finally {
+            sem.release();
+        }
+    }
+}
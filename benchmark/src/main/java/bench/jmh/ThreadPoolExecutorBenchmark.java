@@ -0,0 +1,82 @@
+package bench.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 线程池的任务分发：每次操作提交tasks个任务并等它们全部完成。
+ * 对比juc.ThreadPoolExecutor（逐个execute和批量executeAll，队列为juc.LinkedBlockingQueue）
+ * 与java.util.concurrent.ThreadPoolExecutor（队列为java.util.concurrent.LinkedBlockingQueue）。
+ * work是每个任务内Blackhole.consumeCPU的令牌数。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+@State(Scope.Benchmark)
+public class ThreadPoolExecutorBenchmark {
+
+    @Param({"juc", "juc-batch", "jdk"})
+    public String executor;
+
+    @Param({"1", "4"})
+    public int poolSize;
+
+    @Param({"64"})
+    public int tasks;
+
+    @Param({"0", "1000"})
+    public int work;
+
+    private ExecutorService pool;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        if (executor.startsWith("juc")) {
+            pool = new juc.ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                    new juc.LinkedBlockingQueue<>());
+        } else {
+            pool = new java.util.concurrent.ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                    new java.util.concurrent.LinkedBlockingQueue<>());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public void submitAndWait() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(tasks);
+        int work = this.work;
+        Runnable task = () -> {
+            Blackhole.consumeCPU(work);
+            done.countDown();
+        };
+        if ("juc-batch".equals(executor)) {
+            List<Runnable> batch = new ArrayList<>(tasks);
+            for (int i = 0; i < tasks; i++) {
+                batch.add(task);
+            }
+            ((juc.ThreadPoolExecutor) pool).executeAll(batch);
+        } else {
+            for (int i = 0; i < tasks; i++) {
+                pool.execute(task);
+            }
+        }
+        done.await();
+    }
+}
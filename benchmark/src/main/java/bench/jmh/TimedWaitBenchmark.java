@@ -0,0 +1,194 @@
+package bench.jmh;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 大量限时等待下的超时精度与CPU占用：后台waiters个线程各自在自己的锁上反复awaitNanos，没有人signal，全部等到超时，
+ * 超时时间在timeoutMillis的1到2倍之间随机；被测线程同样awaitNanos(timeoutMillis)，
+ * SampleTime的分位数减去timeoutMillis就是超时抖动。辅助计数cpuMicros是测量期间进程的CPU时间，单位微秒，
+ * JMH把所有测量轮次和fork的值相加，除以轮次数乘每轮时长就是CPU占用，只在Throughput模式下输出。
+ * jucTimerWheel以-Djuc.locks.timerWheel=true启动，jucParked不开启时间轮，jdk是java.util.concurrent.locks的对照组。
+ * 三个方法必须在各自的fork中运行（默认），-f 0时时间轮的开关不生效。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+@State(Scope.Benchmark)
+public class TimedWaitBenchmark {
+
+    @Param({"1000", "10000"})
+    public int waiters;
+
+    @Param({"5"})
+    public long timeoutMillis;
+
+    interface TimedWait {
+        void awaitNanos(long nanos) throws InterruptedException;
+    }
+
+    /**
+     * 后台的等待线程，由子类决定使用哪一种锁
+     */
+    abstract static class Waiters {
+
+        private Thread[] threads;
+
+        private volatile boolean stopped;
+
+        abstract TimedWait newWait();
+
+        @Setup(Level.Trial)
+        public void start(TimedWaitBenchmark benchmark) {
+            long minNanos = TimeUnit.MILLISECONDS.toNanos(benchmark.timeoutMillis);
+            threads = new Thread[benchmark.waiters];
+            for (int i = 0; i < threads.length; i++) {
+                TimedWait wait = newWait();
+                threads[i] = new Thread(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    try {
+                        while (!stopped) {
+                            wait.awaitNanos(random.nextLong(minNanos, 2 * minNanos + 1));
+                        }
+                    } catch (InterruptedException e) {
+                        // 结束
+                    }
+                }, "waiter-" + i);
+                threads[i].setDaemon(true);
+                threads[i].start();
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() throws InterruptedException {
+            stopped = true;
+            for (Thread t : threads) {
+                t.interrupt();
+            }
+            for (Thread t : threads) {
+                t.join();
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class JucWaiters extends Waiters {
+        @Override
+        TimedWait newWait() {
+            return juc();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class JdkWaiters extends Waiters {
+        @Override
+        TimedWait newWait() {
+            return jdk();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class JucWait {
+        final TimedWait wait = juc();
+    }
+
+    @State(Scope.Thread)
+    public static class JdkWait {
+        final TimedWait wait = jdk();
+    }
+
+    /**
+     * 每轮迭代中进程的CPU时间，单位微秒，从迭代开始到被测线程最后一次调用结束
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Cpu {
+
+        private static final OperatingSystemMXBean OS = ManagementFactory.getOperatingSystemMXBean();
+
+        public long cpuMicros;
+
+        private long last = -1L;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            cpuMicros = 0;
+            last = processCpuTime();
+        }
+
+        void sample() {
+            long now = processCpuTime();
+            if (now >= 0 && last >= 0) {
+                cpuMicros += (now - last) / 1000;
+            }
+            last = now;
+        }
+
+        private static long processCpuTime() {
+            if (OS instanceof com.sun.management.OperatingSystemMXBean) {
+                return ((com.sun.management.OperatingSystemMXBean) OS).getProcessCpuTime();
+            }
+            return -1L;
+        }
+    }
+
+    static TimedWait juc() {
+        juc.locks.ReentrantLock lock = new juc.locks.ReentrantLock();
+        juc.locks.Condition condition = lock.newCondition();
+        return nanos -> {
+            lock.lock();
+            try {
+                condition.awaitNanos(nanos);
+            } finally {
+                lock.unlock();
+            }
+        };
+    }
+
+    static TimedWait jdk() {
+        java.util.concurrent.locks.ReentrantLock lock = new java.util.concurrent.locks.ReentrantLock();
+        java.util.concurrent.locks.Condition condition = lock.newCondition();
+        return nanos -> {
+            lock.lock();
+            try {
+                condition.awaitNanos(nanos);
+            } finally {
+                lock.unlock();
+            }
+        };
+    }
+
+    private void measure(TimedWait wait, Cpu cpu) throws InterruptedException {
+        wait.awaitNanos(TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+        cpu.sample();
+    }
+
+    @Benchmark
+    @Fork(jvmArgsAppend = "-Djuc.locks.timerWheel=true")
+    public void jucTimerWheel(JucWaiters waiters, JucWait wait, Cpu cpu) throws InterruptedException {
+        measure(wait.wait, cpu);
+    }
+
+    @Benchmark
+    @Fork(jvmArgsAppend = "-Djuc.locks.timerWheel=false")
+    public void jucParked(JucWaiters waiters, JucWait wait, Cpu cpu) throws InterruptedException {
+        measure(wait.wait, cpu);
+    }
+
+    @Benchmark
+    public void jdk(JdkWaiters waiters, JdkWait wait, Cpu cpu) throws InterruptedException {
+        measure(wait.wait, cpu);
+    }
+}
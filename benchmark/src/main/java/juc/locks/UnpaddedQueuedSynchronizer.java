@@ -0,0 +1,279 @@
+package juc.locks;
+
+import juc.locks.AbstractQueuedSynchronizer.AsyncAcquire;
+import juc.locks.AbstractQueuedSynchronizer.Node;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 只用于AqsLayoutBenchmark的对照组：填充之前的AQS字段布局。
+ * exclusiveOwnerThread、head、state、tail、spinDuration紧挨着放在同一个对象头之后，
+ * 排队线程CAS tail与持有者读写state/head落在同一个缓存行上。
+ * <p>
+ * 独占模式的获取、自旋、阻塞、取消和释放与AbstractQueuedSynchronizer逐行相同，节点和节点的VarHandle直接复用，
+ * 两者只有字段布局不同。复用节点、统计、异步获取、共享模式和条件队列都去掉了，基准中用不到：
+ * 统计默认关闭，AQS中对应的分支被JIT消除；复用节点默认关闭。修改AQS的独占路径时这里要同步修改。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+abstract class UnpaddedQueuedSynchronizer extends AbstractOwnableSynchronizer {
+
+    private volatile Node head;
+
+    private volatile Node tail;
+
+    private volatile int state;
+
+    int spinDuration = AbstractQueuedSynchronizer.MAX_SPINS >>> 2;
+
+    protected UnpaddedQueuedSynchronizer() {
+    }
+
+    public int getState() {
+        return state;
+    }
+
+    public void setState(int newState) {
+        this.state = newState;
+    }
+
+    protected final boolean compareAndSetState(int expect, int update) {
+        return STATE.compareAndSet(this, expect, update);
+    }
+
+    private Node enq(final Node node) {
+        for (; ; ) {
+            Node t = tail;
+            if (t == null) {
+                if (compareAndSetHead(new Node())) {
+                    tail = head;
+                }
+            } else {
+                PREV.set(node, t);
+                if (compareAndSetTail(t, node)) {
+                    NEXT.setRelease(t, node);
+                    return t;
+                }
+            }
+        }
+    }
+
+    private Node addWaiter(Node mode) {
+        Node node = new Node(Thread.currentThread(), mode);
+        Node pred = tail;
+        if (pred != null) {
+            PREV.set(node, pred);
+            if (compareAndSetTail(pred, node)) {
+                NEXT.setRelease(pred, node);
+                return node;
+            }
+        }
+        enq(node);
+        return node;
+    }
+
+    final boolean acquireQueued(final Node node, int arg) {
+        boolean failed = true;
+        try {
+            boolean interrupted = false;
+            for (; ; ) {
+                final Node p = node.predecessor();
+                if (p == head && (tryAcquire(arg) || spinForAcquire(arg))) {
+                    setHead(node);
+                    // help GC
+                    NEXT.set(p, null);
+                    failed = false;
+                    return interrupted;
+                }
+                if (shouldParkAfterFailedAcquire(p, node)
+                        && parkAndCheckInterrupt()) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (failed) {
+                cancelAcquire(node);
+            }
+        }
+    }
+
+    public final void acquire(int arg) {
+        if (tryAcquire(arg)) {
+            return;
+        }
+        if (acquireQueued(addWaiter(Node.EXCLUSIVE), arg)) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean parkAndCheckInterrupt() {
+        LockSupport.park(this);
+        return Thread.interrupted();
+    }
+
+    private boolean shouldParkAfterFailedAcquire(Node pred, Node node) {
+        int ws = pred.waitStatus;
+        if (ws == Node.SIGNAL) {
+            return true;
+        }
+        if (ws > 0) {
+            do {
+                node.prev = pred = pred.prev;
+            } while (pred.waitStatus > 0);
+            pred.next = node;
+        } else {
+            WAIT_STATUS.compareAndSet(pred, ws, Node.SIGNAL);
+        }
+        return false;
+    }
+
+    private boolean spinForAcquire(int arg) {
+        if (VirtualThreads.isVirtual()) {
+            Thread.yield();
+            return tryAcquire(arg);
+        }
+        int budget = spinDuration;
+        for (int i = 0; i < budget; i++) {
+            Thread.onSpinWait();
+            if (tryAcquire(arg)) {
+                spinDuration = Math.min(AbstractQueuedSynchronizer.MAX_SPINS,
+                        budget + AbstractQueuedSynchronizer.SPIN_BONUS);
+                return true;
+            }
+        }
+        spinDuration = Math.max(AbstractQueuedSynchronizer.MIN_SPINS, budget - AbstractQueuedSynchronizer.SPIN_PENALTY);
+        return false;
+    }
+
+    private void cancelAcquire(Node node) {
+        if (node == null) {
+            return;
+        }
+        THREAD.set(node, null);
+        Node pred = node.prev;
+        while (pred.waitStatus > 0) {
+            node.prev = pred = pred.prev;
+        }
+        Node predNext = pred.next;
+        WAIT_STATUS.setRelease(node, Node.CANCELLED);
+        if (node == tail && compareAndSetTail(node, pred)) {
+            NEXT.compareAndSet(pred, predNext, null);
+        } else {
+            int ws;
+            if (pred != head
+                    && ((ws = pred.waitStatus) == Node.SIGNAL
+                    || (ws <= 0 && WAIT_STATUS.compareAndSet(pred, ws, Node.SIGNAL)))
+                    && pred.thread != null) {
+                Node next = node.next;
+                if (next != null && next.waitStatus <= 0) {
+                    NEXT.compareAndSet(pred, predNext, next);
+                }
+            } else {
+                unparkSuccessor(node);
+            }
+            NEXT.setRelease(node, node);
+        }
+    }
+
+    protected boolean tryAcquire(int arg) {
+        throw new UnsupportedOperationException();
+    }
+
+    private void setHead(Node node) {
+        head = node;
+        THREAD.set(node, null);
+        PREV.set(node, null);
+    }
+
+    public final boolean hasQueuedPredecessors() {
+        Node t = tail;
+        Node h = head;
+        Node s;
+        return h != t && ((s = h.next) == null || s.thread != Thread.currentThread());
+    }
+
+    protected boolean tryRelease(int arg) {
+        throw new UnsupportedOperationException();
+    }
+
+    public final boolean release(int arg) {
+        if (tryRelease(arg)) {
+            Node h = head;
+            if (h != null
+                    && h.waitStatus != 0) {
+                unparkSuccessor(h);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private void unparkSuccessor(Node node) {
+        int ws = node.waitStatus;
+        if (ws < 0) {
+            WAIT_STATUS.compareAndSet(node, ws, 0);
+        }
+        Node s = node.next;
+        if (s == null || s.waitStatus > 0) {
+            s = findSuccessor(node);
+        }
+        if (s != null) {
+            AsyncAcquire async = s.async;
+            if (async != null) {
+                async.wake();
+            } else {
+                LockSupport.unpark(s.thread);
+            }
+        }
+    }
+
+    private Node findSuccessor(Node node) {
+        for (Node p = node.next; p != null; ) {
+            if (p.waitStatus <= 0) {
+                return p;
+            }
+            Node next = p.next;
+            if (next == p) {
+                break;
+            }
+            p = next;
+        }
+        Node s = null;
+        for (Node t = tail; t != null && t != node; t = t.prev) {
+            if (t.waitStatus <= 0) {
+                s = t;
+            }
+        }
+        return s;
+    }
+
+    private boolean compareAndSetHead(Node update) {
+        return HEAD.compareAndSet(this, null, update);
+    }
+
+    private boolean compareAndSetTail(Node expect, Node update) {
+        return TAIL.compareAndSet(this, expect, update);
+    }
+
+    private static final VarHandle STATE;
+    private static final VarHandle HEAD;
+    private static final VarHandle TAIL;
+    private static final VarHandle WAIT_STATUS = AbstractQueuedSynchronizer.WAIT_STATUS;
+    private static final VarHandle NEXT = AbstractQueuedSynchronizer.NEXT;
+    private static final VarHandle PREV = AbstractQueuedSynchronizer.PREV;
+    private static final VarHandle THREAD = AbstractQueuedSynchronizer.THREAD;
+
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            STATE = l.findVarHandle(UnpaddedQueuedSynchronizer.class, "state", int.class);
+            HEAD = l.findVarHandle(UnpaddedQueuedSynchronizer.class, "head", Node.class);
+            TAIL = l.findVarHandle(UnpaddedQueuedSynchronizer.class, "tail", Node.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
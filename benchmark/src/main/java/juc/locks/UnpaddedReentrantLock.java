@@ -0,0 +1,108 @@
+package juc.locks;
+
+/**
+ * 只用于AqsLayoutBenchmark：建立在UnpaddedQueuedSynchronizer上的ReentrantLock，
+ * 公平与非公平模式的lock、unlock与ReentrantLock相同，只提供基准需要的方法。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+public final class UnpaddedReentrantLock {
+
+    private final Sync sync;
+
+    abstract static class Sync extends UnpaddedQueuedSynchronizer {
+
+        abstract void lock();
+
+        final boolean nonfairTryAcquire(int acquires) {
+            final Thread current = Thread.currentThread();
+            int c = getState();
+            if (c == 0) {
+                if (compareAndSetState(0, acquires)) {
+                    setExclusiveOwnerThread(current);
+                    return true;
+                }
+            } else if (current == getExclusiveOwnerThread()) {
+                int nextc = c + acquires;
+                if (nextc < 0) {
+                    throw new Error("Maximum lock count exceeded");
+                }
+                setState(nextc);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        protected final boolean tryRelease(int releases) {
+            int c = getState() - releases;
+            if (Thread.currentThread() != getExclusiveOwnerThread()) {
+                throw new IllegalMonitorStateException();
+            }
+            boolean free = false;
+            if (c == 0) {
+                free = true;
+                setExclusiveOwnerThread(null);
+            }
+            setState(c);
+            return free;
+        }
+    }
+
+    static final class NonfairSync extends Sync {
+        @Override
+        void lock() {
+            if (compareAndSetState(0, 1)) {
+                setExclusiveOwnerThread(Thread.currentThread());
+            } else {
+                acquire(1);
+            }
+        }
+
+        @Override
+        protected boolean tryAcquire(int acquires) {
+            return nonfairTryAcquire(acquires);
+        }
+    }
+
+    static final class FairSync extends Sync {
+        @Override
+        void lock() {
+            acquire(1);
+        }
+
+        @Override
+        protected boolean tryAcquire(int acquires) {
+            final Thread current = Thread.currentThread();
+            int c = getState();
+            if (c == 0) {
+                if (!hasQueuedPredecessors()
+                        && compareAndSetState(0, acquires)) {
+                    setExclusiveOwnerThread(current);
+                    return true;
+                }
+            } else if (current == getExclusiveOwnerThread()) {
+                int nextc = c + acquires;
+                if (nextc < 0) {
+                    throw new Error("Maximum lock count exceeded");
+                }
+                setState(nextc);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    public UnpaddedReentrantLock(boolean fair) {
+        sync = fair ? new FairSync() : new NonfairSync();
+    }
+
+    public void lock() {
+        sync.lock();
+    }
+
+    public void unlock() {
+        sync.release(1);
+    }
+}
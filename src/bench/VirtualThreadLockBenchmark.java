@@ -0,0 +1,91 @@
+package bench;
+
+import juc.locks.ReentrantLock;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 大量虚拟线程竞争同一把ReentrantLock，与平台线程池执行相同任务对比。
+ * 每个任务获取并释放锁若干次，临界区内做少量计算。
+ * 虚拟线程需要JDK 21及以上，低版本只运行平台线程部分。
+ * 用法：java bench.VirtualThreadLockBenchmark [任务数] [每个任务的加锁次数] [平台线程数]
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+public class VirtualThreadLockBenchmark {
+
+    private static long counter;
+
+    public static void main(String[] args) throws Exception {
+        int tasks = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int opsPerTask = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int platformThreads = args.length > 2 ? Integer.parseInt(args[2]) : 1_000;
+
+        ExecutorService virtual = newVirtualThreadPerTaskExecutor();
+        for (int round = 0; round < 2; round++) {
+            // 第一轮用于预热
+            boolean warmup = round == 0;
+            if (virtual != null) {
+                report("virtual x" + tasks, warmup, tasks, opsPerTask,
+                        run(virtual, tasks, opsPerTask));
+            }
+            ExecutorService platform = Executors.newFixedThreadPool(platformThreads);
+            report("platform x" + platformThreads, warmup, tasks, opsPerTask,
+                    run(platform, tasks, opsPerTask));
+            platform.shutdown();
+        }
+        if (virtual == null) {
+            System.out.println("virtual threads are not available on this JDK");
+        } else {
+            virtual.shutdown();
+        }
+    }
+
+    /**
+     * JDK 21的Executors.newVirtualThreadPerTaskExecutor()，低版本返回null
+     *
+     * @return
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static long run(ExecutorService executor, int tasks, int opsPerTask) throws InterruptedException {
+        ReentrantLock lock = new ReentrantLock();
+        CountDownLatch done = new CountDownLatch(tasks);
+        long begin = System.nanoTime();
+        for (int i = 0; i < tasks; i++) {
+            executor.execute(() -> {
+                for (int j = 0; j < opsPerTask; j++) {
+                    lock.lock();
+                    try {
+                        counter += j;
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+                done.countDown();
+            });
+        }
+        if (!done.await(10, TimeUnit.MINUTES)) {
+            throw new IllegalStateException("benchmark did not finish");
+        }
+        return System.nanoTime() - begin;
+    }
+
+    private static void report(String name, boolean warmup, int tasks, int opsPerTask, long elapsedNanos) {
+        if (!warmup) {
+            double ops = (double) tasks * opsPerTask;
+            System.out.printf("%-20s %8d ms %,15.0f ops/s%n", name,
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos), ops * 1e9 / elapsedNanos);
+        }
+    }
+}
@@ -0,0 +1,614 @@
+package container;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * 基于数组的List，非线程安全。
+ * <p>
+ * 容量不足时按1.5倍扩容，插入、删除、批量追加都用System.arraycopy整段移动，追加的均摊开销为O(1)。
+ * 批量操作直接读写底层数组：addAll一次拷贝，removeIf先标记再一次压缩，replaceAll和sort就地处理。
+ * spliterator是SIZED|SUBSIZED的，每次从中间对半拆分，并行流在各个核之间均匀分配元素。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+public class ArrayList<E> implements List<E> {
+
+    private static final int DEFAULT_CAPACITY = 10;
+
+    private static final Object[] EMPTY = {};
+
+    /**
+     * 部分虚拟机会在数组中保留对象头，申请接近Integer.MAX_VALUE的数组会失败
+     */
+    private static final int SOFT_MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    private Object[] elementData;
+
+    private int size;
+
+    /**
+     * 结构修改（改变size或者整体重排元素）的次数，迭代器和spliterator据此fail-fast
+     */
+    private int modCount;
+
+    public ArrayList() {
+        this.elementData = EMPTY;
+    }
+
+    public ArrayList(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal capacity: " + initialCapacity);
+        }
+        this.elementData = initialCapacity == 0 ? EMPTY : new Object[initialCapacity];
+    }
+
+    public ArrayList(Collection<? extends E> c) {
+        Object[] a = c.toArray();
+        this.elementData = a.length == 0 ? EMPTY : Arrays.copyOf(a, a.length, Object[].class);
+        this.size = a.length;
+    }
+
+    /**
+     * 保证至少能容纳minCapacity个元素，之后追加到这个数量前不再扩容
+     *
+     * @param minCapacity
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > elementData.length) {
+            modCount++;
+            grow(minCapacity);
+        }
+    }
+
+    /**
+     * 把容量缩小到当前元素个数
+     */
+    public void trimToSize() {
+        if (size < elementData.length) {
+            modCount++;
+            elementData = size == 0 ? EMPTY : Arrays.copyOf(elementData, size);
+        }
+    }
+
+    /**
+     * 扩容到至少minCapacity，一般为原来的1.5倍，空数组第一次扩容时至少为DEFAULT_CAPACITY
+     */
+    private Object[] grow(int minCapacity) {
+        int oldCapacity = elementData.length;
+        int newCapacity = oldCapacity + (oldCapacity >> 1);
+        if (elementData == EMPTY) {
+            newCapacity = DEFAULT_CAPACITY;
+        }
+        if (newCapacity - minCapacity < 0) {
+            newCapacity = minCapacity;
+        }
+        if (newCapacity - SOFT_MAX_ARRAY_LENGTH > 0) {
+            if (minCapacity < 0) {
+                throw new OutOfMemoryError("Required array length too large");
+            }
+            newCapacity = Math.max(minCapacity, SOFT_MAX_ARRAY_LENGTH);
+        }
+        Object[] newData = new Object[newCapacity];
+        System.arraycopy(elementData, 0, newData, 0, size);
+        return elementData = newData;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> E elementAt(Object[] es, int index) {
+        return (E) es[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public E get(int index) {
+        Objects.checkIndex(index, size);
+        return elementAt(elementData, index);
+    }
+
+    @Override
+    public E set(int index, E e) {
+        Objects.checkIndex(index, size);
+        E old = elementAt(elementData, index);
+        elementData[index] = e;
+        return old;
+    }
+
+    @Override
+    public boolean add(E e) {
+        modCount++;
+        Object[] es = elementData;
+        int s = size;
+        if (s == es.length) {
+            es = grow(s + 1);
+        }
+        es[s] = e;
+        size = s + 1;
+        return true;
+    }
+
+    @Override
+    public void add(int index, E e) {
+        checkPositionIndex(index);
+        modCount++;
+        Object[] es = elementData;
+        int s = size;
+        if (s == es.length) {
+            es = grow(s + 1);
+        }
+        System.arraycopy(es, index, es, index + 1, s - index);
+        es[index] = e;
+        size = s + 1;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        Object[] a = c.toArray();
+        return appendArray(a, a.length);
+    }
+
+    @Override
+    public boolean addAll(List<? extends E> list) {
+        if (list instanceof ArrayList) {
+            // 直接从对方的数组拷贝，list == this时先记下数组和长度，扩容不影响拷贝源
+            ArrayList<? extends E> other = (ArrayList<? extends E>) list;
+            return appendArray(other.elementData, other.size);
+        }
+        Object[] a = list.toArray();
+        return appendArray(a, a.length);
+    }
+
+    private boolean appendArray(Object[] a, int n) {
+        modCount++;
+        if (n == 0) {
+            return false;
+        }
+        Object[] es = elementData;
+        int s = size;
+        if (n > es.length - s) {
+            es = grow(s + n);
+        }
+        System.arraycopy(a, 0, es, s, n);
+        size = s + n;
+        return true;
+    }
+
+    /**
+     * 把c的全部元素插入到index处，原来index及之后的元素整体后移一次
+     *
+     * @param index
+     * @param c
+     * @return c非空时返回true
+     */
+    public boolean addAll(int index, Collection<? extends E> c) {
+        checkPositionIndex(index);
+        Object[] a = c.toArray();
+        modCount++;
+        int n = a.length;
+        if (n == 0) {
+            return false;
+        }
+        Object[] es = elementData;
+        int s = size;
+        if (n > es.length - s) {
+            es = grow(s + n);
+        }
+        System.arraycopy(es, index, es, index + n, s - index);
+        System.arraycopy(a, 0, es, index, n);
+        size = s + n;
+        return true;
+    }
+
+    @Override
+    public E remove(int index) {
+        Objects.checkIndex(index, size);
+        E old = elementAt(elementData, index);
+        fastRemove(elementData, index);
+        return old;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        int i = indexOf(o);
+        if (i < 0) {
+            return false;
+        }
+        fastRemove(elementData, i);
+        return true;
+    }
+
+    private void fastRemove(Object[] es, int i) {
+        modCount++;
+        int newSize = size - 1;
+        if (newSize > i) {
+            System.arraycopy(es, i + 1, es, i, newSize - i);
+        }
+        es[size = newSize] = null;
+    }
+
+    /**
+     * 删除[from, to)之间的元素
+     *
+     * @param from
+     * @param to
+     */
+    public void removeRange(int from, int to) {
+        Objects.checkFromToIndex(from, to, size);
+        if (from == to) {
+            return;
+        }
+        modCount++;
+        Object[] es = elementData;
+        int s = size;
+        System.arraycopy(es, to, es, from, s - to);
+        int newSize = s - (to - from);
+        Arrays.fill(es, newSize, s, null);
+        size = newSize;
+    }
+
+    /**
+     * 先用位图标记所有要删除的元素，再一次把剩余元素向前压缩。
+     * 标记阶段不修改数组，filter抛出异常时容器保持不变。
+     */
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) {
+        Objects.requireNonNull(filter);
+        int expectedModCount = modCount;
+        Object[] es = elementData;
+        int end = size;
+        int i = 0;
+        for (; i < end && !filter.test(elementAt(es, i)); i++) {
+            // 找到第一个要删除的元素
+        }
+        if (i == end) {
+            checkForComodification(expectedModCount);
+            return false;
+        }
+        int beg = i;
+        long[] deathRow = new long[((end - beg) >> 6) + 1];
+        deathRow[0] = 1L;
+        for (i = beg + 1; i < end; i++) {
+            if (filter.test(elementAt(es, i))) {
+                deathRow[(i - beg) >> 6] |= 1L << (i - beg);
+            }
+        }
+        checkForComodification(expectedModCount);
+        modCount++;
+        int w = beg;
+        for (i = beg; i < end; i++) {
+            if ((deathRow[(i - beg) >> 6] & (1L << (i - beg))) == 0) {
+                es[w++] = es[i];
+            }
+        }
+        Arrays.fill(es, w, end, null);
+        size = w;
+        return true;
+    }
+
+    @Override
+    public void replaceAll(UnaryOperator<E> operator) {
+        Objects.requireNonNull(operator);
+        int expectedModCount = modCount;
+        Object[] es = elementData;
+        int s = size;
+        for (int i = 0; modCount == expectedModCount && i < s; i++) {
+            es[i] = operator.apply(elementAt(es, i));
+        }
+        checkForComodification(expectedModCount);
+        modCount++;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void sort(Comparator<? super E> c) {
+        int expectedModCount = modCount;
+        Arrays.sort((E[]) elementData, 0, size, c);
+        checkForComodification(expectedModCount);
+        modCount++;
+    }
+
+    @Override
+    public void forEach(Consumer<? super E> action) {
+        Objects.requireNonNull(action);
+        int expectedModCount = modCount;
+        Object[] es = elementData;
+        int s = size;
+        for (int i = 0; modCount == expectedModCount && i < s; i++) {
+            action.accept(elementAt(es, i));
+        }
+        checkForComodification(expectedModCount);
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        Object[] es = elementData;
+        int s = size;
+        if (o == null) {
+            for (int i = 0; i < s; i++) {
+                if (es[i] == null) {
+                    return i;
+                }
+            }
+        } else {
+            for (int i = 0; i < s; i++) {
+                if (o.equals(es[i])) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        Object[] es = elementData;
+        if (o == null) {
+            for (int i = size - 1; i >= 0; i--) {
+                if (es[i] == null) {
+                    return i;
+                }
+            }
+        } else {
+            for (int i = size - 1; i >= 0; i--) {
+                if (o.equals(es[i])) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void clear() {
+        modCount++;
+        Arrays.fill(elementData, 0, size, null);
+        size = 0;
+    }
+
+    @Override
+    public Object[] toArray() {
+        return Arrays.copyOf(elementData, size);
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Itr();
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return new ArrayListSpliterator(0, -1, 0);
+    }
+
+    private void checkPositionIndex(int index) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    private void checkForComodification(int expectedModCount) {
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof List)) {
+            return false;
+        }
+        List<?> other = (List<?>) o;
+        int s = size;
+        if (other.size() != s) {
+            return false;
+        }
+        int expectedModCount = modCount;
+        Object[] es = elementData;
+        Iterator<?> it = other.iterator();
+        for (int i = 0; i < s; i++) {
+            if (!Objects.equals(es[i], it.next())) {
+                return false;
+            }
+        }
+        checkForComodification(expectedModCount);
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int expectedModCount = modCount;
+        Object[] es = elementData;
+        int hash = 1;
+        for (int i = 0, s = size; i < s; i++) {
+            hash = 31 * hash + Objects.hashCode(es[i]);
+        }
+        checkForComodification(expectedModCount);
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        Object[] es = elementData;
+        int s = size;
+        if (s == 0) {
+            return "[]";
+        }
+        StringBuilder sb = new StringBuilder().append('[');
+        for (int i = 0; ; ) {
+            Object e = es[i];
+            sb.append(e == this ? "(this List)" : e);
+            if (++i == s) {
+                return sb.append(']').toString();
+            }
+            sb.append(", ");
+        }
+    }
+
+    /**
+     * fail-fast迭代器，remove只能删除上一次next返回的元素
+     */
+    private class Itr implements Iterator<E> {
+
+        /**
+         * 下一次next返回的下标
+         */
+        int cursor;
+
+        /**
+         * 上一次next返回的下标，没有或者已被删除时为-1
+         */
+        int lastRet = -1;
+
+        int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return cursor != size;
+        }
+
+        @Override
+        public E next() {
+            checkForComodification(expectedModCount);
+            int i = cursor;
+            if (i >= size) {
+                throw new NoSuchElementException();
+            }
+            Object[] es = elementData;
+            if (i >= es.length) {
+                throw new ConcurrentModificationException();
+            }
+            cursor = i + 1;
+            return elementAt(es, lastRet = i);
+        }
+
+        @Override
+        public void remove() {
+            if (lastRet < 0) {
+                throw new IllegalStateException();
+            }
+            checkForComodification(expectedModCount);
+            ArrayList.this.remove(lastRet);
+            cursor = lastRet;
+            lastRet = -1;
+            expectedModCount = modCount;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super E> action) {
+            Objects.requireNonNull(action);
+            int s = size;
+            int i = cursor;
+            if (i < s) {
+                Object[] es = elementData;
+                if (i >= es.length) {
+                    throw new ConcurrentModificationException();
+                }
+                for (; i < s && modCount == expectedModCount; i++) {
+                    action.accept(elementAt(es, i));
+                }
+                cursor = i;
+                lastRet = i - 1;
+                checkForComodification(expectedModCount);
+            }
+        }
+    }
+
+    /**
+     * 按下标范围[index, fence)遍历的spliterator。
+     * fence为-1时表示尚未绑定，第一次使用时才读取size和modCount，创建之后、遍历之前的修改仍然可见。
+     */
+    private final class ArrayListSpliterator implements Spliterator<E> {
+
+        private int index;
+
+        private int fence;
+
+        private int expectedModCount;
+
+        ArrayListSpliterator(int origin, int fence, int expectedModCount) {
+            this.index = origin;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        private int getFence() {
+            int hi;
+            if ((hi = fence) < 0) {
+                expectedModCount = modCount;
+                hi = fence = size;
+            }
+            return hi;
+        }
+
+        /**
+         * 从中间对半拆分，前一半交给新的spliterator，两边的大小都是精确的
+         */
+        @Override
+        public Spliterator<E> trySplit() {
+            int hi = getFence();
+            int lo = index;
+            int mid = (lo + hi) >>> 1;
+            return lo >= mid ? null : new ArrayListSpliterator(lo, index = mid, expectedModCount);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action) {
+            Objects.requireNonNull(action);
+            int hi = getFence();
+            int i = index;
+            if (i < hi) {
+                index = i + 1;
+                action.accept(elementAt(elementData, i));
+                checkForComodification(expectedModCount);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super E> action) {
+            Objects.requireNonNull(action);
+            Object[] es = elementData;
+            int hi = getFence();
+            int i = index;
+            if (i < hi && hi <= es.length) {
+                index = hi;
+                for (; i < hi; i++) {
+                    action.accept(elementAt(es, i));
+                }
+                checkForComodification(expectedModCount);
+                return;
+            }
+            if (i < hi) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            return getFence() - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+    }
+}
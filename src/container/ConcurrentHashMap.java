@@ -0,0 +1,633 @@
+package container;
+
+import juc.locks.ReentrantLock;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.LongBinaryOperator;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * 分段加锁的并发哈希表，不允许null键和null值。
+ * <p>
+ * 整个表按哈希值的高位分成若干段，每段是一个juc.locks.ReentrantLock，持有自己的桶数组、元素个数和扩容阈值。
+ * 写操作只锁键所在的段，不同段上的写互不影响，段数（concurrencyLevel）越多竞争越小。
+ * <p>
+ * 读操作不加锁：桶数组是volatile的，桶中的头节点以acquire语义读取，节点的value和next也是volatile的。
+ * 新节点总是插在链表头，删除时把前驱的next直接指向后继，正在遍历的读线程最多看到刚被删除的节点，不会断链。
+ * <p>
+ * 扩容按段进行，只在持有该段锁的线程中完成，其他段照常读写。扩容时每个桶末尾新下标相同的一段节点直接复用，
+ * 其余的复制一份，旧数组保持不变，仍在旧数组上遍历的读线程不受影响，最后以volatile写发布新数组。
+ * <p>
+ * forEach(long, BiConsumer)、reduce、reduceToLong在元素个数达到parallelismThreshold时
+ * 以段为单位拆分到ForkJoinPool.commonPool()并行执行，并行度不超过段数。
+ * size()和遍历都是弱一致的：并发修改时只反映某个时刻附近的状态，不抛出ConcurrentModificationException。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+public class ConcurrentHashMap<K, V> implements Map<K, V> {
+
+    static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    static final int MIN_SEGMENT_TABLE_CAPACITY = 2;
+
+    static final int MAX_SEGMENTS = 1 << 16;
+
+    private static final VarHandle TAB = MethodHandles.arrayElementVarHandle(Node[].class);
+
+    private final Segment<K, V>[] segments;
+
+    /**
+     * 段的下标为(hash >>> segmentShift) & segmentMask，即哈希值的高位
+     */
+    private final int segmentShift;
+
+    private final int segmentMask;
+
+    static final class Node<K, V> {
+        final int hash;
+        final K key;
+        volatile V value;
+        volatile Node<K, V> next;
+
+        Node(int hash, K key, V value, Node<K, V> next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K, V> Node<K, V> tabAt(Node<K, V>[] tab, int i) {
+        return (Node<K, V>) TAB.getAcquire(tab, i);
+    }
+
+    static <K, V> void setTabAt(Node<K, V>[] tab, int i, Node<K, V> v) {
+        TAB.setRelease(tab, i, v);
+    }
+
+    /**
+     * 打散hashCode，段的选择用高位，桶的选择用低位，两者都需要充分混合
+     */
+    static int spread(int h) {
+        h ^= h >>> 16;
+        h *= 0x85eb_ca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2_ae35;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * 一个段：自身就是保护这一段的锁
+     */
+    static final class Segment<K, V> extends ReentrantLock {
+
+        final float loadFactor;
+
+        volatile Node<K, V>[] table;
+
+        /**
+         * 只在持有锁时修改，volatile是为了让size()不加锁也能读到较新的值
+         */
+        volatile int count;
+
+        /**
+         * count超过threshold时扩容，只在持有锁时读写
+         */
+        int threshold;
+
+        Segment(float loadFactor, Node<K, V>[] table) {
+            this.loadFactor = loadFactor;
+            this.table = table;
+            this.threshold = (int) (table.length * loadFactor);
+        }
+
+        V put(K key, int hash, V value, boolean onlyIfAbsent) {
+            lock();
+            try {
+                Node<K, V>[] tab = table;
+                int index = (tab.length - 1) & hash;
+                Node<K, V> first = tabAt(tab, index);
+                for (Node<K, V> e = first; e != null; e = e.next) {
+                    K k;
+                    if (e.hash == hash && ((k = e.key) == key || key.equals(k))) {
+                        V old = e.value;
+                        if (!onlyIfAbsent) {
+                            e.value = value;
+                        }
+                        return old;
+                    }
+                }
+                insert(tab, index, new Node<>(hash, key, value, first));
+                return null;
+            } finally {
+                unlock();
+            }
+        }
+
+        V computeIfAbsent(K key, int hash, Function<? super K, ? extends V> mappingFunction) {
+            lock();
+            try {
+                Node<K, V>[] tab = table;
+                int index = (tab.length - 1) & hash;
+                Node<K, V> first = tabAt(tab, index);
+                for (Node<K, V> e = first; e != null; e = e.next) {
+                    K k;
+                    if (e.hash == hash && ((k = e.key) == key || key.equals(k))) {
+                        return e.value;
+                    }
+                }
+                V value = mappingFunction.apply(key);
+                if (value != null) {
+                    // mappingFunction可能修改了本段，重新读取
+                    tab = table;
+                    index = (tab.length - 1) & hash;
+                    insert(tab, index, new Node<>(hash, key, value, tabAt(tab, index)));
+                }
+                return value;
+            } finally {
+                unlock();
+            }
+        }
+
+        /**
+         * 持有锁时把node插入到桶头，必要时先扩容
+         */
+        private void insert(Node<K, V>[] tab, int index, Node<K, V> node) {
+            int c = count + 1;
+            if (c > threshold && tab.length < MAXIMUM_CAPACITY) {
+                rehash(node);
+            } else {
+                setTabAt(tab, index, node);
+            }
+            count = c;
+        }
+
+        /**
+         * 桶数组扩大一倍，并把node放入新数组。
+         * 每个桶末尾新下标相同的一段（lastRun）直接挂到新数组，前面的节点复制后插入，旧数组中的链表不变。
+         */
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private void rehash(Node<K, V> node) {
+            Node<K, V>[] oldTable = table;
+            int oldCapacity = oldTable.length;
+            int newCapacity = oldCapacity << 1;
+            threshold = (int) (newCapacity * loadFactor);
+            Node<K, V>[] newTable = (Node<K, V>[]) new Node[newCapacity];
+            int sizeMask = newCapacity - 1;
+            for (int i = 0; i < oldCapacity; i++) {
+                Node<K, V> e = oldTable[i];
+                if (e == null) {
+                    continue;
+                }
+                Node<K, V> next = e.next;
+                int idx = e.hash & sizeMask;
+                if (next == null) {
+                    newTable[idx] = e;
+                    continue;
+                }
+                Node<K, V> lastRun = e;
+                int lastIdx = idx;
+                for (Node<K, V> last = next; last != null; last = last.next) {
+                    int k = last.hash & sizeMask;
+                    if (k != lastIdx) {
+                        lastIdx = k;
+                        lastRun = last;
+                    }
+                }
+                newTable[lastIdx] = lastRun;
+                for (Node<K, V> p = e; p != lastRun; p = p.next) {
+                    int k = p.hash & sizeMask;
+                    newTable[k] = new Node<>(p.hash, p.key, p.value, newTable[k]);
+                }
+            }
+            int nodeIndex = node.hash & sizeMask;
+            node.next = newTable[nodeIndex];
+            newTable[nodeIndex] = node;
+            table = newTable;
+        }
+
+        /**
+         * @param expectedValue 为null时无条件删除，否则只在当前值与之相等时删除
+         * @return 被删除的值，没有删除时返回null
+         */
+        V remove(Object key, int hash, Object expectedValue) {
+            lock();
+            try {
+                Node<K, V>[] tab = table;
+                int index = (tab.length - 1) & hash;
+                Node<K, V> pred = null;
+                for (Node<K, V> e = tabAt(tab, index); e != null; pred = e, e = e.next) {
+                    K k;
+                    if (e.hash == hash && ((k = e.key) == key || key.equals(k))) {
+                        V v = e.value;
+                        if (expectedValue != null && expectedValue != v && !expectedValue.equals(v)) {
+                            return null;
+                        }
+                        if (pred == null) {
+                            setTabAt(tab, index, e.next);
+                        } else {
+                            pred.next = e.next;
+                        }
+                        count = count - 1;
+                        return v;
+                    }
+                }
+                return null;
+            } finally {
+                unlock();
+            }
+        }
+
+        void clear() {
+            lock();
+            try {
+                Node<K, V>[] tab = table;
+                for (int i = 0; i < tab.length; i++) {
+                    setTabAt(tab, i, null);
+                }
+                count = 0;
+            } finally {
+                unlock();
+            }
+        }
+
+        /**
+         * 不加锁遍历当前的桶数组
+         */
+        void forEach(BiConsumer<? super K, ? super V> action) {
+            Node<K, V>[] tab = table;
+            for (int i = 0; i < tab.length; i++) {
+                for (Node<K, V> e = tabAt(tab, i); e != null; e = e.next) {
+                    action.accept(e.key, e.value);
+                }
+            }
+        }
+    }
+
+    public ConcurrentHashMap() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    public ConcurrentHashMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * @param initialCapacity  初始容量，平均分到各段
+     * @param loadFactor       每段的负载因子
+     * @param concurrencyLevel 预计同时写的线程数，段数为不小于它的2的幂
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ConcurrentHashMap(int initialCapacity, float loadFactor, int concurrencyLevel) {
+        if (!(loadFactor > 0) || initialCapacity < 0 || concurrencyLevel <= 0) {
+            throw new IllegalArgumentException();
+        }
+        if (concurrencyLevel > MAX_SEGMENTS) {
+            concurrencyLevel = MAX_SEGMENTS;
+        }
+        int sshift = 0;
+        int ssize = 1;
+        while (ssize < concurrencyLevel) {
+            ++sshift;
+            ssize <<= 1;
+        }
+        this.segmentShift = 32 - sshift;
+        this.segmentMask = ssize - 1;
+        if (initialCapacity > MAXIMUM_CAPACITY) {
+            initialCapacity = MAXIMUM_CAPACITY;
+        }
+        int c = initialCapacity / ssize;
+        if (c * ssize < initialCapacity) {
+            ++c;
+        }
+        int cap = MIN_SEGMENT_TABLE_CAPACITY;
+        while (cap < c) {
+            cap <<= 1;
+        }
+        Segment<K, V>[] ss = (Segment<K, V>[]) new Segment[ssize];
+        for (int i = 0; i < ssize; i++) {
+            ss[i] = new Segment<>(loadFactor, (Node<K, V>[]) new Node[cap]);
+        }
+        this.segments = ss;
+    }
+
+    private Segment<K, V> segmentFor(int hash) {
+        // ssize为1时segmentShift为32，移位按32取模，结果与segmentMask相与后为0
+        return segments[(hash >>> segmentShift) & segmentMask];
+    }
+
+    /**
+     * 各段元素个数之和，不加锁，并发修改时是近似值
+     */
+    @Override
+    public int size() {
+        long sum = 0;
+        for (Segment<K, V> s : segments) {
+            sum += s.count;
+        }
+        return sum > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) sum;
+    }
+
+    /**
+     * 不加锁
+     */
+    @Override
+    public V get(Object key) {
+        int h = spread(key.hashCode());
+        Node<K, V>[] tab = segmentFor(h).table;
+        for (Node<K, V> e = tabAt(tab, (tab.length - 1) & h); e != null; e = e.next) {
+            Object k;
+            if (e.hash == h && ((k = e.key) == key || key.equals(k))) {
+                return e.value;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        V v = get(key);
+        return v != null ? v : defaultValue;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        Objects.requireNonNull(value);
+        int h = spread(key.hashCode());
+        return segmentFor(h).put(key, h, value, false);
+    }
+
+    /**
+     * 原子操作
+     */
+    @Override
+    public V putIfAbsent(K key, V value) {
+        Objects.requireNonNull(value);
+        int h = spread(key.hashCode());
+        return segmentFor(h).put(key, h, value, true);
+    }
+
+    /**
+     * 原子操作：键不存在时持有所在段的锁计算并放入，同一段上的其他写操作等待计算完成。
+     * mappingFunction应当简短，并且不能修改这个表。
+     */
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        Objects.requireNonNull(mappingFunction);
+        int h = spread(key.hashCode());
+        V v = get(key);
+        if (v != null) {
+            return v;
+        }
+        return segmentFor(h).computeIfAbsent(key, h, mappingFunction);
+    }
+
+    @Override
+    public V remove(Object key) {
+        int h = spread(key.hashCode());
+        return segmentFor(h).remove(key, h, null);
+    }
+
+    /**
+     * 原子操作：当前值与value相等时才删除
+     *
+     * @param key
+     * @param value
+     * @return 是否删除
+     */
+    public boolean remove(Object key, Object value) {
+        Objects.requireNonNull(key);
+        if (value == null) {
+            return false;
+        }
+        int h = spread(key.hashCode());
+        return segmentFor(h).remove(key, h, value) != null;
+    }
+
+    /**
+     * 逐段清空，不是原子的：清空过程中其他线程放入的元素可能保留
+     */
+    @Override
+    public void clear() {
+        for (Segment<K, V> s : segments) {
+            s.clear();
+        }
+    }
+
+    /**
+     * 在当前线程中逐段遍历
+     */
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action);
+        for (Segment<K, V> s : segments) {
+            s.forEach(action);
+        }
+    }
+
+    /**
+     * 元素个数不小于parallelismThreshold时按段并行遍历，action可能在多个线程中同时执行
+     *
+     * @param parallelismThreshold 为Long.MAX_VALUE时总是在当前线程中遍历，为1时尽量并行
+     * @param action
+     */
+    public void forEach(long parallelismThreshold, BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action);
+        if (!parallel(parallelismThreshold)) {
+            forEach(action);
+            return;
+        }
+        ForkJoinPool.commonPool().invoke(new ForEachTask<>(segments, 0, segments.length, action));
+    }
+
+    /**
+     * 对每个映射应用transformer，再用reducer两两合并非null的结果
+     *
+     * @param parallelismThreshold 同forEach(long, BiConsumer)
+     * @param transformer          返回null时跳过这个映射
+     * @param reducer              需要满足结合律，合并的顺序不确定
+     * @param <U>
+     * @return 没有非null的结果时返回null
+     */
+    public <U> U reduce(long parallelismThreshold, BiFunction<? super K, ? super V, ? extends U> transformer,
+                        BiFunction<? super U, ? super U, ? extends U> reducer) {
+        Objects.requireNonNull(transformer);
+        Objects.requireNonNull(reducer);
+        ReduceTask<K, V, U> task = new ReduceTask<>(segments, 0, segments.length, transformer, reducer);
+        if (parallel(parallelismThreshold)) {
+            ForkJoinPool.commonPool().invoke(task);
+        } else {
+            task.compute();
+        }
+        return task.result;
+    }
+
+    /**
+     * reduce的long版本，不装箱
+     *
+     * @param parallelismThreshold 同forEach(long, BiConsumer)
+     * @param transformer
+     * @param basis                reducer的单位元，例如求和时为0
+     * @param reducer              需要满足结合律，合并的顺序不确定
+     * @return
+     */
+    public long reduceToLong(long parallelismThreshold, ToLongBiFunction<? super K, ? super V> transformer,
+                             long basis, LongBinaryOperator reducer) {
+        Objects.requireNonNull(transformer);
+        Objects.requireNonNull(reducer);
+        ReduceToLongTask<K, V> task = new ReduceToLongTask<>(segments, 0, segments.length, transformer, basis, reducer);
+        if (parallel(parallelismThreshold)) {
+            ForkJoinPool.commonPool().invoke(task);
+        } else {
+            task.compute();
+        }
+        return task.result;
+    }
+
+    private boolean parallel(long parallelismThreshold) {
+        return parallelismThreshold != Long.MAX_VALUE && segments.length > 1
+                && ForkJoinPool.getCommonPoolParallelism() > 1 && size() >= parallelismThreshold;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder().append('{');
+        forEach((k, v) -> {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(k).append('=').append(v);
+        });
+        return sb.append('}').toString();
+    }
+
+    /**
+     * 处理段[lo, hi)，多于一段时对半拆分
+     */
+    static final class ForEachTask<K, V> extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        final Segment<K, V>[] segments;
+        final int lo;
+        final int hi;
+        final BiConsumer<? super K, ? super V> action;
+
+        ForEachTask(Segment<K, V>[] segments, int lo, int hi, BiConsumer<? super K, ? super V> action) {
+            this.segments = segments;
+            this.lo = lo;
+            this.hi = hi;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > 1) {
+                int mid = (lo + hi) >>> 1;
+                ForEachTask<K, V> left = new ForEachTask<>(segments, lo, mid, action);
+                left.fork();
+                new ForEachTask<>(segments, mid, hi, action).compute();
+                left.join();
+            } else if (hi > lo) {
+                segments[lo].forEach(action);
+            }
+        }
+    }
+
+    static final class ReduceTask<K, V, U> extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        final Segment<K, V>[] segments;
+        final int lo;
+        final int hi;
+        final BiFunction<? super K, ? super V, ? extends U> transformer;
+        final BiFunction<? super U, ? super U, ? extends U> reducer;
+        U result;
+
+        ReduceTask(Segment<K, V>[] segments, int lo, int hi, BiFunction<? super K, ? super V, ? extends U> transformer,
+                   BiFunction<? super U, ? super U, ? extends U> reducer) {
+            this.segments = segments;
+            this.lo = lo;
+            this.hi = hi;
+            this.transformer = transformer;
+            this.reducer = reducer;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > 1) {
+                int mid = (lo + hi) >>> 1;
+                ReduceTask<K, V, U> left = new ReduceTask<>(segments, lo, mid, transformer, reducer);
+                ReduceTask<K, V, U> right = new ReduceTask<>(segments, mid, hi, transformer, reducer);
+                left.fork();
+                right.compute();
+                left.join();
+                result = merge(left.result, right.result);
+            } else if (hi > lo) {
+                segments[lo].forEach((k, v) -> result = merge(result, transformer.apply(k, v)));
+            }
+        }
+
+        private U merge(U a, U b) {
+            return a == null ? b : b == null ? a : reducer.apply(a, b);
+        }
+    }
+
+    static final class ReduceToLongTask<K, V> extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        final Segment<K, V>[] segments;
+        final int lo;
+        final int hi;
+        final ToLongBiFunction<? super K, ? super V> transformer;
+        final LongBinaryOperator reducer;
+        long result;
+
+        ReduceToLongTask(Segment<K, V>[] segments, int lo, int hi, ToLongBiFunction<? super K, ? super V> transformer,
+                         long basis, LongBinaryOperator reducer) {
+            this.segments = segments;
+            this.lo = lo;
+            this.hi = hi;
+            this.transformer = transformer;
+            this.reducer = reducer;
+            this.result = basis;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > 1) {
+                int mid = (lo + hi) >>> 1;
+                ReduceToLongTask<K, V> left = new ReduceToLongTask<>(segments, lo, mid, transformer, result, reducer);
+                ReduceToLongTask<K, V> right = new ReduceToLongTask<>(segments, mid, hi, transformer, result, reducer);
+                left.fork();
+                right.compute();
+                left.join();
+                result = reducer.applyAsLong(left.result, right.result);
+            } else if (hi > lo) {
+                segments[lo].forEach((k, v) -> result = reducer.applyAsLong(result, transformer.applyAsLong(k, v)));
+            }
+        }
+    }
+}
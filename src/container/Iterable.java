@@ -1,4 +1,22 @@
 package container;
 
-public interface Iterable {
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 可迭代的容器。继承java.lang.Iterable，可以用于for-each；
+ * 实现类应当覆盖spliterator()，给出准确的大小和特征值，stream()和parallelStream()直接基于它。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+public interface Iterable<E> extends java.lang.Iterable<E> {
+
+    default Stream<E> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    default Stream<E> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
 }
@@ -1,4 +1,133 @@
 package container;
 
-public interface List {
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * 有序、可按下标访问的容器，允许重复元素和null。
+ * <p>
+ * 与java.util.List相比去掉了subList、listIterator等视图，只保留按下标的读写和批量操作；
+ * 批量操作（addAll、removeIf、replaceAll、sort）由实现类一次处理整段存储，不退化为逐个调用get/set/remove。
+ * 迭代器是fail-fast的：迭代期间容器的结构被迭代器以外的方式修改时，尽力抛出ConcurrentModificationException。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+public interface List<E> extends Iterable<E> {
+
+    int size();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * @param index
+     * @return
+     * @throws IndexOutOfBoundsException index不在[0, size)
+     */
+    E get(int index);
+
+    /**
+     * @param index
+     * @param e
+     * @return 原来的元素
+     * @throws IndexOutOfBoundsException index不在[0, size)
+     */
+    E set(int index, E e);
+
+    /**
+     * 追加到末尾
+     *
+     * @param e
+     * @return 总是true
+     */
+    boolean add(E e);
+
+    /**
+     * 插入到index处，原来index及之后的元素后移
+     *
+     * @param index
+     * @param e
+     * @throws IndexOutOfBoundsException index不在[0, size]
+     */
+    void add(int index, E e);
+
+    /**
+     * 按迭代顺序追加c的全部元素
+     *
+     * @param c
+     * @return c非空时返回true
+     */
+    boolean addAll(Collection<? extends E> c);
+
+    /**
+     * 按迭代顺序追加另一个List的全部元素
+     *
+     * @param list
+     * @return list非空时返回true
+     */
+    boolean addAll(List<? extends E> list);
+
+    /**
+     * 删除index处的元素，之后的元素前移
+     *
+     * @param index
+     * @return 被删除的元素
+     * @throws IndexOutOfBoundsException index不在[0, size)
+     */
+    E remove(int index);
+
+    /**
+     * 删除第一个与o相等的元素
+     *
+     * @param o
+     * @return 没有相等的元素时返回false
+     */
+    boolean remove(Object o);
+
+    /**
+     * 删除所有满足filter的元素，剩余元素保持原来的顺序。
+     * filter抛出异常时容器不变。
+     *
+     * @param filter
+     * @return 有元素被删除时返回true
+     */
+    boolean removeIf(Predicate<? super E> filter);
+
+    /**
+     * 把每个元素替换为operator的结果
+     *
+     * @param operator
+     */
+    void replaceAll(UnaryOperator<E> operator);
+
+    /**
+     * 稳定排序
+     *
+     * @param c 为null时按自然顺序
+     */
+    void sort(Comparator<? super E> c);
+
+    /**
+     * @param o
+     * @return 第一个与o相等的元素的下标，不存在时返回-1
+     */
+    int indexOf(Object o);
+
+    /**
+     * @param o
+     * @return 最后一个与o相等的元素的下标，不存在时返回-1
+     */
+    int lastIndexOf(Object o);
+
+    default boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    void clear();
+
+    Object[] toArray();
 }
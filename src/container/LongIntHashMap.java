@@ -0,0 +1,521 @@
+package container;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * 键为long、值为int的哈希表，开放寻址、线性探测，键和值分别放在long[]和int[]两个数组中，没有Entry对象，也不装箱。非线程安全。
+ * <p>
+ * 0作为空槽的标记，键为0的映射单独存放。删除时把同一探测链上后面的元素向前移动（backward shift），不留墓碑，
+ * 查找的探测长度只取决于当前的元素个数。
+ * <p>
+ * 扩容是渐进的：元素个数超过阈值时只分配两倍大小的新数组，旧数组保留，
+ * 之后每次put、remove顺带把旧数组中的MIGRATE_STEP个槽位搬到新数组，不会在某一次put中重新散列全部元素。
+ * 搬迁期间查找先查新数组，找不到再查旧数组中还没有搬走的部分。get不搬迁，只有读没有写时可以调用completeResize()立即完成。
+ * 开始扩容时仍然要分配并清零新数组，预先知道元素个数时应当通过expectedSize一次分配到位。
+ * <p>
+ * get(long)、put(long, int)、remove(long)等方法不存在时返回构造时指定的noEntryValue；继承自Map的方法以Long、Integer传递，只用于兼容。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+public class LongIntHashMap implements Map<Long, Integer> {
+
+    /**
+     * 遍历时接收键和值，不装箱
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long key, int value);
+    }
+
+    public static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    private static final int DEFAULT_EXPECTED_SIZE = 16;
+
+    /**
+     * 每次写操作最多搬迁的旧槽位数
+     */
+    private static final int MIGRATE_STEP = 16;
+
+    private final float loadFactor;
+
+    private final int noEntryValue;
+
+    private long[] keys;
+
+    private int[] values;
+
+    private int mask;
+
+    /**
+     * keys中的元素个数，超过maxFill时扩容
+     */
+    private int used;
+
+    private int maxFill;
+
+    private boolean hasZeroKey;
+
+    private int zeroValue;
+
+    /**
+     * 总的映射个数：键0、keys中的元素以及旧数组中还没有搬走的元素
+     */
+    private int size;
+
+    /**
+     * 搬迁中的旧数组，没有在扩容时为null
+     */
+    private long[] oldKeys;
+
+    private int[] oldValues;
+
+    private int oldMask;
+
+    /**
+     * 旧数组中下标小于migrated的槽位已经搬走
+     */
+    private int migrated;
+
+    /**
+     * 旧数组中在搬迁前就被删除或者覆盖的槽位，对应的位为1。槽位本身不清空，以免打断其他键的探测链
+     */
+    private long[] oldRemoved;
+
+    private int modCount;
+
+    public LongIntHashMap() {
+        this(DEFAULT_EXPECTED_SIZE, DEFAULT_LOAD_FACTOR, 0);
+    }
+
+    /**
+     * @param expectedSize 预计的元素个数，达到这个数量前不扩容
+     * @param loadFactor   (0, 1)之间
+     * @param noEntryValue 键不存在时get、put、remove返回的值
+     */
+    public LongIntHashMap(int expectedSize, float loadFactor, int noEntryValue) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Illegal expected size: " + expectedSize);
+        }
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        this.noEntryValue = noEntryValue;
+        int capacity = tableSizeFor((long) Math.ceil(expectedSize / loadFactor) + 1);
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+        this.mask = capacity - 1;
+        this.maxFill = maxFill(capacity);
+    }
+
+    private static int tableSizeFor(long n) {
+        if (n > 1 << 30) {
+            throw new IllegalArgumentException("Too large: " + n);
+        }
+        return Math.max(2, Integer.highestOneBit((int) n - 1) << 1);
+    }
+
+    /**
+     * 插入后元素个数超过maxFill时开始扩容，保证此时数组中仍然至少有一个空槽，
+     * 搬迁期间在旧数组中查找不存在的键时探测能够终止
+     */
+    private int maxFill(int capacity) {
+        return Math.min(capacity - 2, (int) Math.ceil(capacity * loadFactor));
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E37_79B9_7F4A_7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    public int noEntryValue() {
+        return noEntryValue;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public int get(long key) {
+        return getOrDefault(key, noEntryValue);
+    }
+
+    public int getOrDefault(long key, int defaultValue) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        int i = find(key);
+        if (i >= 0) {
+            return values[i];
+        }
+        if (oldKeys != null) {
+            int j = findOld(key);
+            if (j >= 0) {
+                return oldValues[j];
+            }
+        }
+        return defaultValue;
+    }
+
+    public boolean containsKey(long key) {
+        if (key == 0) {
+            return hasZeroKey;
+        }
+        return find(key) >= 0 || oldKeys != null && findOld(key) >= 0;
+    }
+
+    /**
+     * @param key
+     * @param value
+     * @return 原来的值，不存在时返回noEntryValue
+     */
+    public int put(long key, int value) {
+        modCount++;
+        if (key == 0) {
+            int old = hasZeroKey ? zeroValue : noEntryValue;
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return old;
+        }
+        if (oldKeys != null) {
+            migrate();
+        }
+        int i = find(key);
+        if (i >= 0) {
+            int old = values[i];
+            values[i] = value;
+            return old;
+        }
+        int old = noEntryValue;
+        if (oldKeys != null) {
+            int j = findOld(key);
+            if (j >= 0) {
+                // 提前搬到新数组，旧槽位标记为已删除
+                old = oldValues[j];
+                markRemoved(j);
+                size--;
+            }
+        }
+        i = ~i;
+        keys[i] = key;
+        values[i] = value;
+        size++;
+        if (++used > maxFill) {
+            startResize();
+        }
+        return old;
+    }
+
+    /**
+     * @param key
+     * @return 被删除的值，不存在时返回noEntryValue
+     */
+    public int remove(long key) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                return noEntryValue;
+            }
+            modCount++;
+            hasZeroKey = false;
+            size--;
+            return zeroValue;
+        }
+        if (oldKeys != null) {
+            migrate();
+        }
+        int i = find(key);
+        if (i >= 0) {
+            modCount++;
+            int old = values[i];
+            shiftKeys(i);
+            used--;
+            size--;
+            return old;
+        }
+        if (oldKeys != null) {
+            int j = findOld(key);
+            if (j >= 0) {
+                modCount++;
+                markRemoved(j);
+                size--;
+                return oldValues[j];
+            }
+        }
+        return noEntryValue;
+    }
+
+    /**
+     * 在keys中查找
+     *
+     * @return 找到时返回下标，否则返回~(可以插入的空槽下标)
+     */
+    private int find(long key) {
+        long[] ks = keys;
+        int m = mask;
+        int i = hash(key) & m;
+        long k;
+        while ((k = ks[i]) != 0) {
+            if (k == key) {
+                return i;
+            }
+            i = (i + 1) & m;
+        }
+        return ~i;
+    }
+
+    /**
+     * 在旧数组还没有搬走的部分中查找
+     *
+     * @return 找到时返回下标，否则返回-1
+     */
+    private int findOld(long key) {
+        long[] ks = oldKeys;
+        int m = oldMask;
+        int i = hash(key) & m;
+        long k;
+        while ((k = ks[i]) != 0) {
+            if (k == key) {
+                return i < migrated || isRemoved(i) ? -1 : i;
+            }
+            i = (i + 1) & m;
+        }
+        return -1;
+    }
+
+    private boolean isRemoved(int i) {
+        return (oldRemoved[i >>> 6] & (1L << i)) != 0;
+    }
+
+    private void markRemoved(int i) {
+        oldRemoved[i >>> 6] |= 1L << i;
+    }
+
+    /**
+     * 删除pos处的元素：把探测链上后面的元素前移，直到遇到空槽
+     */
+    private void shiftKeys(int pos) {
+        long[] ks = keys;
+        int[] vs = values;
+        int m = mask;
+        for (; ; ) {
+            int last = pos;
+            pos = (pos + 1) & m;
+            long k;
+            for (; ; ) {
+                if ((k = ks[pos]) == 0) {
+                    ks[last] = 0;
+                    return;
+                }
+                int slot = hash(k) & m;
+                // slot不在(last, pos]之间时，k可以移到last
+                if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) {
+                    break;
+                }
+                pos = (pos + 1) & m;
+            }
+            ks[last] = k;
+            vs[last] = vs[pos];
+        }
+    }
+
+    /**
+     * 保留当前数组作为旧数组，换上两倍大小的新数组。
+     * 新数组至少能容纳旧数组的全部元素加上搬迁期间新增的元素，搬迁结束前不会再次触发扩容；
+     * 万一触发（例如loadFactor很小时），先同步完成上一次搬迁。
+     */
+    private void startResize() {
+        if (oldKeys != null) {
+            completeResize();
+        }
+        int capacity = keys.length << 1;
+        if (capacity < 0 || capacity > 1 << 30) {
+            throw new IllegalStateException("Map too large");
+        }
+        oldKeys = keys;
+        oldValues = values;
+        oldMask = mask;
+        migrated = 0;
+        oldRemoved = new long[(oldKeys.length + 63) >>> 6];
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        maxFill = maxFill(capacity);
+        used = 0;
+    }
+
+    /**
+     * 把旧数组中接下来的MIGRATE_STEP个槽位搬到新数组
+     */
+    private void migrate() {
+        migrate(MIGRATE_STEP);
+    }
+
+    private void migrate(int slots) {
+        long[] oks = oldKeys;
+        int[] ovs = oldValues;
+        int from = migrated;
+        int to = (int) Math.min(oks.length, (long) from + slots);
+        long[] ks = keys;
+        int[] vs = values;
+        int m = mask;
+        for (int i = from; i < to; i++) {
+            long k = oks[i];
+            if (k != 0 && !isRemoved(i)) {
+                int j = hash(k) & m;
+                while (ks[j] != 0) {
+                    j = (j + 1) & m;
+                }
+                ks[j] = k;
+                vs[j] = ovs[i];
+                used++;
+            }
+        }
+        migrated = to;
+        if (to == oks.length) {
+            oldKeys = null;
+            oldValues = null;
+            oldRemoved = null;
+        }
+    }
+
+    /**
+     * 立即完成正在进行的扩容，之后查找不再需要检查旧数组。没有在扩容时什么也不做
+     */
+    public void completeResize() {
+        if (oldKeys != null) {
+            migrate(oldKeys.length);
+        }
+    }
+
+    /**
+     * 遍历所有映射，不装箱
+     *
+     * @param action
+     */
+    public void forEachEntry(EntryConsumer action) {
+        Objects.requireNonNull(action);
+        int expectedModCount = modCount;
+        if (hasZeroKey) {
+            action.accept(0L, zeroValue);
+        }
+        long[] ks = keys;
+        int[] vs = values;
+        for (int i = 0; i < ks.length && modCount == expectedModCount; i++) {
+            if (ks[i] != 0) {
+                action.accept(ks[i], vs[i]);
+            }
+        }
+        long[] oks = oldKeys;
+        if (oks != null) {
+            int[] ovs = oldValues;
+            for (int i = migrated; i < oks.length && modCount == expectedModCount; i++) {
+                if (oks[i] != 0 && !isRemoved(i)) {
+                    action.accept(oks[i], ovs[i]);
+                }
+            }
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super Long, ? super Integer> action) {
+        Objects.requireNonNull(action);
+        forEachEntry(action::accept);
+    }
+
+    @Override
+    public Integer get(Object key) {
+        if (!(key instanceof Long)) {
+            return null;
+        }
+        long k = (Long) key;
+        return containsKey(k) ? get(k) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Long && containsKey(((Long) key).longValue());
+    }
+
+    @Override
+    public Integer put(Long key, Integer value) {
+        long k = key;
+        boolean present = containsKey(k);
+        int old = put(k, value.intValue());
+        return present ? old : null;
+    }
+
+    @Override
+    public Integer remove(Object key) {
+        if (!(key instanceof Long)) {
+            return null;
+        }
+        long k = (Long) key;
+        return containsKey(k) ? remove(k) : null;
+    }
+
+    @Override
+    public void clear() {
+        modCount++;
+        Arrays.fill(keys, 0L);
+        used = 0;
+        size = 0;
+        hasZeroKey = false;
+        oldKeys = null;
+        oldValues = null;
+        oldRemoved = null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof LongIntHashMap)) {
+            return false;
+        }
+        LongIntHashMap other = (LongIntHashMap) o;
+        if (other.size != size) {
+            return false;
+        }
+        boolean[] equal = {true};
+        forEachEntry((k, v) -> {
+            if (equal[0] && (!other.containsKey(k) || other.get(k) != v)) {
+                equal[0] = false;
+            }
+        });
+        return equal[0];
+    }
+
+    /**
+     * 与java.util.Map的hashCode定义相同：各个映射的(键的hashCode ^ 值的hashCode)之和
+     */
+    @Override
+    public int hashCode() {
+        int[] h = {0};
+        forEachEntry((k, v) -> h[0] += Long.hashCode(k) ^ v);
+        return h[0];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder().append('{');
+        forEachEntry((k, v) -> {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(k).append('=').append(v);
+        });
+        return sb.append('}').toString();
+    }
+}
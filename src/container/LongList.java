@@ -0,0 +1,649 @@
+package container;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 元素为long的List，底层是long[]，元素不装箱，每个元素只占8字节。
+ * <p>
+ * getLong、add(long)、set(int, long)、forEach(LongConsumer)、longStream()、binarySearch、sort都直接读写long[]，不产生包装对象。
+ * 继承自List的get、add(Long)等方法为了兼容仍然以Long传递，只适合不在热点上的调用；不能添加null。
+ * 迭代器和spliterator分别是PrimitiveIterator.OfLong和Spliterator.OfLong，用for-each遍历会装箱，应当使用forEach(LongConsumer)或者longStream()。
+ * 隐式类型的lambda同时匹配forEach(Consumer)和forEach(LongConsumer)，需要写成forEach((long v) -> ...)。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+public class LongList implements List<Long> {
+
+    private static final int DEFAULT_CAPACITY = 10;
+
+    private static final long[] EMPTY = {};
+
+    private static final int SOFT_MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    private long[] elementData;
+
+    private int size;
+
+    private int modCount;
+
+    public LongList() {
+        this.elementData = EMPTY;
+    }
+
+    public LongList(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal capacity: " + initialCapacity);
+        }
+        this.elementData = initialCapacity == 0 ? EMPTY : new long[initialCapacity];
+    }
+
+    /**
+     * @param values 复制一份，之后对values的修改不影响列表
+     * @return
+     */
+    public static LongList of(long... values) {
+        LongList list = new LongList(values.length);
+        System.arraycopy(values, 0, list.elementData, 0, values.length);
+        list.size = values.length;
+        return list;
+    }
+
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > elementData.length) {
+            modCount++;
+            grow(minCapacity);
+        }
+    }
+
+    public void trimToSize() {
+        if (size < elementData.length) {
+            modCount++;
+            elementData = size == 0 ? EMPTY : Arrays.copyOf(elementData, size);
+        }
+    }
+
+    private long[] grow(int minCapacity) {
+        int oldCapacity = elementData.length;
+        int newCapacity = oldCapacity + (oldCapacity >> 1);
+        if (elementData == EMPTY) {
+            newCapacity = DEFAULT_CAPACITY;
+        }
+        if (newCapacity - minCapacity < 0) {
+            newCapacity = minCapacity;
+        }
+        if (newCapacity - SOFT_MAX_ARRAY_LENGTH > 0) {
+            if (minCapacity < 0) {
+                throw new OutOfMemoryError("Required array length too large");
+            }
+            newCapacity = Math.max(minCapacity, SOFT_MAX_ARRAY_LENGTH);
+        }
+        long[] newData = new long[newCapacity];
+        System.arraycopy(elementData, 0, newData, 0, size);
+        return elementData = newData;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public long getLong(int index) {
+        Objects.checkIndex(index, size);
+        return elementData[index];
+    }
+
+    /**
+     * @param index
+     * @param v
+     * @return 原来的元素
+     */
+    public long set(int index, long v) {
+        Objects.checkIndex(index, size);
+        long old = elementData[index];
+        elementData[index] = v;
+        return old;
+    }
+
+    public void add(long v) {
+        modCount++;
+        long[] es = elementData;
+        int s = size;
+        if (s == es.length) {
+            es = grow(s + 1);
+        }
+        es[s] = v;
+        size = s + 1;
+    }
+
+    public void add(int index, long v) {
+        checkPositionIndex(index);
+        modCount++;
+        long[] es = elementData;
+        int s = size;
+        if (s == es.length) {
+            es = grow(s + 1);
+        }
+        System.arraycopy(es, index, es, index + 1, s - index);
+        es[index] = v;
+        size = s + 1;
+    }
+
+    /**
+     * 追加values中[from, to)的元素
+     *
+     * @param values
+     * @param from
+     * @param to
+     */
+    public void addAll(long[] values, int from, int to) {
+        Objects.checkFromToIndex(from, to, values.length);
+        appendArray(values, from, to - from);
+    }
+
+    public void addAll(long[] values) {
+        appendArray(values, 0, values.length);
+    }
+
+    private boolean appendArray(long[] a, int from, int n) {
+        modCount++;
+        if (n == 0) {
+            return false;
+        }
+        long[] es = elementData;
+        int s = size;
+        if (n > es.length - s) {
+            es = grow(s + n);
+        }
+        System.arraycopy(a, from, es, s, n);
+        size = s + n;
+        return true;
+    }
+
+    /**
+     * @param index
+     * @return 被删除的元素
+     */
+    public long removeLong(int index) {
+        Objects.checkIndex(index, size);
+        long[] es = elementData;
+        long old = es[index];
+        modCount++;
+        int newSize = size - 1;
+        if (newSize > index) {
+            System.arraycopy(es, index + 1, es, index, newSize - index);
+        }
+        size = newSize;
+        return old;
+    }
+
+    /**
+     * 删除[from, to)之间的元素
+     *
+     * @param from
+     * @param to
+     */
+    public void removeRange(int from, int to) {
+        Objects.checkFromToIndex(from, to, size);
+        if (from == to) {
+            return;
+        }
+        modCount++;
+        System.arraycopy(elementData, to, elementData, from, size - to);
+        size -= to - from;
+    }
+
+    public int indexOf(long v) {
+        long[] es = elementData;
+        for (int i = 0, s = size; i < s; i++) {
+            if (es[i] == v) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int lastIndexOf(long v) {
+        long[] es = elementData;
+        for (int i = size - 1; i >= 0; i--) {
+            if (es[i] == v) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean contains(long v) {
+        return indexOf(v) >= 0;
+    }
+
+    @SuppressWarnings("overloads")
+    public void forEach(LongConsumer action) {
+        Objects.requireNonNull(action);
+        int expectedModCount = modCount;
+        long[] es = elementData;
+        int s = size;
+        for (int i = 0; modCount == expectedModCount && i < s; i++) {
+            action.accept(es[i]);
+        }
+        checkForComodification(expectedModCount);
+    }
+
+    public LongStream longStream() {
+        return StreamSupport.longStream(spliterator(), false);
+    }
+
+    /**
+     * 升序排序
+     */
+    public void sort() {
+        Arrays.sort(elementData, 0, size);
+        modCount++;
+    }
+
+    /**
+     * 在已经升序排列的列表中二分查找
+     *
+     * @param key
+     * @return 找到时返回下标，否则返回(-(插入位置) - 1)；有多个相等的元素时返回其中任意一个
+     */
+    public int binarySearch(long key) {
+        return Arrays.binarySearch(elementData, 0, size, key);
+    }
+
+    public long[] toLongArray() {
+        return Arrays.copyOf(elementData, size);
+    }
+
+    @Override
+    public Long get(int index) {
+        return getLong(index);
+    }
+
+    @Override
+    public Long set(int index, Long e) {
+        return set(index, e.longValue());
+    }
+
+    @Override
+    public boolean add(Long e) {
+        add(e.longValue());
+        return true;
+    }
+
+    @Override
+    public void add(int index, Long e) {
+        add(index, e.longValue());
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Long> c) {
+        Object[] a = c.toArray();
+        long[] values = new long[a.length];
+        for (int i = 0; i < a.length; i++) {
+            values[i] = (Long) a[i];
+        }
+        return appendArray(values, 0, values.length);
+    }
+
+    @Override
+    public boolean addAll(List<? extends Long> list) {
+        if (list instanceof LongList) {
+            LongList other = (LongList) list;
+            return appendArray(other.elementData, 0, other.size);
+        }
+        Object[] a = list.toArray();
+        long[] values = new long[a.length];
+        for (int i = 0; i < a.length; i++) {
+            values[i] = (Long) a[i];
+        }
+        return appendArray(values, 0, values.length);
+    }
+
+    @Override
+    public Long remove(int index) {
+        return removeLong(index);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof Long)) {
+            return false;
+        }
+        int i = indexOf(((Long) o).longValue());
+        if (i < 0) {
+            return false;
+        }
+        removeLong(i);
+        return true;
+    }
+
+    /**
+     * 先用位图标记所有要删除的元素，再一次压缩，filter抛出异常时列表保持不变
+     */
+    @Override
+    public boolean removeIf(Predicate<? super Long> filter) {
+        Objects.requireNonNull(filter);
+        int expectedModCount = modCount;
+        long[] es = elementData;
+        int end = size;
+        int i = 0;
+        for (; i < end && !filter.test(es[i]); i++) {
+            // 找到第一个要删除的元素
+        }
+        if (i == end) {
+            checkForComodification(expectedModCount);
+            return false;
+        }
+        int beg = i;
+        long[] deathRow = new long[((end - beg) >> 6) + 1];
+        deathRow[0] = 1L;
+        for (i = beg + 1; i < end; i++) {
+            if (filter.test(es[i])) {
+                deathRow[(i - beg) >> 6] |= 1L << (i - beg);
+            }
+        }
+        checkForComodification(expectedModCount);
+        modCount++;
+        int w = beg;
+        for (i = beg; i < end; i++) {
+            if ((deathRow[(i - beg) >> 6] & (1L << (i - beg))) == 0) {
+                es[w++] = es[i];
+            }
+        }
+        size = w;
+        return true;
+    }
+
+    @Override
+    public void replaceAll(UnaryOperator<Long> operator) {
+        Objects.requireNonNull(operator);
+        int expectedModCount = modCount;
+        long[] es = elementData;
+        int s = size;
+        for (int i = 0; modCount == expectedModCount && i < s; i++) {
+            es[i] = operator.apply(es[i]);
+        }
+        checkForComodification(expectedModCount);
+        modCount++;
+    }
+
+    /**
+     * c为null时等同于sort()；否则需要装箱排序，再写回
+     */
+    @Override
+    public void sort(Comparator<? super Long> c) {
+        if (c == null) {
+            sort();
+            return;
+        }
+        int expectedModCount = modCount;
+        long[] es = elementData;
+        int s = size;
+        Long[] boxed = new Long[s];
+        for (int i = 0; i < s; i++) {
+            boxed[i] = es[i];
+        }
+        Arrays.sort(boxed, c);
+        checkForComodification(expectedModCount);
+        for (int i = 0; i < s; i++) {
+            es[i] = boxed[i];
+        }
+        modCount++;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        return o instanceof Long ? indexOf(((Long) o).longValue()) : -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return o instanceof Long ? lastIndexOf(((Long) o).longValue()) : -1;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    @Override
+    public void clear() {
+        modCount++;
+        size = 0;
+    }
+
+    @Override
+    public Object[] toArray() {
+        long[] es = elementData;
+        Object[] a = new Object[size];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = es[i];
+        }
+        return a;
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong iterator() {
+        return new Itr();
+    }
+
+    @Override
+    public Spliterator.OfLong spliterator() {
+        return new LongListSpliterator(0, -1, 0);
+    }
+
+    private void checkPositionIndex(int index) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    private void checkForComodification(int expectedModCount) {
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (o instanceof LongList) {
+            LongList other = (LongList) o;
+            return Arrays.equals(elementData, 0, size, other.elementData, 0, other.size);
+        }
+        if (!(o instanceof List)) {
+            return false;
+        }
+        List<?> other = (List<?>) o;
+        int s = size;
+        if (other.size() != s) {
+            return false;
+        }
+        long[] es = elementData;
+        Iterator<?> it = other.iterator();
+        for (int i = 0; i < s; i++) {
+            Object e = it.next();
+            if (!(e instanceof Long) || es[i] != ((Long) e).longValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 与元素相同的List&lt;Long&gt;的hashCode一致
+     */
+    @Override
+    public int hashCode() {
+        long[] es = elementData;
+        int hash = 1;
+        for (int i = 0, s = size; i < s; i++) {
+            hash = 31 * hash + Long.hashCode(es[i]);
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        long[] es = elementData;
+        int s = size;
+        if (s == 0) {
+            return "[]";
+        }
+        StringBuilder sb = new StringBuilder().append('[');
+        for (int i = 0; ; ) {
+            sb.append(es[i]);
+            if (++i == s) {
+                return sb.append(']').toString();
+            }
+            sb.append(", ");
+        }
+    }
+
+    private class Itr implements PrimitiveIterator.OfLong {
+
+        int cursor;
+
+        int lastRet = -1;
+
+        int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return cursor != size;
+        }
+
+        @Override
+        public long nextLong() {
+            checkForComodification(expectedModCount);
+            int i = cursor;
+            if (i >= size) {
+                throw new NoSuchElementException();
+            }
+            cursor = i + 1;
+            return elementData[lastRet = i];
+        }
+
+        @Override
+        public void remove() {
+            if (lastRet < 0) {
+                throw new IllegalStateException();
+            }
+            checkForComodification(expectedModCount);
+            removeLong(lastRet);
+            cursor = lastRet;
+            lastRet = -1;
+            expectedModCount = modCount;
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            Objects.requireNonNull(action);
+            int s = size;
+            int i = cursor;
+            if (i < s) {
+                long[] es = elementData;
+                for (; i < s && modCount == expectedModCount; i++) {
+                    action.accept(es[i]);
+                }
+                cursor = i;
+                lastRet = i - 1;
+                checkForComodification(expectedModCount);
+            }
+        }
+    }
+
+    /**
+     * 与ArrayList的spliterator相同：第一次使用时才绑定size，每次对半拆分
+     */
+    private final class LongListSpliterator implements Spliterator.OfLong {
+
+        private int index;
+
+        private int fence;
+
+        private int expectedModCount;
+
+        LongListSpliterator(int origin, int fence, int expectedModCount) {
+            this.index = origin;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        private int getFence() {
+            int hi;
+            if ((hi = fence) < 0) {
+                expectedModCount = modCount;
+                hi = fence = size;
+            }
+            return hi;
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            int hi = getFence();
+            int lo = index;
+            int mid = (lo + hi) >>> 1;
+            return lo >= mid ? null : new LongListSpliterator(lo, index = mid, expectedModCount);
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            Objects.requireNonNull(action);
+            int hi = getFence();
+            int i = index;
+            if (i < hi) {
+                index = i + 1;
+                action.accept(elementData[i]);
+                checkForComodification(expectedModCount);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            Objects.requireNonNull(action);
+            long[] es = elementData;
+            int hi = getFence();
+            int i = index;
+            if (i < hi && hi <= es.length) {
+                index = hi;
+                for (; i < hi; i++) {
+                    action.accept(es[i]);
+                }
+                checkForComodification(expectedModCount);
+                return;
+            }
+            if (i < hi) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            return getFence() - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package container;
+
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * 键值映射，键不重复。
+ * <p>
+ * 与java.util.Map相比不提供entrySet、keySet、values视图，遍历只通过forEach，
+ * 实现类可以不为每个映射创建Entry对象（例如键和值分别放在两个数组中）。
+ * 是否允许null键、null值由实现类决定。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+public interface Map<K, V> {
+
+    int size();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * @param key
+     * @return 不存在时返回null
+     */
+    V get(Object key);
+
+    default V getOrDefault(Object key, V defaultValue) {
+        V v = get(key);
+        return v != null || containsKey(key) ? v : defaultValue;
+    }
+
+    boolean containsKey(Object key);
+
+    /**
+     * @param key
+     * @param value
+     * @return 原来的值，不存在时返回null
+     */
+    V put(K key, V value);
+
+    /**
+     * 不存在时才放入。默认实现不是原子的，并发的实现类应当覆盖
+     *
+     * @param key
+     * @param value
+     * @return 已经存在的值，不存在时放入并返回null
+     */
+    default V putIfAbsent(K key, V value) {
+        V v = get(key);
+        if (v == null) {
+            v = put(key, value);
+        }
+        return v;
+    }
+
+    /**
+     * 不存在时用mappingFunction计算并放入，mappingFunction返回null时不放入。
+     * 默认实现不是原子的，并发的实现类应当覆盖
+     *
+     * @param key
+     * @param mappingFunction
+     * @return 已经存在或者新放入的值
+     */
+    default V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        Objects.requireNonNull(mappingFunction);
+        V v = get(key);
+        if (v == null) {
+            V newValue = mappingFunction.apply(key);
+            if (newValue != null) {
+                put(key, newValue);
+                return newValue;
+            }
+        }
+        return v;
+    }
+
+    /**
+     * @param key
+     * @return 被删除的值，不存在时返回null
+     */
+    V remove(Object key);
+
+    void clear();
+
+    /**
+     * 遍历所有映射，顺序由实现类决定
+     *
+     * @param action
+     */
+    void forEach(BiConsumer<? super K, ? super V> action);
+}
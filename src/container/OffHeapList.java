@@ -0,0 +1,830 @@
+package container;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * 定长记录的List，数据放在堆外，GC只看到少量ByteBuffer对象，不扫描、不移动其中的数据。非线程安全。
+ * <p>
+ * 每条记录占codec.recordSize()字节，由Codec在ByteBuffer的绝对位置读写，字节序固定为小端。
+ * 单个ByteBuffer不能超过2GB，数据按块存放：每块的记录数是2的幂，下标到块和块内偏移只需移位和掩码，记录不跨块。
+ * 只有最后一块会扩容（容量翻倍直到满块），之后再追加新块，已有的块不会被复制。
+ * <p>
+ * 两种存储方式：
+ * <ul>
+ * <li>allocate：直接内存；</li>
+ * <li>map：内存映射文件，文件头记录魔数、记录大小和记录数，记录紧跟在文件头之后连续存放。
+ * 重新打开时只映射、不读取数据，由操作系统按需换入；force()把修改写回磁盘，close()时也会写回并把文件截断到实际长度。</li>
+ * </ul>
+ * 用完必须close()：直接内存立即释放，映射立即解除，之后的任何访问都抛出IllegalStateException。
+ * 运行时不允许主动释放时退化为等GC回收ByteBuffer对象。
+ * <p>
+ * get(int)每次都解码出一个新对象；热点上按字段读写应当使用getLong(int, int)等方法，不产生任何对象。
+ * 在中间插入、删除需要逐条移动之后的记录；sort和toArray需要把全部记录解码到堆上，只适合数据量不大时使用。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+public class OffHeapList<E> implements List<E>, AutoCloseable {
+
+    /**
+     * 记录的编解码。read、write只能访问[offset, offset + recordSize())，使用ByteBuffer的绝对位置读写，不能改变position和limit。
+     */
+    public interface Codec<E> {
+
+        /**
+         * @return 每条记录的字节数，在列表的整个生命周期内不变
+         */
+        int recordSize();
+
+        void write(E e, ByteBuffer buf, int offset);
+
+        E read(ByteBuffer buf, int offset);
+    }
+
+    /**
+     * 单块的最大字节数
+     */
+    private static final int MAX_CHUNK_BYTES = 1 << 30;
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private static final long MAGIC = 0x4345_5246_454d_414cL;
+
+    private static final int VERSION = 1;
+
+    /**
+     * 文件头：魔数(8) 版本(4) 记录大小(4) 记录数(8)，补齐到64字节
+     */
+    private static final int HEADER_BYTES = 64;
+
+    private static final int HEADER_SIZE_OFFSET = 16;
+
+    /**
+     * sun.misc.Unsafe#invokeCleaner，用于立即释放直接内存、解除映射；不可用时为null
+     */
+    private static final MethodHandle INVOKE_CLEANER;
+
+    static {
+        MethodHandle cleaner = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field f = unsafeClass.getDeclaredField("theUnsafe");
+            f.setAccessible(true);
+            cleaner = MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(f.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // 交给GC回收
+        }
+        INVOKE_CLEANER = cleaner;
+    }
+
+    private final Codec<E> codec;
+
+    private final int recordSize;
+
+    /**
+     * 每块的记录数为2^chunkShift
+     */
+    private final int chunkShift;
+
+    private final int chunkMask;
+
+    /**
+     * 映射文件时非null
+     */
+    private final FileChannel channel;
+
+    private final MappedByteBuffer header;
+
+    /**
+     * 关闭后为null
+     */
+    private ByteBuffer[] chunks;
+
+    /**
+     * 已分配的块数，除最后一块外都是满块
+     */
+    private int chunkCount;
+
+    /**
+     * 最后一块能容纳的记录数
+     */
+    private int lastChunkCapacity;
+
+    private int size;
+
+    private int modCount;
+
+    private OffHeapList(Codec<E> codec, FileChannel channel, MappedByteBuffer header) {
+        int recordSize = codec.recordSize();
+        if (recordSize <= 0 || recordSize > MAX_CHUNK_BYTES) {
+            throw new IllegalArgumentException("Illegal record size: " + recordSize);
+        }
+        this.codec = codec;
+        this.recordSize = recordSize;
+        this.chunkShift = 31 - Integer.numberOfLeadingZeros(MAX_CHUNK_BYTES / recordSize);
+        this.chunkMask = (1 << chunkShift) - 1;
+        this.channel = channel;
+        this.header = header;
+        this.chunks = new ByteBuffer[4];
+    }
+
+    /**
+     * 使用直接内存
+     *
+     * @param codec
+     * @param initialCapacity 初始容量（记录数）
+     * @param <E>
+     * @return
+     */
+    public static <E> OffHeapList<E> allocate(Codec<E> codec, int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal capacity: " + initialCapacity);
+        }
+        OffHeapList<E> list = new OffHeapList<>(Objects.requireNonNull(codec), null, null);
+        list.ensureCapacity(initialCapacity);
+        return list;
+    }
+
+    public static <E> OffHeapList<E> allocate(Codec<E> codec) {
+        return allocate(codec, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * 映射文件，文件不存在或为空时创建，否则打开已有的列表
+     *
+     * @param file
+     * @param codec
+     * @param <E>
+     * @return
+     * @throws IOException 文件不是OffHeapList写出的，或者记录大小与codec不一致
+     */
+    public static <E> OffHeapList<E> map(Path file, Codec<E> codec) throws IOException {
+        Objects.requireNonNull(codec);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            boolean created = channel.size() == 0;
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            OffHeapList<E> list = new OffHeapList<>(codec, channel, header);
+            if (created) {
+                header.putLong(0, MAGIC);
+                header.putInt(8, VERSION);
+                header.putInt(12, list.recordSize);
+                header.putLong(HEADER_SIZE_OFFSET, 0L);
+                list.ensureCapacity(DEFAULT_CAPACITY);
+                return list;
+            }
+            if (header.getLong(0) != MAGIC || header.getInt(8) != VERSION) {
+                throw new IOException("Not an OffHeapList file: " + file);
+            }
+            if (header.getInt(12) != list.recordSize) {
+                throw new IOException("Record size mismatch: file " + header.getInt(12) + ", codec " + list.recordSize);
+            }
+            long n = header.getLong(HEADER_SIZE_OFFSET);
+            if (n < 0 || n > Integer.MAX_VALUE || HEADER_BYTES + n * list.recordSize > channel.size()) {
+                throw new IOException("Corrupted OffHeapList file: " + file);
+            }
+            list.ensureCapacity((int) Math.max(n, DEFAULT_CAPACITY));
+            list.size = (int) n;
+            return list;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 保证至少能容纳minCapacity条记录
+     *
+     * @param minCapacity
+     */
+    public void ensureCapacity(int minCapacity) {
+        ByteBuffer[] cs = checkOpen();
+        if (minCapacity <= capacity()) {
+            return;
+        }
+        modCount++;
+        int chunkRecords = chunkMask + 1;
+        for (; ; ) {
+            int last = chunkCount - 1;
+            if (last >= 0 && lastChunkCapacity < chunkRecords) {
+                // 最后一块未满，翻倍直到能容纳或者成为满块
+                int needed = minCapacity - (last << chunkShift);
+                int newCapacity = (int) Math.min(chunkRecords, Math.max((long) lastChunkCapacity << 1, needed));
+                ByteBuffer old = cs[last];
+                cs[last] = newChunk(last, newCapacity, old, lastChunkCapacity);
+                lastChunkCapacity = newCapacity;
+                release(old);
+            } else {
+                if (chunkCount == cs.length) {
+                    chunks = cs = Arrays.copyOf(cs, cs.length << 1);
+                }
+                int needed = minCapacity - (chunkCount << chunkShift);
+                int newCapacity = Math.min(chunkRecords, Math.max(DEFAULT_CAPACITY, needed));
+                cs[chunkCount] = newChunk(chunkCount, newCapacity, null, 0);
+                chunkCount++;
+                lastChunkCapacity = newCapacity;
+            }
+            if (capacity() >= minCapacity) {
+                return;
+            }
+        }
+    }
+
+    private long capacity() {
+        return chunkCount == 0 ? 0 : ((long) (chunkCount - 1) << chunkShift) + lastChunkCapacity;
+    }
+
+    /**
+     * 分配第index块，容量为records条记录。old不为null时表示扩容，需要保留old中的前oldRecords条记录
+     */
+    private ByteBuffer newChunk(int index, int records, ByteBuffer old, int oldRecords) {
+        int bytes = records * recordSize;
+        ByteBuffer buf;
+        if (channel != null) {
+            // 同一个文件的共享映射，重新映射更大的范围即可看到原有的数据，不需要复制
+            long position = HEADER_BYTES + ((long) index << chunkShift) * recordSize;
+            try {
+                buf = channel.map(FileChannel.MapMode.READ_WRITE, position, bytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } else {
+            buf = ByteBuffer.allocateDirect(bytes);
+            if (old != null) {
+                ByteBuffer src = old.duplicate();
+                src.clear().limit(oldRecords * recordSize);
+                buf.duplicate().put(src);
+            }
+        }
+        return buf.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static void release(ByteBuffer buf) {
+        if (INVOKE_CLEANER != null && buf != null) {
+            try {
+                INVOKE_CLEANER.invokeExact(buf);
+            } catch (Throwable e) {
+                // 交给GC回收
+            }
+        }
+    }
+
+    private ByteBuffer[] checkOpen() {
+        ByteBuffer[] cs = chunks;
+        if (cs == null) {
+            throw new IllegalStateException("closed");
+        }
+        return cs;
+    }
+
+    /**
+     * 第index条记录所在的块，调用前已检查过下标
+     */
+    private ByteBuffer chunkOf(int index) {
+        return checkOpen()[index >>> chunkShift];
+    }
+
+    private int offsetOf(int index) {
+        return (index & chunkMask) * recordSize;
+    }
+
+    private void setSize(int newSize) {
+        size = newSize;
+        if (header != null) {
+            header.putLong(HEADER_SIZE_OFFSET, newSize);
+        }
+    }
+
+    /**
+     * 复制一条记录，from和to可以在不同的块
+     */
+    private void copyRecord(int from, int to) {
+        ByteBuffer src = chunkOf(from);
+        ByteBuffer dst = chunkOf(to);
+        int s = offsetOf(from);
+        int d = offsetOf(to);
+        int k = 0;
+        for (; k + Long.BYTES <= recordSize; k += Long.BYTES) {
+            dst.putLong(d + k, src.getLong(s + k));
+        }
+        for (; k < recordSize; k++) {
+            dst.put(d + k, src.get(s + k));
+        }
+    }
+
+    public int recordSize() {
+        return recordSize;
+    }
+
+    /**
+     * @return 记录占用的字节数，可以超过2GB
+     */
+    public long byteSize() {
+        return (long) size * recordSize;
+    }
+
+    /**
+     * 直接读取第index条记录中偏移为fieldOffset的long，不经过Codec，不产生对象
+     *
+     * @param index
+     * @param fieldOffset 记录内的字节偏移
+     * @return
+     */
+    public long getLong(int index, int fieldOffset) {
+        Objects.checkIndex(index, size);
+        Objects.checkFromIndexSize(fieldOffset, Long.BYTES, recordSize);
+        return chunkOf(index).getLong(offsetOf(index) + fieldOffset);
+    }
+
+    public void putLong(int index, int fieldOffset, long v) {
+        Objects.checkIndex(index, size);
+        Objects.checkFromIndexSize(fieldOffset, Long.BYTES, recordSize);
+        chunkOf(index).putLong(offsetOf(index) + fieldOffset, v);
+    }
+
+    public int getInt(int index, int fieldOffset) {
+        Objects.checkIndex(index, size);
+        Objects.checkFromIndexSize(fieldOffset, Integer.BYTES, recordSize);
+        return chunkOf(index).getInt(offsetOf(index) + fieldOffset);
+    }
+
+    public void putInt(int index, int fieldOffset, int v) {
+        Objects.checkIndex(index, size);
+        Objects.checkFromIndexSize(fieldOffset, Integer.BYTES, recordSize);
+        chunkOf(index).putInt(offsetOf(index) + fieldOffset, v);
+    }
+
+    public double getDouble(int index, int fieldOffset) {
+        Objects.checkIndex(index, size);
+        Objects.checkFromIndexSize(fieldOffset, Double.BYTES, recordSize);
+        return chunkOf(index).getDouble(offsetOf(index) + fieldOffset);
+    }
+
+    public void putDouble(int index, int fieldOffset, double v) {
+        Objects.checkIndex(index, size);
+        Objects.checkFromIndexSize(fieldOffset, Double.BYTES, recordSize);
+        chunkOf(index).putDouble(offsetOf(index) + fieldOffset, v);
+    }
+
+    /**
+     * 把映射文件的修改写回磁盘，直接内存时什么也不做
+     */
+    public void force() {
+        ByteBuffer[] cs = checkOpen();
+        if (channel == null) {
+            return;
+        }
+        for (int i = 0; i < chunkCount; i++) {
+            ((MappedByteBuffer) cs[i]).force();
+        }
+        header.force();
+    }
+
+    /**
+     * 释放直接内存或者解除映射。映射文件会先写回磁盘，再截断到文件头加上记录的长度。
+     * 重复调用没有效果。
+     *
+     * @throws IOException 截断或者关闭文件失败
+     */
+    @Override
+    public void close() throws IOException {
+        ByteBuffer[] cs = chunks;
+        if (cs == null) {
+            return;
+        }
+        if (channel != null) {
+            force();
+        }
+        chunks = null;
+        for (int i = 0; i < chunkCount; i++) {
+            release(cs[i]);
+        }
+        chunkCount = 0;
+        if (channel != null) {
+            release(header);
+            try {
+                channel.truncate(HEADER_BYTES + byteSize());
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    public boolean isClosed() {
+        return chunks == null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public E get(int index) {
+        Objects.checkIndex(index, size);
+        return codec.read(chunkOf(index), offsetOf(index));
+    }
+
+    @Override
+    public E set(int index, E e) {
+        Objects.checkIndex(index, size);
+        ByteBuffer buf = chunkOf(index);
+        int offset = offsetOf(index);
+        E old = codec.read(buf, offset);
+        codec.write(e, buf, offset);
+        return old;
+    }
+
+    @Override
+    public boolean add(E e) {
+        int s = size;
+        if (s == Integer.MAX_VALUE) {
+            throw new OutOfMemoryError("Required capacity too large");
+        }
+        ensureCapacity(s + 1);
+        modCount++;
+        codec.write(e, chunkOf(s), offsetOf(s));
+        setSize(s + 1);
+        return true;
+    }
+
+    @Override
+    public void add(int index, E e) {
+        int s = size;
+        if (index < 0 || index > s) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + s);
+        }
+        if (s == Integer.MAX_VALUE) {
+            throw new OutOfMemoryError("Required capacity too large");
+        }
+        ensureCapacity(s + 1);
+        modCount++;
+        for (int i = s; i > index; i--) {
+            copyRecord(i - 1, i);
+        }
+        codec.write(e, chunkOf(index), offsetOf(index));
+        setSize(s + 1);
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        ensureCapacity((int) Math.min(Integer.MAX_VALUE, (long) size + c.size()));
+        for (E e : c) {
+            add(e);
+        }
+        return !c.isEmpty();
+    }
+
+    @Override
+    public boolean addAll(List<? extends E> list) {
+        ensureCapacity((int) Math.min(Integer.MAX_VALUE, (long) size + list.size()));
+        boolean modified = false;
+        for (int i = 0, n = list.size(); i < n; i++) {
+            add(list.get(i));
+            modified = true;
+        }
+        return modified;
+    }
+
+    @Override
+    public E remove(int index) {
+        Objects.checkIndex(index, size);
+        E old = get(index);
+        fastRemove(index);
+        return old;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        int i = indexOf(o);
+        if (i < 0) {
+            return false;
+        }
+        fastRemove(i);
+        return true;
+    }
+
+    private void fastRemove(int index) {
+        modCount++;
+        int newSize = size - 1;
+        for (int i = index; i < newSize; i++) {
+            copyRecord(i + 1, i);
+        }
+        setSize(newSize);
+    }
+
+    /**
+     * 先解码每条记录交给filter并在位图中标记，再一次压缩，filter抛出异常时列表保持不变
+     */
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) {
+        Objects.requireNonNull(filter);
+        int expectedModCount = modCount;
+        int end = size;
+        long[] deathRow = new long[(end >> 6) + 1];
+        boolean any = false;
+        for (int i = 0; i < end; i++) {
+            if (filter.test(get(i))) {
+                deathRow[i >> 6] |= 1L << i;
+                any = true;
+            }
+        }
+        checkForComodification(expectedModCount);
+        if (!any) {
+            return false;
+        }
+        modCount++;
+        int w = 0;
+        for (int i = 0; i < end; i++) {
+            if ((deathRow[i >> 6] & (1L << i)) == 0) {
+                if (w != i) {
+                    copyRecord(i, w);
+                }
+                w++;
+            }
+        }
+        setSize(w);
+        return true;
+    }
+
+    @Override
+    public void replaceAll(UnaryOperator<E> operator) {
+        Objects.requireNonNull(operator);
+        int expectedModCount = modCount;
+        for (int i = 0, s = size; modCount == expectedModCount && i < s; i++) {
+            ByteBuffer buf = chunkOf(i);
+            int offset = offsetOf(i);
+            codec.write(operator.apply(codec.read(buf, offset)), buf, offset);
+        }
+        checkForComodification(expectedModCount);
+        modCount++;
+    }
+
+    /**
+     * 全部解码到堆上排序后再写回
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void sort(Comparator<? super E> c) {
+        int expectedModCount = modCount;
+        E[] a = (E[]) toArray();
+        Arrays.sort(a, c);
+        checkForComodification(expectedModCount);
+        for (int i = 0; i < a.length; i++) {
+            codec.write(a[i], chunkOf(i), offsetOf(i));
+        }
+        modCount++;
+    }
+
+    @Override
+    public void forEach(Consumer<? super E> action) {
+        Objects.requireNonNull(action);
+        int expectedModCount = modCount;
+        for (int i = 0, s = size; modCount == expectedModCount && i < s; i++) {
+            action.accept(codec.read(chunkOf(i), offsetOf(i)));
+        }
+        checkForComodification(expectedModCount);
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        for (int i = 0, s = size; i < s; i++) {
+            if (Objects.equals(o, get(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (Objects.equals(o, get(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 只把size置为0，不释放已分配的内存
+     */
+    @Override
+    public void clear() {
+        checkOpen();
+        modCount++;
+        setSize(0);
+    }
+
+    @Override
+    public Object[] toArray() {
+        Object[] a = new Object[size];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = get(i);
+        }
+        return a;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        checkOpen();
+        return new Itr();
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        checkOpen();
+        return new OffHeapSpliterator(0, -1, 0);
+    }
+
+    private void checkForComodification(int expectedModCount) {
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof List)) {
+            return false;
+        }
+        List<?> other = (List<?>) o;
+        int s = size;
+        if (other.size() != s) {
+            return false;
+        }
+        Iterator<?> it = other.iterator();
+        for (int i = 0; i < s; i++) {
+            if (!Objects.equals(get(i), it.next())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0, s = size; i < s; i++) {
+            hash = 31 * hash + Objects.hashCode(get(i));
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        if (chunks == null) {
+            return "OffHeapList[closed]";
+        }
+        int s = size;
+        if (s == 0) {
+            return "[]";
+        }
+        StringBuilder sb = new StringBuilder().append('[');
+        for (int i = 0; ; ) {
+            sb.append(get(i));
+            if (++i == s) {
+                return sb.append(']').toString();
+            }
+            sb.append(", ");
+        }
+    }
+
+    private class Itr implements Iterator<E> {
+
+        int cursor;
+
+        int lastRet = -1;
+
+        int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return cursor != size;
+        }
+
+        @Override
+        public E next() {
+            checkForComodification(expectedModCount);
+            int i = cursor;
+            if (i >= size) {
+                throw new NoSuchElementException();
+            }
+            cursor = i + 1;
+            return get(lastRet = i);
+        }
+
+        @Override
+        public void remove() {
+            if (lastRet < 0) {
+                throw new IllegalStateException();
+            }
+            checkForComodification(expectedModCount);
+            fastRemove(lastRet);
+            cursor = lastRet;
+            lastRet = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    /**
+     * 与ArrayList的spliterator相同：第一次使用时才绑定size，每次对半拆分。
+     * 各个分片只读取自己范围内的记录，可以在多个线程中并行解码。
+     */
+    private final class OffHeapSpliterator implements Spliterator<E> {
+
+        private int index;
+
+        private int fence;
+
+        private int expectedModCount;
+
+        OffHeapSpliterator(int origin, int fence, int expectedModCount) {
+            this.index = origin;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        private int getFence() {
+            int hi;
+            if ((hi = fence) < 0) {
+                expectedModCount = modCount;
+                hi = fence = size;
+            }
+            return hi;
+        }
+
+        @Override
+        public Spliterator<E> trySplit() {
+            int hi = getFence();
+            int lo = index;
+            int mid = (lo + hi) >>> 1;
+            return lo >= mid ? null : new OffHeapSpliterator(lo, index = mid, expectedModCount);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action) {
+            Objects.requireNonNull(action);
+            int hi = getFence();
+            int i = index;
+            if (i < hi) {
+                index = i + 1;
+                action.accept(codec.read(chunkOf(i), offsetOf(i)));
+                checkForComodification(expectedModCount);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super E> action) {
+            Objects.requireNonNull(action);
+            int hi = getFence();
+            int i = index;
+            index = hi;
+            for (; i < hi; i++) {
+                action.accept(codec.read(chunkOf(i), offsetOf(i)));
+            }
+            checkForComodification(expectedModCount);
+        }
+
+        @Override
+        public long estimateSize() {
+            return getFence() - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+    }
+}
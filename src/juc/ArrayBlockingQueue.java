@@ -0,0 +1,411 @@
+package juc;
+
+import juc.locks.Condition;
+import juc.locks.ReentrantLock;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于循环数组的有界阻塞队列，入队和出队共用一把ReentrantLock，
+ * notEmpty和notFull两个Condition分别挂出队和入队的等待线程。
+ * <p>
+ * 批量操作在一次加锁内移动多个元素，之后按移动的个数signal对面的Condition，
+ * 每个signal最多转移一个等待者，不会多唤醒。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+public class ArrayBlockingQueue<E> implements BlockingQueue<E> {
+
+    private final Object[] items;
+
+    /**
+     * 下一次出队的位置
+     */
+    private int takeIndex;
+
+    /**
+     * 下一次入队的位置
+     */
+    private int putIndex;
+
+    private int count;
+
+    private final ReentrantLock lock;
+
+    private final Condition notEmpty;
+
+    private final Condition notFull;
+
+    public ArrayBlockingQueue(int capacity) {
+        this(capacity, false);
+    }
+
+    public ArrayBlockingQueue(int capacity, boolean fair) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.items = new Object[capacity];
+        this.lock = new ReentrantLock(fair);
+        this.notEmpty = lock.newCondition();
+        this.notFull = lock.newCondition();
+    }
+
+    /**
+     * 持有锁时调用
+     */
+    private void enqueue(E e) {
+        final Object[] items = this.items;
+        items[putIndex] = e;
+        if (++putIndex == items.length) {
+            putIndex = 0;
+        }
+        count++;
+        notEmpty.signal();
+    }
+
+    /**
+     * 持有锁时调用
+     */
+    @SuppressWarnings("unchecked")
+    private E dequeue() {
+        final Object[] items = this.items;
+        E e = (E) items[takeIndex];
+        items[takeIndex] = null;
+        if (++takeIndex == items.length) {
+            takeIndex = 0;
+        }
+        count--;
+        notFull.signal();
+        return e;
+    }
+
+    /**
+     * 删除removeIndex处的元素，后面的元素依次前移，持有锁时调用
+     */
+    private void removeAt(int removeIndex) {
+        final Object[] items = this.items;
+        if (removeIndex == takeIndex) {
+            items[takeIndex] = null;
+            if (++takeIndex == items.length) {
+                takeIndex = 0;
+            }
+        } else {
+            for (int i = removeIndex; ; ) {
+                int next = i + 1;
+                if (next == items.length) {
+                    next = 0;
+                }
+                if (next == putIndex) {
+                    items[i] = null;
+                    putIndex = i;
+                    break;
+                }
+                items[i] = items[next];
+                i = next;
+            }
+        }
+        count--;
+        notFull.signal();
+    }
+
+    @Override
+    public boolean offer(E e) {
+        Objects.requireNonNull(e);
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            if (count == items.length) {
+                return false;
+            }
+            enqueue(e);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        Objects.requireNonNull(e);
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            while (count == items.length) {
+                if (nanos <= 0L) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            enqueue(e);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        Objects.requireNonNull(e);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            while (count == items.length) {
+                notFull.await();
+            }
+            enqueue(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int offerAll(Collection<? extends E> c) {
+        Objects.requireNonNull(c);
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            final Object[] items = this.items;
+            int n = 0;
+            int i = putIndex;
+            try {
+                for (E e : c) {
+                    if (count + n == items.length) {
+                        break;
+                    }
+                    Objects.requireNonNull(e);
+                    items[i] = e;
+                    if (++i == items.length) {
+                        i = 0;
+                    }
+                    n++;
+                }
+                return n;
+            } finally {
+                // 遇到null元素时，之前的元素仍然入队
+                if (n > 0) {
+                    putIndex = i;
+                    count += n;
+                    for (int k = 0; k < n; k++) {
+                        notEmpty.signal();
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E poll() {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            return count == 0 ? null : dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                if (nanos <= 0L) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                notEmpty.await();
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            return (E) items[takeIndex];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        checkDrainTarget(c);
+        if (maxElements <= 0) {
+            return 0;
+        }
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            return drainLocked(c, maxElements);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        checkDrainTarget(c);
+        if (maxElements <= 0) {
+            return 0;
+        }
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                if (nanos <= 0L) {
+                    return 0;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return drainLocked(c, maxElements);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkDrainTarget(Collection<? super E> c) {
+        Objects.requireNonNull(c);
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    /**
+     * 持有锁时调用，c.add抛出异常时已经移动的元素仍然出队
+     */
+    @SuppressWarnings("unchecked")
+    private int drainLocked(Collection<? super E> c, int maxElements) {
+        final Object[] items = this.items;
+        int n = Math.min(maxElements, count);
+        int take = takeIndex;
+        int i = 0;
+        try {
+            while (i < n) {
+                E e = (E) items[take];
+                c.add(e);
+                items[take] = null;
+                if (++take == items.length) {
+                    take = 0;
+                }
+                i++;
+            }
+            return n;
+        } finally {
+            if (i > 0) {
+                count -= i;
+                takeIndex = take;
+                for (int k = 0; k < i; k++) {
+                    notFull.signal();
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (o == null) {
+            return false;
+        }
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            final Object[] items = this.items;
+            for (int i = takeIndex, k = 0; k < count; k++) {
+                if (o.equals(items[i])) {
+                    removeAt(i);
+                    return true;
+                }
+                if (++i == items.length) {
+                    i = 0;
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public int remainingCapacity() {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            return items.length - count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            final Object[] items = this.items;
+            int n = count;
+            for (int i = takeIndex, k = 0; k < n; k++) {
+                items[i] = null;
+                if (++i == items.length) {
+                    i = 0;
+                }
+            }
+            takeIndex = putIndex;
+            count = 0;
+            for (int k = 0; k < n; k++) {
+                notFull.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package juc;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 阻塞队列：队列满时入队等待，队列空时出队等待，不允许null元素。
+ * <p>
+ * 除了逐个入队出队，还提供批量的offerAll/drainTo，一次获取锁移动多个元素，
+ * 元素很多、每个元素的处理又很短时，锁的获取和唤醒的开销按批摊薄。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+public interface BlockingQueue<E> {
+
+    /**
+     * 队列未满时入队
+     *
+     * @param e
+     * @return 队列已满返回false
+     */
+    boolean offer(E e);
+
+    /**
+     * 入队，队列已满时最多等待给定的时间
+     *
+     * @param e
+     * @param timeout
+     * @param unit
+     * @return 超时返回false
+     * @throws InterruptedException
+     */
+    boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * 入队，队列已满时一直等待
+     *
+     * @param e
+     * @throws InterruptedException
+     */
+    void put(E e) throws InterruptedException;
+
+    /**
+     * 一次获取锁，按迭代顺序入队，直到全部入队或者队列已满
+     *
+     * @param c
+     * @return 入队的个数
+     */
+    int offerAll(Collection<? extends E> c);
+
+    /**
+     * 队列非空时出队
+     *
+     * @return 队列为空返回null
+     */
+    E poll();
+
+    /**
+     * 出队，队列为空时最多等待给定的时间
+     *
+     * @param timeout
+     * @param unit
+     * @return 超时返回null
+     * @throws InterruptedException
+     */
+    E poll(long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * 出队，队列为空时一直等待
+     *
+     * @return
+     * @throws InterruptedException
+     */
+    E take() throws InterruptedException;
+
+    /**
+     * 队首元素，不出队
+     *
+     * @return 队列为空返回null
+     */
+    E peek();
+
+    /**
+     * 一次获取锁，把所有元素移到c中
+     *
+     * @param c
+     * @return 移动的个数
+     */
+    int drainTo(Collection<? super E> c);
+
+    /**
+     * 一次获取锁，把最多maxElements个元素移到c中
+     *
+     * @param c
+     * @param maxElements
+     * @return 移动的个数
+     */
+    int drainTo(Collection<? super E> c, int maxElements);
+
+    /**
+     * 队列为空时最多等待给定的时间，有元素之后一次获取锁，把最多maxElements个元素移到c中
+     *
+     * @param c
+     * @param maxElements
+     * @param timeout
+     * @param unit
+     * @return 移动的个数，超时返回0
+     * @throws InterruptedException
+     */
+    int drainTo(Collection<? super E> c, int maxElements, long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * 删除一个与o相等的元素
+     *
+     * @param o
+     * @return 是否删除
+     */
+    boolean remove(Object o);
+
+    int size();
+
+    boolean isEmpty();
+
+    /**
+     * 不阻塞还能入队的元素个数，无界队列返回Integer.MAX_VALUE
+     *
+     * @return
+     */
+    int remainingCapacity();
+
+    void clear();
+}
@@ -0,0 +1,536 @@
+package juc;
+
+import juc.locks.Condition;
+import juc.locks.ReentrantLock;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于单向链表的阻塞队列，可以有界也可以无界(容量为Integer.MAX_VALUE)。
+ * <p>
+ * 入队和出队各用一把锁(two-lock queue)：入队只修改last，出队只修改head，
+ * head始终是一个哑节点，队列为空时head == last，两端互不干扰，生产者和消费者可以同时进行。
+ * 元素个数用AtomicInteger计数，两端通过它判断满和空。
+ * <p>
+ * 为了少拿对面的锁，唤醒是级联的：入队后如果还没满，由入队的线程唤醒下一个入队者；
+ * 只有从空变为非空时才拿出队锁唤醒出队者，反之亦然。
+ * 批量操作一次加锁移动多个元素，计数只更新一次，跨端的唤醒最多一次。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+public class LinkedBlockingQueue<E> implements BlockingQueue<E> {
+
+    static class Node<E> {
+
+        E item;
+
+        /**
+         * 后继；出队的旧head指向自己，表示已经离开队列
+         */
+        Node<E> next;
+
+        Node(E item) {
+            this.item = item;
+        }
+    }
+
+    private final int capacity;
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    /**
+     * 哑节点，head.item始终为null，只在持有takeLock时修改
+     */
+    private Node<E> head;
+
+    /**
+     * 最后一个节点，last.next始终为null，只在持有putLock时修改
+     */
+    private Node<E> last;
+
+    private final ReentrantLock takeLock = new ReentrantLock();
+
+    private final Condition notEmpty = takeLock.newCondition();
+
+    private final ReentrantLock putLock = new ReentrantLock();
+
+    private final Condition notFull = putLock.newCondition();
+
+    public LinkedBlockingQueue() {
+        this(Integer.MAX_VALUE);
+    }
+
+    public LinkedBlockingQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.capacity = capacity;
+        last = head = new Node<>(null);
+    }
+
+    /**
+     * 唤醒一个出队者，只在入队时调用
+     */
+    private void signalNotEmpty() {
+        final ReentrantLock takeLock = this.takeLock;
+        takeLock.lock();
+        try {
+            notEmpty.signal();
+        } finally {
+            takeLock.unlock();
+        }
+    }
+
+    /**
+     * 唤醒一个入队者，只在出队时调用
+     */
+    private void signalNotFull() {
+        final ReentrantLock putLock = this.putLock;
+        putLock.lock();
+        try {
+            notFull.signal();
+        } finally {
+            putLock.unlock();
+        }
+    }
+
+    /**
+     * 持有putLock时调用
+     */
+    private void enqueue(Node<E> node) {
+        last = last.next = node;
+    }
+
+    /**
+     * 持有takeLock时调用
+     */
+    private E dequeue() {
+        Node<E> h = head;
+        Node<E> first = h.next;
+        // help GC
+        h.next = h;
+        head = first;
+        E x = first.item;
+        first.item = null;
+        return x;
+    }
+
+    /**
+     * 同时持有两把锁，用于删除等需要遍历整个队列的操作，先putLock再takeLock
+     */
+    private void fullyLock() {
+        putLock.lock();
+        takeLock.lock();
+    }
+
+    private void fullyUnlock() {
+        takeLock.unlock();
+        putLock.unlock();
+    }
+
+    @Override
+    public boolean offer(E e) {
+        Objects.requireNonNull(e);
+        final AtomicInteger count = this.count;
+        if (count.get() == capacity) {
+            return false;
+        }
+        int c = -1;
+        Node<E> node = new Node<>(e);
+        final ReentrantLock putLock = this.putLock;
+        putLock.lock();
+        try {
+            if (count.get() < capacity) {
+                enqueue(node);
+                c = count.getAndIncrement();
+                if (c + 1 < capacity) {
+                    notFull.signal();
+                }
+            }
+        } finally {
+            putLock.unlock();
+        }
+        if (c == 0) {
+            signalNotEmpty();
+        }
+        return c >= 0;
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        Objects.requireNonNull(e);
+        long nanos = unit.toNanos(timeout);
+        int c;
+        final ReentrantLock putLock = this.putLock;
+        final AtomicInteger count = this.count;
+        putLock.lockInterruptibly();
+        try {
+            while (count.get() == capacity) {
+                if (nanos <= 0L) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            enqueue(new Node<>(e));
+            c = count.getAndIncrement();
+            if (c + 1 < capacity) {
+                notFull.signal();
+            }
+        } finally {
+            putLock.unlock();
+        }
+        if (c == 0) {
+            signalNotEmpty();
+        }
+        return true;
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        Objects.requireNonNull(e);
+        int c;
+        Node<E> node = new Node<>(e);
+        final ReentrantLock putLock = this.putLock;
+        final AtomicInteger count = this.count;
+        putLock.lockInterruptibly();
+        try {
+            while (count.get() == capacity) {
+                notFull.await();
+            }
+            enqueue(node);
+            c = count.getAndIncrement();
+            if (c + 1 < capacity) {
+                notFull.signal();
+            }
+        } finally {
+            putLock.unlock();
+        }
+        if (c == 0) {
+            signalNotEmpty();
+        }
+    }
+
+    /**
+     * 节点在加锁之前创建好，锁内只做链接
+     */
+    @Override
+    public int offerAll(Collection<? extends E> c) {
+        Objects.requireNonNull(c);
+        final AtomicInteger count = this.count;
+        int room = capacity - count.get();
+        if (room <= 0) {
+            return 0;
+        }
+        // 在锁外串好一条链，最多room个节点，锁内可能因为并发入队只能接上一部分
+        Node<E> first = null;
+        Node<E> tail = null;
+        int built = 0;
+        for (E e : c) {
+            if (built == room) {
+                break;
+            }
+            Node<E> node = new Node<>(Objects.requireNonNull(e));
+            if (first == null) {
+                first = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+            built++;
+        }
+        if (built == 0) {
+            return 0;
+        }
+        int n;
+        int before;
+        final ReentrantLock putLock = this.putLock;
+        putLock.lock();
+        try {
+            n = Math.min(built, capacity - count.get());
+            if (n <= 0) {
+                return 0;
+            }
+            if (n < built) {
+                Node<E> cut = first;
+                for (int i = 1; i < n; i++) {
+                    cut = cut.next;
+                }
+                cut.next = null;
+                tail = cut;
+            }
+            last.next = first;
+            last = tail;
+            before = count.getAndAdd(n);
+            if (before + n < capacity) {
+                notFull.signal();
+            }
+        } finally {
+            putLock.unlock();
+        }
+        if (before == 0) {
+            signalNotEmpty();
+        }
+        return n;
+    }
+
+    @Override
+    public E poll() {
+        final AtomicInteger count = this.count;
+        if (count.get() == 0) {
+            return null;
+        }
+        E x = null;
+        int c = -1;
+        final ReentrantLock takeLock = this.takeLock;
+        takeLock.lock();
+        try {
+            if (count.get() > 0) {
+                x = dequeue();
+                c = count.getAndDecrement();
+                if (c > 1) {
+                    notEmpty.signal();
+                }
+            }
+        } finally {
+            takeLock.unlock();
+        }
+        if (c == capacity) {
+            signalNotFull();
+        }
+        return x;
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        E x;
+        int c;
+        final AtomicInteger count = this.count;
+        final ReentrantLock takeLock = this.takeLock;
+        takeLock.lockInterruptibly();
+        try {
+            while (count.get() == 0) {
+                if (nanos <= 0L) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            x = dequeue();
+            c = count.getAndDecrement();
+            if (c > 1) {
+                notEmpty.signal();
+            }
+        } finally {
+            takeLock.unlock();
+        }
+        if (c == capacity) {
+            signalNotFull();
+        }
+        return x;
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        E x;
+        int c;
+        final AtomicInteger count = this.count;
+        final ReentrantLock takeLock = this.takeLock;
+        takeLock.lockInterruptibly();
+        try {
+            while (count.get() == 0) {
+                notEmpty.await();
+            }
+            x = dequeue();
+            c = count.getAndDecrement();
+            if (c > 1) {
+                notEmpty.signal();
+            }
+        } finally {
+            takeLock.unlock();
+        }
+        if (c == capacity) {
+            signalNotFull();
+        }
+        return x;
+    }
+
+    @Override
+    public E peek() {
+        if (count.get() == 0) {
+            return null;
+        }
+        final ReentrantLock takeLock = this.takeLock;
+        takeLock.lock();
+        try {
+            Node<E> first = head.next;
+            return first == null ? null : first.item;
+        } finally {
+            takeLock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        checkDrainTarget(c);
+        if (maxElements <= 0) {
+            return 0;
+        }
+        int before;
+        int n;
+        final ReentrantLock takeLock = this.takeLock;
+        takeLock.lock();
+        try {
+            before = count.get();
+            n = drainLocked(c, Math.min(maxElements, before));
+        } finally {
+            takeLock.unlock();
+        }
+        if (n > 0 && before == capacity) {
+            signalNotFull();
+        }
+        return n;
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        checkDrainTarget(c);
+        if (maxElements <= 0) {
+            return 0;
+        }
+        long nanos = unit.toNanos(timeout);
+        int before;
+        int n;
+        final AtomicInteger count = this.count;
+        final ReentrantLock takeLock = this.takeLock;
+        takeLock.lockInterruptibly();
+        try {
+            while (count.get() == 0) {
+                if (nanos <= 0L) {
+                    return 0;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            before = count.get();
+            n = drainLocked(c, Math.min(maxElements, before));
+        } finally {
+            takeLock.unlock();
+        }
+        if (n > 0 && before == capacity) {
+            signalNotFull();
+        }
+        return n;
+    }
+
+    private void checkDrainTarget(Collection<? super E> c) {
+        Objects.requireNonNull(c);
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    /**
+     * 持有takeLock时调用，n不超过当前的元素个数；c.add抛出异常时已经移动的元素仍然出队
+     */
+    private int drainLocked(Collection<? super E> c, int n) {
+        Node<E> h = head;
+        int i = 0;
+        try {
+            while (i < n) {
+                Node<E> p = h.next;
+                c.add(p.item);
+                p.item = null;
+                h.next = h;
+                h = p;
+                i++;
+            }
+            return n;
+        } finally {
+            if (i > 0) {
+                head = h;
+                int before = count.getAndAdd(-i);
+                if (before - i > 0) {
+                    // 还有剩余，级联唤醒下一个出队者
+                    notEmpty.signal();
+                }
+            }
+        }
+    }
+
+    /**
+     * 删除需要同时持有两把锁
+     */
+    @Override
+    public boolean remove(Object o) {
+        if (o == null) {
+            return false;
+        }
+        fullyLock();
+        try {
+            for (Node<E> trail = head, p = trail.next; p != null; trail = p, p = p.next) {
+                if (o.equals(p.item)) {
+                    unlink(p, trail);
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            fullyUnlock();
+        }
+    }
+
+    /**
+     * 持有两把锁时调用
+     */
+    private void unlink(Node<E> p, Node<E> trail) {
+        p.item = null;
+        trail.next = p.next;
+        if (last == p) {
+            last = trail;
+        }
+        if (count.getAndDecrement() == capacity) {
+            notFull.signal();
+        }
+    }
+
+    @Override
+    public int size() {
+        return count.get();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return count.get() == 0;
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return capacity - count.get();
+    }
+
+    @Override
+    public void clear() {
+        fullyLock();
+        try {
+            for (Node<E> p, h = head; (p = h.next) != null; h = p) {
+                h.next = h;
+                p.item = null;
+            }
+            head = last;
+            if (count.getAndSet(0) == capacity) {
+                notFull.signal();
+            }
+        } finally {
+            fullyUnlock();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package juc;
+
+/**
+ * ThreadPoolExecutor无法执行任务时的处理策略：已经关闭，或者线程数和队列都已达到上限。
+ * 常用的实现见ThreadPoolExecutor中的AbortPolicy、CallerRunsPolicy、DiscardPolicy和DiscardOldestPolicy。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+public interface RejectedExecutionHandler {
+
+    /**
+     * @param r        被拒绝的任务
+     * @param executor 拒绝它的线程池
+     * @throws java.util.concurrent.RejectedExecutionException 没有其他处理办法时抛出
+     */
+    void rejectedExecution(Runnable r, ThreadPoolExecutor executor);
+}
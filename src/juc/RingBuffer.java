@@ -0,0 +1,584 @@
+package juc;
+
+import juc.locks.Condition;
+import juc.locks.ReentrantLock;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 有界的多生产者多消费者环形缓冲区，快速路径上不加锁。
+ * <p>
+ * 每个槽位有一个序号(Vyukov的有界MPMC队列)：序号等于位置pos时槽位空闲，生产者可以写入；
+ * 等于pos + 1时已经发布，消费者可以读取；消费者读完把序号设为pos + capacity，留给下一圈的生产者。
+ * 生产者和消费者各自CAS一个游标(tail/head)认领位置，两个游标分别放在前后都有填充的Sequence对象中，
+ * 互相之间以及与其他字段之间没有伪共享。
+ * 批量操作一次CAS认领连续的多个位置，认领之后逐个写入和发布，游标上的竞争按批摊薄。
+ * <p>
+ * 满或空时按WaitStrategy等待：BUSY_SPIN、YIELDING、PARKING一直忙等，只适合线程数不超过核数的场景；
+ * 默认的BLOCKING短暂自旋后在ReentrantLock/Condition上阻塞。
+ * 阻塞的线程先增加等待计数再检查，对面的线程发布或释放槽位之后检查计数，只有计数不为0时才加锁signal，
+ * 没有线程阻塞时快速路径不碰锁。
+ * <p>
+ * 不允许null元素。容量向上取整为2的幂。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+public class RingBuffer<E> {
+
+    private static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 满或空时的等待方式
+     */
+    public interface WaitStrategy {
+
+        /**
+         * 条件不满足时调用一次，在返回之后重新检查
+         *
+         * @param round 本次等待中已经调用的次数，从0开始
+         * @return false表示不再忙等，改为在Condition上阻塞，之后的调用也应当返回false
+         */
+        boolean idle(int round);
+    }
+
+    /**
+     * 一直自旋，延迟最低，占满一个核
+     */
+    public static final WaitStrategy BUSY_SPIN = round -> {
+        Thread.onSpinWait();
+        return true;
+    };
+
+    /**
+     * 自旋一段时间后反复Thread.yield()
+     */
+    public static final WaitStrategy YIELDING = round -> {
+        if (round < 100) {
+            Thread.onSpinWait();
+        } else {
+            Thread.yield();
+        }
+        return true;
+    };
+
+    /**
+     * 自旋、让出之后反复parkNanos，间隔逐渐增加到最多1毫秒
+     */
+    public static final WaitStrategy PARKING = round -> {
+        if (round < 100) {
+            Thread.onSpinWait();
+        } else if (round < 200) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(Math.min(1_000_000L, 1000L << Math.min(round - 200, 10)));
+        }
+        return true;
+    };
+
+    /**
+     * 多核时短暂自旋，之后在Condition上阻塞，默认的等待方式
+     */
+    public static final WaitStrategy BLOCKING = round -> {
+        if (round < (NCPU > 1 ? 128 : 0)) {
+            Thread.onSpinWait();
+            return true;
+        }
+        return false;
+    };
+
+    static class LhsPadding {
+        long p00, p01, p02, p03, p04, p05, p06, p07;
+        long p08, p09, p10, p11, p12, p13, p14, p15;
+    }
+
+    static class Value extends LhsPadding {
+        volatile long value;
+    }
+
+    /**
+     * 前后各128字节填充的游标，父类字段排在子类之前，value两侧都是填充
+     */
+    static final class Sequence extends Value {
+        long p16, p17, p18, p19, p20, p21, p22, p23;
+        long p24, p25, p26, p27, p28, p29, p30, p31;
+
+        boolean compareAndSet(long expect, long update) {
+            return VALUE.compareAndSet(this, expect, update);
+        }
+    }
+
+    private final Object[] buffer;
+
+    private final AtomicLongArray sequences;
+
+    private final int mask;
+
+    /**
+     * 生产者认领的下一个位置
+     */
+    private final Sequence tail = new Sequence();
+
+    /**
+     * 消费者认领的下一个位置
+     */
+    private final Sequence head = new Sequence();
+
+    private final WaitStrategy waitStrategy;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private final Condition notFull = lock.newCondition();
+
+    /**
+     * 在Condition上阻塞的生产者和消费者的个数
+     */
+    private volatile int waitingProducers;
+
+    private volatile int waitingConsumers;
+
+    public RingBuffer(int capacity) {
+        this(capacity, BLOCKING);
+    }
+
+    public RingBuffer(int capacity, WaitStrategy waitStrategy) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException();
+        }
+        int n = 1;
+        while (n < capacity) {
+            n <<= 1;
+        }
+        this.buffer = new Object[n];
+        this.sequences = new AtomicLongArray(n);
+        for (int i = 0; i < n; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = n - 1;
+        this.waitStrategy = Objects.requireNonNull(waitStrategy);
+    }
+
+    public int capacity() {
+        return buffer.length;
+    }
+
+    /**
+     * 不等待，满时返回false
+     *
+     * @param e
+     * @return
+     */
+    public boolean offer(E e) {
+        Objects.requireNonNull(e);
+        final Sequence tail = this.tail;
+        for (; ; ) {
+            long t = tail.value;
+            int i = (int) t & mask;
+            long dif = sequences.get(i) - t;
+            if (dif == 0) {
+                if (tail.compareAndSet(t, t + 1)) {
+                    buffer[i] = e;
+                    sequences.set(i, t + 1);
+                    if (waitingConsumers != 0) {
+                        signal(notEmpty, 1);
+                    }
+                    return true;
+                }
+            } else if (dif < 0) {
+                // 这一圈的消费者还没有读走
+                return false;
+            }
+            // 其他生产者已经认领，重新读tail
+        }
+    }
+
+    /**
+     * 不等待，空时返回null
+     *
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        final Sequence head = this.head;
+        for (; ; ) {
+            long h = head.value;
+            int i = (int) h & mask;
+            long dif = sequences.get(i) - (h + 1);
+            if (dif == 0) {
+                if (head.compareAndSet(h, h + 1)) {
+                    E e = (E) buffer[i];
+                    buffer[i] = null;
+                    sequences.set(i, h + buffer.length);
+                    if (waitingProducers != 0) {
+                        signal(notFull, 1);
+                    }
+                    return e;
+                }
+            } else if (dif < 0) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 一次CAS认领连续的空闲位置，按顺序发布，不等待。
+     * 只检查本次能发布的元素是否为null，之后的元素留给下一次调用。
+     *
+     * @param items
+     * @return 发布的个数，满时为0
+     */
+    public int offerAll(List<? extends E> items) {
+        return offerRange(items, 0, items.size(), true);
+    }
+
+    /**
+     * 发布items[from, to)中能连续认领到位置的一段
+     *
+     * @param items
+     * @param from
+     * @param to
+     * @param checkNulls 是否在认领前检查这一段中的null，调用方已经检查过整个列表时为false
+     * @return 发布的个数，满时为0
+     */
+    private int offerRange(List<? extends E> items, int from, int to, boolean checkNulls) {
+        int size = to - from;
+        if (size <= 0) {
+            return 0;
+        }
+        final Sequence tail = this.tail;
+        final AtomicLongArray sequences = this.sequences;
+        int checked = 0;
+        for (; ; ) {
+            long t = tail.value;
+            int k = 0;
+            while (k < size && sequences.get((int) (t + k) & mask) == t + k) {
+                k++;
+            }
+            if (k == 0) {
+                if (sequences.get((int) t & mask) - t < 0) {
+                    return 0;
+                }
+                continue;
+            }
+            // 认领之后不能撤回，null必须在CAS之前检查；重试时已经检查过的不再检查
+            if (checkNulls) {
+                for (; checked < k; checked++) {
+                    Objects.requireNonNull(items.get(from + checked));
+                }
+            }
+            if (tail.compareAndSet(t, t + k)) {
+                for (int j = 0; j < k; j++) {
+                    int i = (int) (t + j) & mask;
+                    buffer[i] = items.get(from + j);
+                    sequences.set(i, t + j + 1);
+                }
+                if (waitingConsumers != 0) {
+                    signal(notEmpty, k);
+                }
+                return k;
+            }
+        }
+    }
+
+    /**
+     * 一次CAS认领连续的已发布位置，按顺序移到c中，不等待
+     *
+     * @param c
+     * @param maxElements
+     * @return 移动的个数，空时为0
+     */
+    @SuppressWarnings("unchecked")
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        Objects.requireNonNull(c);
+        if (maxElements <= 0) {
+            return 0;
+        }
+        final Sequence head = this.head;
+        final AtomicLongArray sequences = this.sequences;
+        for (; ; ) {
+            long h = head.value;
+            int k = 0;
+            while (k < maxElements && sequences.get((int) (h + k) & mask) == h + k + 1) {
+                k++;
+            }
+            if (k == 0) {
+                if (sequences.get((int) h & mask) - (h + 1) < 0) {
+                    return 0;
+                }
+                continue;
+            }
+            if (head.compareAndSet(h, h + k)) {
+                // 认领之后必须全部释放，c.add抛出异常时剩下的元素丢弃
+                Throwable failure = null;
+                for (int j = 0; j < k; j++) {
+                    int i = (int) (h + j) & mask;
+                    E e = (E) buffer[i];
+                    buffer[i] = null;
+                    sequences.set(i, h + j + buffer.length);
+                    if (failure == null) {
+                        try {
+                            c.add(e);
+                        } catch (Throwable x) {
+                            failure = x;
+                        }
+                    }
+                }
+                if (waitingProducers != 0) {
+                    signal(notFull, k);
+                }
+                if (failure instanceof RuntimeException) {
+                    throw (RuntimeException) failure;
+                }
+                if (failure instanceof Error) {
+                    throw (Error) failure;
+                }
+                return k;
+            }
+        }
+    }
+
+    public void put(E e) throws InterruptedException {
+        Objects.requireNonNull(e);
+        for (int round = 0; !offer(e); round++) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (!waitStrategy.idle(round)) {
+                awaitNotFull(false, 0L);
+            }
+        }
+    }
+
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        Objects.requireNonNull(e);
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (int round = 0; !offer(e); round++) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (deadline - System.nanoTime() <= 0L) {
+                return false;
+            }
+            if (!waitStrategy.idle(round) && !awaitNotFull(true, deadline)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 分批发布所有的元素，满时等待
+     *
+     * @param items
+     * @throws InterruptedException
+     */
+    public void putAll(List<? extends E> items) throws InterruptedException {
+        int size = items.size();
+        for (int j = 0; j < size; j++) {
+            Objects.requireNonNull(items.get(j));
+        }
+        int done = 0;
+        for (int round = 0; done < size; ) {
+            int k = offerRange(items, done, size, false);
+            if (k > 0) {
+                done += k;
+                round = 0;
+                continue;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (!waitStrategy.idle(round++)) {
+                awaitNotFull(false, 0L);
+            }
+        }
+    }
+
+    public E take() throws InterruptedException {
+        E e;
+        for (int round = 0; (e = poll()) == null; round++) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (!waitStrategy.idle(round)) {
+                awaitNotEmpty(false, 0L);
+            }
+        }
+        return e;
+    }
+
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        E e;
+        for (int round = 0; (e = poll()) == null; round++) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (deadline - System.nanoTime() <= 0L) {
+                return null;
+            }
+            if (!waitStrategy.idle(round) && !awaitNotEmpty(true, deadline)) {
+                return null;
+            }
+        }
+        return e;
+    }
+
+    /**
+     * 空时最多等待给定的时间，有元素之后一次移动最多maxElements个
+     *
+     * @param c
+     * @param maxElements
+     * @param timeout
+     * @param unit
+     * @return 移动的个数，超时返回0
+     * @throws InterruptedException
+     */
+    public int drainTo(Collection<? super E> c, int maxElements, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int n;
+        for (int round = 0; (n = drainTo(c, maxElements)) == 0 && maxElements > 0; round++) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (deadline - System.nanoTime() <= 0L) {
+                return 0;
+            }
+            if (!waitStrategy.idle(round) && !awaitNotEmpty(true, deadline)) {
+                return 0;
+            }
+        }
+        return n;
+    }
+
+    private boolean isFull() {
+        long t = tail.value;
+        return sequences.get((int) t & mask) - t < 0;
+    }
+
+    private boolean isEmptySlot() {
+        long h = head.value;
+        return sequences.get((int) h & mask) - (h + 1) < 0;
+    }
+
+    /**
+     * 先增加等待计数再检查，与发布之后检查计数配对，两边都是volatile访问，不会漏掉唤醒
+     *
+     * @return 超时返回false
+     */
+    private boolean awaitNotFull(boolean timed, long deadline) throws InterruptedException {
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            WAITING_PRODUCERS.getAndAdd(this, 1);
+            try {
+                while (isFull()) {
+                    if (!timed) {
+                        notFull.await();
+                    } else {
+                        long nanos = deadline - System.nanoTime();
+                        if (nanos <= 0L) {
+                            return false;
+                        }
+                        notFull.awaitNanos(nanos);
+                    }
+                }
+                return true;
+            } finally {
+                WAITING_PRODUCERS.getAndAdd(this, -1);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean awaitNotEmpty(boolean timed, long deadline) throws InterruptedException {
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            WAITING_CONSUMERS.getAndAdd(this, 1);
+            try {
+                while (isEmptySlot()) {
+                    if (!timed) {
+                        notEmpty.await();
+                    } else {
+                        long nanos = deadline - System.nanoTime();
+                        if (nanos <= 0L) {
+                            return false;
+                        }
+                        notEmpty.awaitNanos(nanos);
+                    }
+                }
+                return true;
+            } finally {
+                WAITING_CONSUMERS.getAndAdd(this, -1);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 唤醒最多n个等待者
+     */
+    private void signal(Condition condition, int n) {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            for (int i = 0; i < n; i++) {
+                condition.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 元素个数的估计值
+     *
+     * @return
+     */
+    public int size() {
+        for (; ; ) {
+            long h = head.value;
+            long t = tail.value;
+            if (h == head.value) {
+                long n = t - h;
+                return n <= 0 ? 0 : (int) Math.min(n, buffer.length);
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return isEmptySlot();
+    }
+
+    public int remainingCapacity() {
+        return buffer.length - size();
+    }
+
+    private static final VarHandle VALUE;
+    private static final VarHandle WAITING_PRODUCERS;
+    private static final VarHandle WAITING_CONSUMERS;
+
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            VALUE = l.findVarHandle(Value.class, "value", long.class);
+            WAITING_PRODUCERS = l.findVarHandle(RingBuffer.class, "waitingProducers", int.class);
+            WAITING_CONSUMERS = l.findVarHandle(RingBuffer.class, "waitingConsumers", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
@@ -0,0 +1,935 @@
+package juc;
+
+import juc.locks.AbstractQueuedSynchronizer;
+import juc.locks.Condition;
+import juc.locks.ReentrantLock;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于juc.locks和juc.BlockingQueue的线程池，行为与java.util.concurrent.ThreadPoolExecutor一致：
+ * <ul>
+ * <li>线程数少于corePoolSize时，新任务直接交给新建的线程；</li>
+ * <li>否则入队，由空闲的线程从队列中取；</li>
+ * <li>队列满时，线程数少于maximumPoolSize则新建线程，否则交给RejectedExecutionHandler；</li>
+ * <li>超过corePoolSize的线程(allowCoreThreadTimeOut时包括核心线程)空闲keepAliveTime后退出。</li>
+ * </ul>
+ * 运行状态和线程数放在同一个AtomicInteger(ctl)中，高3位是状态，低29位是线程数。
+ * 线程集合和统计由mainLock保护；每个Worker自己是一把不可重入的锁，执行任务时持有，
+ * 中断空闲线程时tryLock成功才中断，不会打断正在执行的任务。
+ * <p>
+ * executeAll一次把一批任务交给队列的offerAll，大量小任务时省去逐个入队的加锁和唤醒。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+public class ThreadPoolExecutor extends AbstractExecutorService {
+
+    private static final int COUNT_BITS = Integer.SIZE - 3;
+
+    private static final int CAPACITY = (1 << COUNT_BITS) - 1;
+
+    /**
+     * 接受新任务并处理队列中的任务
+     */
+    private static final int RUNNING = -1 << COUNT_BITS;
+
+    /**
+     * 不接受新任务，但处理队列中的任务
+     */
+    private static final int SHUTDOWN = 0;
+
+    /**
+     * 不接受新任务，不处理队列中的任务，中断正在执行的任务
+     */
+    private static final int STOP = 1 << COUNT_BITS;
+
+    /**
+     * 所有线程都已退出，正在执行terminated()
+     */
+    private static final int TIDYING = 2 << COUNT_BITS;
+
+    /**
+     * terminated()已经执行完
+     */
+    private static final int TERMINATED = 3 << COUNT_BITS;
+
+    private final AtomicInteger ctl = new AtomicInteger(ctlOf(RUNNING, 0));
+
+    private final BlockingQueue<Runnable> workQueue;
+
+    private final ReentrantLock mainLock = new ReentrantLock();
+
+    /**
+     * 所有的线程，持有mainLock时访问
+     */
+    private final HashSet<Worker> workers = new HashSet<>();
+
+    private final Condition termination = mainLock.newCondition();
+
+    /**
+     * 线程数的历史最大值，持有mainLock时访问
+     */
+    private int largestPoolSize;
+
+    /**
+     * 已经退出的线程完成的任务数，持有mainLock时访问
+     */
+    private long completedTaskCount;
+
+    private volatile ThreadFactory threadFactory;
+
+    private volatile RejectedExecutionHandler handler;
+
+    private volatile long keepAliveTime;
+
+    private volatile boolean allowCoreThreadTimeOut;
+
+    private volatile int corePoolSize;
+
+    private volatile int maximumPoolSize;
+
+    private static final RejectedExecutionHandler DEFAULT_HANDLER = new AbortPolicy();
+
+    private static int runStateOf(int c) {
+        return c & ~CAPACITY;
+    }
+
+    private static int workerCountOf(int c) {
+        return c & CAPACITY;
+    }
+
+    private static int ctlOf(int rs, int wc) {
+        return rs | wc;
+    }
+
+    private static boolean runStateLessThan(int c, int s) {
+        return c < s;
+    }
+
+    private static boolean runStateAtLeast(int c, int s) {
+        return c >= s;
+    }
+
+    private static boolean isRunning(int c) {
+        return c < SHUTDOWN;
+    }
+
+    public ThreadPoolExecutor(int corePoolSize, int maximumPoolSize, long keepAliveTime, TimeUnit unit,
+                              BlockingQueue<Runnable> workQueue) {
+        this(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue,
+                Executors.defaultThreadFactory(), DEFAULT_HANDLER);
+    }
+
+    public ThreadPoolExecutor(int corePoolSize, int maximumPoolSize, long keepAliveTime, TimeUnit unit,
+                              BlockingQueue<Runnable> workQueue, ThreadFactory threadFactory,
+                              RejectedExecutionHandler handler) {
+        if (corePoolSize < 0 || maximumPoolSize <= 0 || maximumPoolSize < corePoolSize || keepAliveTime < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.corePoolSize = corePoolSize;
+        this.maximumPoolSize = maximumPoolSize;
+        this.keepAliveTime = unit.toNanos(keepAliveTime);
+        this.workQueue = Objects.requireNonNull(workQueue);
+        this.threadFactory = Objects.requireNonNull(threadFactory);
+        this.handler = Objects.requireNonNull(handler);
+    }
+
+    /**
+     * 工作线程。自己是一把不可重入的锁：state为1表示正在执行任务，
+     * 初始为-1，线程启动之前不允许被中断。
+     */
+    private final class Worker extends AbstractQueuedSynchronizer implements Runnable {
+
+        final Thread thread;
+
+        Runnable firstTask;
+
+        volatile long completedTasks;
+
+        Worker(Runnable firstTask) {
+            setState(-1);
+            this.firstTask = firstTask;
+            this.thread = threadFactory.newThread(this);
+        }
+
+        @Override
+        public void run() {
+            runWorker(this);
+        }
+
+        @Override
+        protected boolean isHeldExclusively() {
+            return getState() != 0;
+        }
+
+        @Override
+        protected boolean tryAcquire(int unused) {
+            if (compareAndSetState(0, 1)) {
+                setExclusiveOwnerThread(Thread.currentThread());
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        protected boolean tryRelease(int unused) {
+            setExclusiveOwnerThread(null);
+            setState(0);
+            return true;
+        }
+
+        void lock() {
+            acquire(1);
+        }
+
+        boolean tryLock() {
+            return tryAcquire(1);
+        }
+
+        void unlock() {
+            release(1);
+        }
+
+        boolean isLocked() {
+            return isHeldExclusively();
+        }
+
+        void interruptIfStarted() {
+            Thread t;
+            if (getState() >= 0 && (t = thread) != null && !t.isInterrupted()) {
+                try {
+                    t.interrupt();
+                } catch (SecurityException ignore) {
+                    // 没有权限中断，忽略
+                }
+            }
+        }
+    }
+
+    private void advanceRunState(int targetState) {
+        for (; ; ) {
+            int c = ctl.get();
+            if (runStateAtLeast(c, targetState)
+                    || ctl.compareAndSet(c, ctlOf(targetState, workerCountOf(c)))) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * SHUTDOWN且队列为空、或者STOP，并且没有线程时转为TERMINATED；
+     * 还有线程时中断一个空闲线程，让关闭的信号传播下去。
+     */
+    final void tryTerminate() {
+        for (; ; ) {
+            int c = ctl.get();
+            if (isRunning(c)
+                    || runStateAtLeast(c, TIDYING)
+                    || (runStateOf(c) == SHUTDOWN && !workQueue.isEmpty())) {
+                return;
+            }
+            if (workerCountOf(c) != 0) {
+                interruptIdleWorkers(true);
+                return;
+            }
+            final ReentrantLock mainLock = this.mainLock;
+            mainLock.lock();
+            try {
+                if (ctl.compareAndSet(c, ctlOf(TIDYING, 0))) {
+                    try {
+                        terminated();
+                    } finally {
+                        ctl.set(ctlOf(TERMINATED, 0));
+                        termination.signalAll();
+                    }
+                    return;
+                }
+            } finally {
+                mainLock.unlock();
+            }
+            // CAS失败，重试
+        }
+    }
+
+    private void interruptWorkers() {
+        final ReentrantLock mainLock = this.mainLock;
+        mainLock.lock();
+        try {
+            for (Worker w : workers) {
+                w.interruptIfStarted();
+            }
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    /**
+     * 中断等待任务的线程，Worker.tryLock成功说明它没有在执行任务
+     *
+     * @param onlyOne 只中断一个
+     */
+    private void interruptIdleWorkers(boolean onlyOne) {
+        final ReentrantLock mainLock = this.mainLock;
+        mainLock.lock();
+        try {
+            for (Worker w : workers) {
+                Thread t = w.thread;
+                if (!t.isInterrupted() && w.tryLock()) {
+                    try {
+                        t.interrupt();
+                    } catch (SecurityException ignore) {
+                        // 没有权限中断，忽略
+                    } finally {
+                        w.unlock();
+                    }
+                }
+                if (onlyOne) {
+                    break;
+                }
+            }
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    final void reject(Runnable command) {
+        handler.rejectedExecution(command, this);
+    }
+
+    /**
+     * 把队列中剩余的任务移到列表中
+     */
+    private List<Runnable> drainQueue() {
+        List<Runnable> taskList = new ArrayList<>();
+        workQueue.drainTo(taskList);
+        return taskList;
+    }
+
+    /**
+     * 在当前状态和线程数上限允许时新建线程
+     *
+     * @param firstTask 新线程的第一个任务，可以为null
+     * @param core      以corePoolSize还是maximumPoolSize为上限
+     * @return 是否启动了新线程
+     */
+    private boolean addWorker(Runnable firstTask, boolean core) {
+        retry:
+        for (; ; ) {
+            int c = ctl.get();
+            int rs = runStateOf(c);
+            // SHUTDOWN之后只在队列非空时为队列补线程
+            if (rs >= SHUTDOWN && !(rs == SHUTDOWN && firstTask == null && !workQueue.isEmpty())) {
+                return false;
+            }
+            for (; ; ) {
+                int wc = workerCountOf(c);
+                if (wc >= CAPACITY || wc >= (core ? corePoolSize : maximumPoolSize)) {
+                    return false;
+                }
+                if (ctl.compareAndSet(c, c + 1)) {
+                    break retry;
+                }
+                c = ctl.get();
+                if (runStateOf(c) != rs) {
+                    continue retry;
+                }
+            }
+        }
+
+        boolean workerStarted = false;
+        boolean workerAdded = false;
+        Worker w = null;
+        try {
+            w = new Worker(firstTask);
+            final Thread t = w.thread;
+            if (t != null) {
+                final ReentrantLock mainLock = this.mainLock;
+                mainLock.lock();
+                try {
+                    int rs = runStateOf(ctl.get());
+                    if (rs < SHUTDOWN || (rs == SHUTDOWN && firstTask == null)) {
+                        if (t.isAlive()) {
+                            throw new IllegalThreadStateException();
+                        }
+                        workers.add(w);
+                        int s = workers.size();
+                        if (s > largestPoolSize) {
+                            largestPoolSize = s;
+                        }
+                        workerAdded = true;
+                    }
+                } finally {
+                    mainLock.unlock();
+                }
+                if (workerAdded) {
+                    t.start();
+                    workerStarted = true;
+                }
+            }
+        } finally {
+            if (!workerStarted) {
+                addWorkerFailed(w);
+            }
+        }
+        return workerStarted;
+    }
+
+    private void addWorkerFailed(Worker w) {
+        final ReentrantLock mainLock = this.mainLock;
+        mainLock.lock();
+        try {
+            if (w != null) {
+                workers.remove(w);
+            }
+            ctl.decrementAndGet();
+            tryTerminate();
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    /**
+     * 线程退出时的清理
+     *
+     * @param w
+     * @param completedAbruptly 任务抛出异常导致退出，此时线程数还没有减
+     */
+    private void processWorkerExit(Worker w, boolean completedAbruptly) {
+        if (completedAbruptly) {
+            ctl.decrementAndGet();
+        }
+        final ReentrantLock mainLock = this.mainLock;
+        mainLock.lock();
+        try {
+            completedTaskCount += w.completedTasks;
+            workers.remove(w);
+        } finally {
+            mainLock.unlock();
+        }
+
+        tryTerminate();
+
+        int c = ctl.get();
+        if (runStateLessThan(c, STOP)) {
+            if (!completedAbruptly) {
+                int min = allowCoreThreadTimeOut ? 0 : corePoolSize;
+                if (min == 0 && !workQueue.isEmpty()) {
+                    min = 1;
+                }
+                if (workerCountOf(c) >= min) {
+                    return;
+                }
+            }
+            // 异常退出或者线程不够，补一个线程
+            addWorker(null, false);
+        }
+    }
+
+    /**
+     * 从队列中取任务
+     *
+     * @return 返回null时线程退出，此时线程数已经减1
+     */
+    private Runnable getTask() {
+        boolean timedOut = false;
+        for (; ; ) {
+            int c = ctl.get();
+            int rs = runStateOf(c);
+            if (rs >= SHUTDOWN && (rs >= STOP || workQueue.isEmpty())) {
+                ctl.decrementAndGet();
+                return null;
+            }
+
+            int wc = workerCountOf(c);
+            boolean timed = allowCoreThreadTimeOut || wc > corePoolSize;
+            if ((wc > maximumPoolSize || (timed && timedOut))
+                    && (wc > 1 || workQueue.isEmpty())) {
+                if (ctl.compareAndSet(c, c - 1)) {
+                    return null;
+                }
+                continue;
+            }
+
+            try {
+                Runnable r = timed
+                        ? workQueue.poll(keepAliveTime, TimeUnit.NANOSECONDS)
+                        : workQueue.take();
+                if (r != null) {
+                    return r;
+                }
+                timedOut = true;
+            } catch (InterruptedException retry) {
+                timedOut = false;
+            }
+        }
+    }
+
+    final void runWorker(Worker w) {
+        Thread wt = Thread.currentThread();
+        Runnable task = w.firstTask;
+        w.firstTask = null;
+        // 允许中断
+        w.unlock();
+        boolean completedAbruptly = true;
+        try {
+            while (task != null || (task = getTask()) != null) {
+                w.lock();
+                // STOP之后保证线程被中断，否则清除中断状态；清除之后再检查一次，避免与shutdownNow竞争
+                if ((runStateAtLeast(ctl.get(), STOP)
+                        || (Thread.interrupted() && runStateAtLeast(ctl.get(), STOP)))
+                        && !wt.isInterrupted()) {
+                    wt.interrupt();
+                }
+                try {
+                    beforeExecute(wt, task);
+                    Throwable thrown = null;
+                    try {
+                        task.run();
+                    } catch (RuntimeException | Error x) {
+                        thrown = x;
+                        throw x;
+                    } finally {
+                        afterExecute(task, thrown);
+                    }
+                } finally {
+                    task = null;
+                    w.completedTasks++;
+                    w.unlock();
+                }
+            }
+            completedAbruptly = false;
+        } finally {
+            processWorkerExit(w, completedAbruptly);
+        }
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        Objects.requireNonNull(command);
+        int c = ctl.get();
+        if (workerCountOf(c) < corePoolSize) {
+            if (addWorker(command, true)) {
+                return;
+            }
+            c = ctl.get();
+        }
+        if (isRunning(c) && workQueue.offer(command)) {
+            int recheck = ctl.get();
+            if (!isRunning(recheck) && remove(command)) {
+                reject(command);
+            } else if (workerCountOf(recheck) == 0) {
+                addWorker(null, false);
+            }
+        } else if (!addWorker(command, false)) {
+            reject(command);
+        }
+    }
+
+    /**
+     * 批量提交。线程数不足corePoolSize时先逐个交给新线程，
+     * 其余的一次offerAll入队，队列放不下的再逐个按execute的规则处理。
+     *
+     * @param commands
+     */
+    public void executeAll(List<? extends Runnable> commands) {
+        Objects.requireNonNull(commands);
+        int size = commands.size();
+        int i = 0;
+        while (i < size && workerCountOf(ctl.get()) < corePoolSize) {
+            execute(commands.get(i++));
+        }
+        if (i == size) {
+            return;
+        }
+        int c = ctl.get();
+        if (isRunning(c)) {
+            List<? extends Runnable> rest = commands.subList(i, size);
+            for (Runnable command : rest) {
+                Objects.requireNonNull(command);
+            }
+            int offered = workQueue.offerAll(rest);
+            if (offered > 0) {
+                int recheck = ctl.get();
+                if (!isRunning(recheck)) {
+                    for (int k = i; k < i + offered; k++) {
+                        Runnable command = commands.get(k);
+                        if (remove(command)) {
+                            reject(command);
+                        }
+                    }
+                } else if (workerCountOf(recheck) == 0) {
+                    addWorker(null, false);
+                }
+                i += offered;
+            }
+        }
+        while (i < size) {
+            Runnable command = commands.get(i++);
+            if (!addWorker(command, false)) {
+                reject(command);
+            }
+        }
+    }
+
+    /**
+     * 不再接受新任务，已经提交的任务继续执行，不等待它们完成
+     */
+    @Override
+    public void shutdown() {
+        final ReentrantLock mainLock = this.mainLock;
+        mainLock.lock();
+        try {
+            advanceRunState(SHUTDOWN);
+            interruptIdleWorkers(false);
+        } finally {
+            mainLock.unlock();
+        }
+        tryTerminate();
+    }
+
+    /**
+     * 不再接受新任务，中断所有线程，返回队列中还没有执行的任务
+     */
+    @Override
+    public List<Runnable> shutdownNow() {
+        List<Runnable> tasks;
+        final ReentrantLock mainLock = this.mainLock;
+        mainLock.lock();
+        try {
+            advanceRunState(STOP);
+            interruptWorkers();
+            tasks = drainQueue();
+        } finally {
+            mainLock.unlock();
+        }
+        tryTerminate();
+        return tasks;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return !isRunning(ctl.get());
+    }
+
+    public boolean isTerminating() {
+        int c = ctl.get();
+        return !isRunning(c) && runStateLessThan(c, TERMINATED);
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return runStateAtLeast(ctl.get(), TERMINATED);
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock mainLock = this.mainLock;
+        mainLock.lock();
+        try {
+            for (; ; ) {
+                if (runStateAtLeast(ctl.get(), TERMINATED)) {
+                    return true;
+                }
+                if (nanos <= 0L) {
+                    return false;
+                }
+                nanos = termination.awaitNanos(nanos);
+            }
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    public void setThreadFactory(ThreadFactory threadFactory) {
+        this.threadFactory = Objects.requireNonNull(threadFactory);
+    }
+
+    public ThreadFactory getThreadFactory() {
+        return threadFactory;
+    }
+
+    public void setRejectedExecutionHandler(RejectedExecutionHandler handler) {
+        this.handler = Objects.requireNonNull(handler);
+    }
+
+    public RejectedExecutionHandler getRejectedExecutionHandler() {
+        return handler;
+    }
+
+    /**
+     * 调小时多余的线程在下次空闲时退出，调大时如果队列中有任务，立即补足线程
+     *
+     * @param corePoolSize
+     */
+    public void setCorePoolSize(int corePoolSize) {
+        if (corePoolSize < 0 || maximumPoolSize < corePoolSize) {
+            throw new IllegalArgumentException();
+        }
+        int delta = corePoolSize - this.corePoolSize;
+        this.corePoolSize = corePoolSize;
+        if (workerCountOf(ctl.get()) > corePoolSize) {
+            interruptIdleWorkers(false);
+        } else if (delta > 0) {
+            int k = Math.min(delta, workQueue.size());
+            while (k-- > 0 && addWorker(null, true)) {
+                if (workQueue.isEmpty()) {
+                    break;
+                }
+            }
+        }
+    }
+
+    public int getCorePoolSize() {
+        return corePoolSize;
+    }
+
+    /**
+     * 启动所有的核心线程，让它们等待任务
+     *
+     * @return 启动的线程数
+     */
+    public int prestartAllCoreThreads() {
+        int n = 0;
+        while (addWorker(null, true)) {
+            ++n;
+        }
+        return n;
+    }
+
+    public boolean allowsCoreThreadTimeOut() {
+        return allowCoreThreadTimeOut;
+    }
+
+    public void allowCoreThreadTimeOut(boolean value) {
+        if (value && keepAliveTime <= 0) {
+            throw new IllegalArgumentException("Core threads must have nonzero keep alive times");
+        }
+        if (value != allowCoreThreadTimeOut) {
+            allowCoreThreadTimeOut = value;
+            if (value) {
+                interruptIdleWorkers(false);
+            }
+        }
+    }
+
+    public void setMaximumPoolSize(int maximumPoolSize) {
+        if (maximumPoolSize <= 0 || maximumPoolSize < corePoolSize) {
+            throw new IllegalArgumentException();
+        }
+        this.maximumPoolSize = maximumPoolSize;
+        if (workerCountOf(ctl.get()) > maximumPoolSize) {
+            interruptIdleWorkers(false);
+        }
+    }
+
+    public int getMaximumPoolSize() {
+        return maximumPoolSize;
+    }
+
+    public void setKeepAliveTime(long time, TimeUnit unit) {
+        if (time < 0) {
+            throw new IllegalArgumentException();
+        }
+        if (time == 0 && allowsCoreThreadTimeOut()) {
+            throw new IllegalArgumentException("Core threads must have nonzero keep alive times");
+        }
+        long keepAliveTime = unit.toNanos(time);
+        long delta = keepAliveTime - this.keepAliveTime;
+        this.keepAliveTime = keepAliveTime;
+        if (delta < 0) {
+            interruptIdleWorkers(false);
+        }
+    }
+
+    public long getKeepAliveTime(TimeUnit unit) {
+        return unit.convert(keepAliveTime, TimeUnit.NANOSECONDS);
+    }
+
+    public BlockingQueue<Runnable> getQueue() {
+        return workQueue;
+    }
+
+    /**
+     * 从队列中删除还没有开始执行的任务
+     *
+     * @param task
+     * @return 是否删除
+     */
+    public boolean remove(Runnable task) {
+        boolean removed = workQueue.remove(task);
+        // 可能是SHUTDOWN之后的最后一个任务
+        tryTerminate();
+        return removed;
+    }
+
+    public int getPoolSize() {
+        final ReentrantLock mainLock = this.mainLock;
+        mainLock.lock();
+        try {
+            return runStateAtLeast(ctl.get(), TIDYING) ? 0 : workers.size();
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    /**
+     * 正在执行任务的线程数的近似值
+     *
+     * @return
+     */
+    public int getActiveCount() {
+        final ReentrantLock mainLock = this.mainLock;
+        mainLock.lock();
+        try {
+            int n = 0;
+            for (Worker w : workers) {
+                if (w.isLocked()) {
+                    ++n;
+                }
+            }
+            return n;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    public int getLargestPoolSize() {
+        final ReentrantLock mainLock = this.mainLock;
+        mainLock.lock();
+        try {
+            return largestPoolSize;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    /**
+     * 已经完成的任务数的近似值
+     *
+     * @return
+     */
+    public long getCompletedTaskCount() {
+        final ReentrantLock mainLock = this.mainLock;
+        mainLock.lock();
+        try {
+            long n = completedTaskCount;
+            for (Worker w : workers) {
+                n += w.completedTasks;
+            }
+            return n;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    /**
+     * 线程执行任务之前调用，抛出异常时任务不执行，线程退出
+     *
+     * @param t
+     * @param r
+     */
+    protected void beforeExecute(Thread t, Runnable r) {
+    }
+
+    /**
+     * 任务执行之后调用
+     *
+     * @param r
+     * @param t 任务抛出的异常，正常结束为null
+     */
+    protected void afterExecute(Runnable r, Throwable t) {
+    }
+
+    /**
+     * 线程池终止时调用
+     */
+    protected void terminated() {
+    }
+
+    /**
+     * 拒绝时在调用者的线程上执行任务，已经关闭时丢弃
+     */
+    public static class CallerRunsPolicy implements RejectedExecutionHandler {
+
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor e) {
+            if (!e.isShutdown()) {
+                r.run();
+            }
+        }
+    }
+
+    /**
+     * 拒绝时抛出RejectedExecutionException，默认策略
+     */
+    public static class AbortPolicy implements RejectedExecutionHandler {
+
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor e) {
+            throw new RejectedExecutionException("Task " + r + " rejected from " + e);
+        }
+    }
+
+    /**
+     * 拒绝时直接丢弃
+     */
+    public static class DiscardPolicy implements RejectedExecutionHandler {
+
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor e) {
+        }
+    }
+
+    /**
+     * 拒绝时丢弃队首最老的任务再重新提交，已经关闭时丢弃
+     */
+    public static class DiscardOldestPolicy implements RejectedExecutionHandler {
+
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor e) {
+            if (!e.isShutdown()) {
+                e.getQueue().poll();
+                e.execute(r);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        long ncompleted;
+        int nworkers;
+        int nactive;
+        final ReentrantLock mainLock = this.mainLock;
+        mainLock.lock();
+        try {
+            ncompleted = completedTaskCount;
+            nactive = 0;
+            nworkers = workers.size();
+            for (Worker w : workers) {
+                ncompleted += w.completedTasks;
+                if (w.isLocked()) {
+                    ++nactive;
+                }
+            }
+        } finally {
+            mainLock.unlock();
+        }
+        int c = ctl.get();
+        String runState = runStateLessThan(c, SHUTDOWN) ? "Running"
+                : runStateAtLeast(c, TERMINATED) ? "Terminated" : "Shutting down";
+        return super.toString() + "[" + runState + ", pool size = " + nworkers
+                + ", active threads = " + nactive + ", queued tasks = " + workQueue.size()
+                + ", completed tasks = " + ncompleted + "]";
+    }
+}
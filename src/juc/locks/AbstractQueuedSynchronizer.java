@@ -1,10 +1,9 @@
 package juc.locks;
 
-import sun.misc.Unsafe;
-
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.Date;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.LockSupport;
 
 /**
@@ -18,11 +17,18 @@ import java.util.concurrent.locks.LockSupport;
  * @author hui.zhong
  * @date 2020/8/30
  */
-public abstract class AbstractQueuedSynchronizer extends AbstractOwnableSynchronizer {
+public abstract class AbstractQueuedSynchronizer extends AbstractQueuedSynchronizerTail {
 
     protected AbstractQueuedSynchronizer() {
+        this(false);
     }
 
+    /**
+     * @param recycleNodes 是否复用等待节点，只有从不使用共享模式的同步器才能开启，见NODE_RECYCLING
+     */
+    protected AbstractQueuedSynchronizer(boolean recycleNodes) {
+        this.recycleNodes = recycleNodes;
+    }
 
     /**
      * 等待队列节点类。
@@ -75,6 +81,11 @@ public abstract class AbstractQueuedSynchronizer extends AbstractOwnableSynchron
          */
         Node nextWaiter;
 
+        /**
+         * 异步获取的节点没有线程，由释放者通过它代为推进，获取成功或取消后清空
+         */
+        AsyncAcquire async;
+
         /**
          * 如果节点在共享模式下等待，则返回true。
          *
@@ -104,22 +115,103 @@ public abstract class AbstractQueuedSynchronizer extends AbstractOwnableSynchron
         Node() {
         }
 
+        /*
+         * 节点通过CAS tail发布，构造时不需要volatile写
+         */
         Node(Thread thread, Node mode) {
             this.nextWaiter = mode;
-            this.thread = thread;
+            THREAD.set(this, thread);
+        }
+
+        /**
+         * 复用节点时重新初始化，与构造一样由CAS tail发布
+         *
+         * @param thread
+         * @param mode
+         */
+        void reuse(Thread thread, Node mode) {
+            this.nextWaiter = mode;
+            this.async = null;
+            WAIT_STATUS.set(this, 0);
+            PREV.set(this, null);
+            NEXT.set(this, null);
+            THREAD.set(this, thread);
         }
 
         Node(Thread thread, int waitStatus) {
-            this.waitStatus = waitStatus;
-            this.thread = thread;
+            WAIT_STATUS.set(this, waitStatus);
+            THREAD.set(this, thread);
         }
     }
 
-    private volatile Node head;
+    /*
+     * head、state在AbstractQueuedSynchronizerHead中，tail在AbstractQueuedSynchronizerTail中，
+     * 这里的填充把tail与子类的字段隔开。
+     */
+    long p16, p17, p18, p19, p20, p21, p22, p23;
+    long p24, p25, p26, p27, p28, p29, p30, p31;
+
+    /**
+     * 竞争统计，只在LockStats.ENABLED时由子类在构造期间设置，发布之后不再修改
+     */
+    LockStats stats;
+
+    /**
+     * 是否复用等待节点
+     */
+    private final boolean recycleNodes;
+
+    /**
+     * 正在执行cancelAcquire的线程数，只在复用节点时维护
+     */
+    private volatile int cancelling;
+
+    /**
+     * 以-Djuc.locks.recycleNodes=true启动时，纯独占模式的锁复用等待节点，竞争时入队不再分配对象。
+     * <p>
+     * 节点的归属：获取成功的线程把自己的节点设为head后，被替换下来的旧head不再属于队列，
+     * 由这个线程放进自己的SPARE_NODE，下次入队时重新初始化使用。每个节点同一时间只有一个归属者。
+     * <p>
+     * 旧head离开队列后，其他线程可能还持有它的引用，复用后会看到新一轮的字段(ABA)：
+     * <ul>
+     * <li>release读到旧head后在unparkSuccessor中使用它。复用模式下unparkSuccessor不清除head的SIGNAL，
+     * 对旧head只有读操作，最多多唤醒一个线程；旧head被替换说明release之后已经有线程获取成功，
+     * 唤醒后继的责任由那个线程的release承担，不会丢失唤醒。</li>
+     * <li>cancelAcquire的前驱可能正是旧head，它会CAS前驱的waitStatus和next。
+     * 取消期间cancelling不为0，此时不回收旧head，交给GC；
+     * 而在取消开始之前，被取消的节点挡在前面，它的后继不可能获取成功，旧head也就不会被替换。</li>
+     * <li>hasQueuedPredecessors等只读的查询可能读到复用后的next，结果不准确，
+     * 只影响公平性的判断，不影响互斥。</li>
+     * </ul>
+     * 共享模式的doReleaseShared依赖CAS head的waitStatus传播唤醒，无法容忍ABA，因此不支持复用。
+     */
+    static final boolean NODE_RECYCLING = Boolean.getBoolean("juc.locks.recycleNodes");
+
+    /**
+     * 每个线程缓存一个可复用的节点，在所有开启复用的同步器之间共享
+     */
+    private static final ThreadLocal<Node> SPARE_NODE = new ThreadLocal<>();
+
+    private static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 自旋次数的上限，单核机器上自旋没有意义
+     */
+    static final int MAX_SPINS = NCPU > 1 ? 2048 : 0;
+
+    /**
+     * 自旋次数的下限，保证自旋次数减到最小后还能因为成功而回升
+     */
+    static final int MIN_SPINS = NCPU > 1 ? 16 : 0;
+
+    /**
+     * 限时获取中剩余时间低于该值时自旋而不是parkNanos
+     */
+    static final long SPIN_FOR_TIMEOUT_THRESHOLD = 1000L;
 
-    private volatile Node tail;
+    static final int SPIN_BONUS = 64;
 
-    private volatile int state;
+    static final int SPIN_PENALTY = 128;
 
     public int getState() {
         return state;
@@ -130,7 +222,7 @@ public abstract class AbstractQueuedSynchronizer extends AbstractOwnableSynchron
     }
 
     protected final boolean compareAndSetState(int expect, int update) {
-        return unsafe.compareAndSwapInt(this, stateOffset, expect, update);
+        return STATE.compareAndSet(this, expect, update);
     }
 
     /**
@@ -148,9 +240,9 @@ public abstract class AbstractQueuedSynchronizer extends AbstractOwnableSynchron
                     tail = head;
                 }
             } else {
-                node.prev = t;
+                PREV.set(node, t);
                 if (compareAndSetTail(t, node)) {
-                    t.next = node;
+                    NEXT.setRelease(t, node);
                     return t;
                 }
             }
@@ -164,13 +256,17 @@ public abstract class AbstractQueuedSynchronizer extends AbstractOwnableSynchron
      * @return
      */
     private Node addWaiter(Node mode) {
-        Node node = new Node(Thread.currentThread(), mode);
+        return enqueue(newNode(mode));
+    }
 
+    private Node enqueue(Node node) {
         Node pred = tail;
         if (pred != null) {
-            node.prev = pred;
+            // prev在CAS tail之前设置，由CAS发布，不需要volatile写
+            PREV.set(node, pred);
             if (compareAndSetTail(pred, node)) {
-                pred.next = node;
+                // next只是优化，读到null的一方会退回到prev，release写即可
+                NEXT.setRelease(pred, node);
                 return node;
             }
         }
@@ -178,6 +274,42 @@ public abstract class AbstractQueuedSynchronizer extends AbstractOwnableSynchron
         return node;
     }
 
+    /**
+     * 创建入队用的节点，复用模式下优先使用当前线程缓存的节点
+     *
+     * @param mode
+     * @return
+     */
+    private Node newNode(Node mode) {
+        if (recycleNodes) {
+            if (mode == Node.SHARED) {
+                throw new UnsupportedOperationException("Node recycling does not support shared mode");
+            }
+            Node node = SPARE_NODE.get();
+            if (node != null) {
+                SPARE_NODE.set(null);
+                node.reuse(Thread.currentThread(), mode);
+                return node;
+            }
+        }
+        return new Node(Thread.currentThread(), mode);
+    }
+
+    /**
+     * 获取成功的线程把被替换下来的旧head交给这里。
+     * 复用模式下如果没有正在进行的取消，把它缓存给当前线程，否则只断开next交给GC。
+     *
+     * @param p 旧head
+     */
+    private void retireHead(Node p) {
+        if (recycleNodes && cancelling == 0) {
+            SPARE_NODE.set(p);
+        } else {
+            // help GC
+            NEXT.set(p, null);
+        }
+    }
+
     /**
      * 以排他的不间断模式获取已在队列中的线程。
      * 用于条件等待方法以及获取。
@@ -193,10 +325,11 @@ public abstract class AbstractQueuedSynchronizer extends AbstractOwnableSynchron
             // 一直循环等待获取锁
             for (; ; ) {
                 final Node p = node.predecessor();
-                if (p == head && tryAcquire(arg)) {
+                // 排在第一位时先自旋一会儿，持有时间短的锁可以省去一次park/unpark
+                if (p == head && (tryAcquire(arg) || spinForAcquire(arg))) {
                     setHead(node);
-                    // node已经给head了，help GC
-                    p.next = null;
+                    // node已经给head了，旧head可以回收
+                    retireHead(p);
                     failed = false;
                     return interrupted;
                 }
@@ -213,231 +346,1380 @@ public abstract class AbstractQueuedSynchronizer extends AbstractOwnableSynchron
     }
 
     public final void acquire(int arg) {
-        // 阻塞获取锁失败则以独占模式入队，并死循环获取锁
-        if (!tryAcquire(arg)
-                && acquireQueued(addWaiter(Node.EXCLUSIVE), arg)) {
+        if (tryAcquire(arg)) {
+            fastPathAcquired();
+            return;
+        }
+        // 获取锁失败则以独占模式入队，并死循环获取锁
+        long start = queuedStart();
+        if (acquireQueued(addWaiter(Node.EXCLUSIVE), arg)) {
             selfInterrupt();
         }
+        queuedAcquired(start);
     }
 
-    static void selfInterrupt() {
-        Thread.currentThread().interrupt();
-    }
-
-    protected abstract boolean parkAndCheckInterrupt();
-
-    protected abstract boolean shouldParkAfterFailedAcquire(Node p, Node node);
-
-    protected abstract void cancelAcquire(Node node);
-
-    protected boolean tryAcquire(int arg) {
-        throw new UnsupportedOperationException();
+    /**
+     * 以独占模式获取，被中断则中止并抛出InterruptedException。
+     *
+     * @param arg
+     * @throws InterruptedException
+     */
+    public final void acquireInterruptibly(int arg) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        if (tryAcquire(arg)) {
+            fastPathAcquired();
+            return;
+        }
+        long start = queuedStart();
+        doAcquireInterruptibly(arg);
+        queuedAcquired(start);
     }
 
-    private void setHead(Node node) {
-        head = node;
-        node.thread = null;
-        node.prev = null;
+    /**
+     * 以独占模式尝试获取，被中断或超时则中止。
+     *
+     * @param arg
+     * @param nanosTimeout 最长等待的纳秒数
+     * @return 获取成功返回true，超时返回false
+     * @throws InterruptedException
+     */
+    public final boolean tryAcquireNanos(int arg, long nanosTimeout) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        if (tryAcquire(arg)) {
+            fastPathAcquired();
+            return true;
+        }
+        long start = queuedStart();
+        if (doAcquireNanos(arg, nanosTimeout)) {
+            queuedAcquired(start);
+            return true;
+        }
+        return false;
     }
 
     /**
-     * 头尾相等且(头的下一个为空或不为当前)-->开头正在处理(head 为虚拟节点，不存放线程)
+     * 不绑定线程的独占获取，由acquireAsync使用，成功后持有者不是任何线程。
+     * 只在队列为空或节点排在队首时调用，不需要考虑公平性。
      *
+     * @param arg
      * @return
      */
-    public final boolean hasQueuedPredecessors() {
-        Node t = tail;
-        Node h = head;
-        Node s;
-        return h != t && ((s = h.next) == null || s.thread != Thread.currentThread());
-    }
-
-    protected boolean tryRelease(int arg) {
+    protected boolean tryAcquireDetached(int arg) {
         throw new UnsupportedOperationException();
     }
 
-    public final boolean release(int arg) {
-        if (tryRelease(arg)) {
-            Node h = head;
-            if (h != null
-                    && h.waitStatus != 0) {
-                unparkSuccessor(h);
-            }
-            return true;
-        }
-        return false;
-    }
-
-    private void unparkSuccessor(Node node) {
-        int ws = node.waitStatus;
-        if (ws < 0) {
-            compareAndSetWaitStatus(node, ws, 0);
-        }
-        Node s = node.next;
-        if (s == null || s.waitStatus > 0) {
-            s = null;
-            for (Node t = tail; t != null && t != node; t = t.prev) {
-                if (t.waitStatus <= 0) {
-                    s = t;
-                }
-            }
-        }
-        if (s != null) {
-            LockSupport.unpark(s.thread);
+    /**
+     * 以独占模式异步获取，调用线程不阻塞。
+     * 队列为空时立即尝试获取；否则入队一个没有线程的节点，之后由释放者在unparkSuccessor中
+     * 代替park/unpark推进它，获取成功或取消后在推进的线程上回调，回调应当很快返回。
+     *
+     * @param arg
+     * @param onAcquired  获取成功的回调
+     * @param onCancelled 取消后的回调
+     * @return 可用于取消的句柄
+     */
+    public final AsyncAcquire acquireAsync(int arg, Runnable onAcquired, Runnable onCancelled) {
+        AsyncAcquire async = new AsyncAcquire(arg, onAcquired, onCancelled);
+        if (!hasQueuedThreads() && tryAcquireDetached(arg)) {
+            async.finished = true;
+            onAcquired.run();
+            return async;
         }
+        Node node = new Node(null, Node.EXCLUSIVE);
+        node.async = async;
+        async.node = node;
+        enqueue(node);
+        // 第一次推进：设置前驱的SIGNAL，或者锁已经空闲时直接获取
+        async.wake();
+        return async;
     }
 
-    public class ConditionObject implements Condition {
-
-        private Node firstWaiter;
+    /**
+     * 异步获取的等待者。
+     * 同一时间只能有一个线程推进节点，runState代替了线程的park许可：
+     * 推进期间再被唤醒时置为RERUN，推进的线程结束前会再检查一次，唤醒不会丢失。
+     */
+    public final class AsyncAcquire {
 
-        private Node lastWaiter;
+        private static final int IDLE = 0;
+        private static final int RUNNING = 1;
+        private static final int RERUN = 2;
 
-        public ConditionObject() {
-        }
+        private final int arg;
 
-        /**
-         * 创建新的CONDITION状态节点，加入条件队列队尾，并返回该节点；
-         *
-         * @return
-         */
-        private Node addConditionWaiter() {
-            Node t = lastWaiter;
-            x
-            if (t != null && t.waitStatus != Node.CONDITION) {
-                unlinkCancelledWaiters();
-                t = lastWaiter;
-            }
-            Node node = new Node(Thread.currentThread(), Node.CONDITION);
-            if (t == null) {
-                firstWaiter = node;
-            } else {
-                t.nextWaiter = node;
-            }
-            lastWaiter = node;
-            return node;
-        }
+        private final Runnable onAcquired;
 
-        @Override
-        public void await() throws InterruptedException {
-            if (Thread.interrupted()) {
-                throw new InterruptedException();
-            }
-            Node node = addConditionWaiter();
-            int savedState = fullyRelease(node);
-            int interruptMode = 0;
-            while (!isOnSyncQueue(node)) {
+        private final Runnable onCancelled;
 
-            }
-        }
+        private volatile int runState;
 
-        @Override
-        public void awaitUninterruptibly() {
+        private volatile boolean cancelled;
 
-        }
+        /**
+         * 只在推进期间读写，由runState的CAS保证可见性
+         */
+        private boolean finished;
 
-        @Override
-        public long awaitNanos(long nanosTimeout) throws InterruptedException {
-            return 0;
-        }
+        private Node node;
 
-        @Override
-        public boolean await(long time, TimeUnit unit) throws InterruptedException {
-            return false;
+        AsyncAcquire(int arg, Runnable onAcquired, Runnable onCancelled) {
+            this.arg = arg;
+            this.onAcquired = onAcquired;
+            this.onCancelled = onCancelled;
         }
 
-        @Override
-        public boolean awaitUntil(Date deadline) throws InterruptedException {
-            return false;
+        /**
+         * 请求取消，还没有获取成功时从队列中摘除并回调onCancelled
+         */
+        public void cancel() {
+            cancelled = true;
+            wake();
         }
 
-        @Override
-        public void signal() {
-
+        void wake() {
+            for (; ; ) {
+                int s = runState;
+                if (s == RERUN) {
+                    return;
+                }
+                if (s == RUNNING) {
+                    if (RUN_STATE.compareAndSet(this, RUNNING, RERUN)) {
+                        return;
+                    }
+                } else if (RUN_STATE.compareAndSet(this, IDLE, RUNNING)) {
+                    run();
+                    return;
+                }
+            }
         }
 
-        @Override
-        public void signalAll() {
-
+        private void run() {
+            for (; ; ) {
+                if (finished || step()) {
+                    // 保持RUNNING，之后的唤醒直接返回
+                    return;
+                }
+                if (RUN_STATE.compareAndSet(this, RUNNING, IDLE)) {
+                    return;
+                }
+                runState = RUNNING;
+            }
         }
 
         /**
-         * 清除掉条件队列中所有被取消的节点；
+         * 相当于acquireQueued的一次循环，返回false表示需要等待下一次唤醒
          */
-        private void unlinkCancelledWaiters() {
-            Node t = firstWaiter;
-            Node trail = null;
-            while (t != null) {
-                Node next = t.nextWaiter;
-                if (t.waitStatus != Node.CONDITION) {
-                    t.nextWaiter = null;
-                    if (trail == null) {
-                        firstWaiter = next;
-                    } else {
-                        trail.nextWaiter = next;
-                    }
-                    if (next == null) {
-                        lastWaiter = trail;
-                    }
-                } else {
-                    trail = t;
+        private boolean step() {
+            for (; ; ) {
+                Node p = node.predecessor();
+                if (p == head && tryAcquireDetached(arg)) {
+                    setHead(node);
+                    retireHead(p);
+                    node.async = null;
+                    finished = true;
+                    onAcquired.run();
+                    return true;
+                }
+                if (cancelled) {
+                    cancelAcquire(node);
+                    node.async = null;
+                    finished = true;
+                    onCancelled.run();
+                    return true;
+                }
+                if (shouldParkAfterFailedAcquire(p, node)) {
+                    return false;
                 }
-                t = next;
             }
         }
     }
 
-    final int fullyRelease(Node node) {
+    private void doAcquireInterruptibly(int arg) throws InterruptedException {
+        final Node node = addWaiter(Node.EXCLUSIVE);
         boolean failed = true;
         try {
-            int savedState = getState();
-            if (release(savedState)) {
-                failed = false;
-                return savedState;
-            } else {
-                throw new IllegalMonitorStateException();
+            for (; ; ) {
+                final Node p = node.predecessor();
+                if (p == head && (tryAcquire(arg) || spinForAcquire(arg))) {
+                    setHead(node);
+                    retireHead(p);
+                    failed = false;
+                    return;
+                }
+                if (shouldParkAfterFailedAcquire(p, node)
+                        && parkAndCheckInterrupt()) {
+                    throw new InterruptedException();
+                }
             }
         } finally {
             if (failed) {
-                node.waitStatus = Node.CANCELLED;
+                cancelAcquire(node);
             }
         }
     }
 
-
-    private final boolean compareAndSetHead(Node update) {
-        // head 为null才可以设置
-        return unsafe.compareAndSwapObject(this, headOffset, null, update);
-    }
-
-    private final boolean compareAndSetTail(Node expect, Node update) {
-        return unsafe.compareAndSwapObject(this, tailOffset, expect, update);
-    }
-
-    private static final boolean compareAndSetWaitStatus(Node node, int expect, int update) {
-        return unsafe.compareAndSwapInt(node, waitStatusOffset,
-                expect, update);
+    /**
+     * 以独占的限时模式获取。
+     * 以绝对的截止时间计算剩余时间，剩余时间小于SPIN_FOR_TIMEOUT_THRESHOLD时自旋，
+     * 因为此时parkNanos本身的开销和定时器精度已经比剩余时间还大。
+     * 开启TimerWheel时，剩余时间足够长的等待登记到时间轮后不限时park，由时间轮线程到期唤醒。
+     *
+     * @param arg
+     * @param nanosTimeout
+     * @return
+     * @throws InterruptedException
+     */
+    private boolean doAcquireNanos(int arg, long nanosTimeout) throws InterruptedException {
+        if (nanosTimeout <= 0L) {
+            return false;
+        }
+        final long deadline = System.nanoTime() + nanosTimeout;
+        final Node node = addWaiter(Node.EXCLUSIVE);
+        boolean failed = true;
+        TimerWheel.Timeout timeout = null;
+        try {
+            for (; ; ) {
+                final Node p = node.predecessor();
+                if (p == head && tryAcquire(arg)) {
+                    setHead(node);
+                    retireHead(p);
+                    failed = false;
+                    return true;
+                }
+                nanosTimeout = deadline - System.nanoTime();
+                if (nanosTimeout <= 0L) {
+                    return false;
+                }
+                if (shouldParkAfterFailedAcquire(p, node)) {
+                    if (TimerWheel.covers(nanosTimeout)) {
+                        parked();
+                        timeout = TimerWheel.park(this, timeout, deadline);
+                    } else if (nanosTimeout > SPIN_FOR_TIMEOUT_THRESHOLD) {
+                        parked();
+                        LockSupport.parkNanos(this, nanosTimeout);
+                    } else {
+                        VirtualThreads.onSpinWait();
+                    }
+                }
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        } finally {
+            TimerWheel.cancel(timeout);
+            if (failed) {
+                cancelAcquire(node);
+            }
+        }
+    }
+
+    static void selfInterrupt() {
+        Thread.currentThread().interrupt();
+    }
+
+    /**
+     * 阻塞当前线程，被唤醒后返回并清除中断状态。
+     *
+     * @return 是否被中断
+     */
+    protected boolean parkAndCheckInterrupt() {
+        parked();
+        LockSupport.park(this);
+        return Thread.interrupted();
+    }
+
+    /**
+     * 获取失败后检查并更新节点状态，返回线程是否应该阻塞。
+     * 前驱为SIGNAL时可以安全阻塞；前驱已取消则跳过所有取消的前驱；
+     * 否则把前驱设为SIGNAL，调用方再重试一次后才阻塞。
+     *
+     * @param pred 前驱节点
+     * @param node 当前节点
+     * @return
+     */
+    protected boolean shouldParkAfterFailedAcquire(Node pred, Node node) {
+        int ws = pred.waitStatus;
+        if (ws == Node.SIGNAL) {
+            // 前驱释放时会唤醒当前节点，可以安全阻塞
+            return true;
+        }
+        if (ws > 0) {
+            // 前驱已取消，跳过并重试
+            do {
+                node.prev = pred = pred.prev;
+            } while (pred.waitStatus > 0);
+            pred.next = node;
+        } else {
+            // waitStatus为0或PROPAGATE，需要信号但先不阻塞，调用方重试确认无法获取再阻塞
+            compareAndSetWaitStatus(pred, ws, Node.SIGNAL);
+        }
+        return false;
+    }
+
+    /**
+     * 以下几个方法记录竞争统计。LockStats.ENABLED是static final常量，
+     * 未开启时JIT会把整个方法体连同stats字段的读取一起消除，快速路径不受任何影响。
+     */
+    private void fastPathAcquired() {
+        if (LockStats.ENABLED && stats != null) {
+            stats.fastPathAcquired();
+        }
+    }
+
+    private long queuedStart() {
+        return LockStats.ENABLED && stats != null ? System.nanoTime() : 0L;
+    }
+
+    private void queuedAcquired(long start) {
+        if (LockStats.ENABLED && stats != null) {
+            stats.queuedAcquired(System.nanoTime() - start);
+        }
+    }
+
+    private void parked() {
+        if (LockStats.ENABLED && stats != null) {
+            stats.parked();
+        }
+    }
+
+    /**
+     * 排在队首时的自旋等待，类似HotSpot的自适应自旋：
+     * 自旋期间拿到锁说明最近的持有时间短，增加下次的自旋次数；
+     * 否则说明持有时间长，减少自旋次数，避免白白消耗CPU。
+     * 虚拟线程不在载体线程上自旋，只让出一次载体线程后再试一次，也不影响自旋次数的学习。
+     *
+     * @param arg
+     * @return 是否在自旋期间获取成功
+     */
+    private boolean spinForAcquire(int arg) {
+        if (VirtualThreads.isVirtual()) {
+            Thread.yield();
+            return tryAcquire(arg);
+        }
+        int budget = spinDuration;
+        for (int i = 0; i < budget; i++) {
+            Thread.onSpinWait();
+            if (tryAcquire(arg)) {
+                spinSucceeded(budget);
+                return true;
+            }
+        }
+        spinFailed(budget);
+        return false;
+    }
+
+    /**
+     * 共享模式的自旋等待，同spinForAcquire
+     *
+     * @param arg
+     * @return tryAcquireShared的结果
+     */
+    private int spinForAcquireShared(int arg) {
+        if (VirtualThreads.isVirtual()) {
+            Thread.yield();
+            return tryAcquireShared(arg);
+        }
+        int budget = spinDuration;
+        for (int i = 0; i < budget; i++) {
+            Thread.onSpinWait();
+            int r = tryAcquireShared(arg);
+            if (r >= 0) {
+                spinSucceeded(budget);
+                return r;
+            }
+        }
+        spinFailed(budget);
+        return -1;
+    }
+
+    private void spinSucceeded(int budget) {
+        spinDuration = Math.min(MAX_SPINS, budget + SPIN_BONUS);
+    }
+
+    private void spinFailed(int budget) {
+        spinDuration = Math.max(MIN_SPINS, budget - SPIN_PENALTY);
+    }
+
+    /**
+     * 取消正在进行的获取，O(1)地把节点从队列中摘除。
+     * 跳过已取消的前驱后：节点是tail则直接CAS回退tail；
+     * 前驱不是head且会发出信号，则把前驱的next直接指向后继；
+     * 否则唤醒后继，由后继在shouldParkAfterFailedAcquire中修正prev。
+     *
+     * @param node
+     */
+    protected void cancelAcquire(Node node) {
+        if (node == null) {
+            return;
+        }
+        if (!recycleNodes) {
+            doCancelAcquire(node);
+            return;
+        }
+        // 取消期间前驱可能是即将被替换的head，阻止它被复用
+        CANCELLING.getAndAdd(this, 1);
+        try {
+            doCancelAcquire(node);
+        } finally {
+            CANCELLING.getAndAdd(this, -1);
+        }
+    }
+
+    private void doCancelAcquire(Node node) {
+        THREAD.set(node, null);
+
+        // 跳过已取消的前驱
+        Node pred = node.prev;
+        while (pred.waitStatus > 0) {
+            node.prev = pred = pred.prev;
+        }
+        // predNext是需要摘除的节点，下面的CAS失败说明被其他取消或唤醒抢先了，不需要再处理
+        Node predNext = pred.next;
+
+        // 这里可以用普通写代替CAS，设置之后其他节点可以跳过当前节点
+        WAIT_STATUS.setRelease(node, Node.CANCELLED);
+
+        if (node == tail && compareAndSetTail(node, pred)) {
+            compareAndSetNext(pred, predNext, null);
+        } else {
+            int ws;
+            if (pred != head
+                    && ((ws = pred.waitStatus) == Node.SIGNAL
+                    || (ws <= 0 && compareAndSetWaitStatus(pred, ws, Node.SIGNAL)))
+                    && pred.thread != null) {
+                Node next = node.next;
+                if (next != null && next.waitStatus <= 0) {
+                    compareAndSetNext(pred, predNext, next);
+                }
+            } else {
+                unparkSuccessor(node);
+            }
+            // 指向自己，help GC，同时让unparkSuccessor的向后查找知道此处的next已失效
+            NEXT.setRelease(node, node);
+        }
+    }
+
+    protected boolean tryAcquire(int arg) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * 只有获取成功的线程会调用，thread和prev只是help GC，普通写即可，省去两次volatile写的屏障
+     *
+     * @param node
+     */
+    private void setHead(Node node) {
+        head = node;
+        THREAD.set(node, null);
+        PREV.set(node, null);
+    }
+
+    /**
+     * 是否有线程在排队等待，head与tail不相等说明队列中有节点。
+     *
+     * @return
+     */
+    public final boolean hasQueuedThreads() {
+        return head != tail;
+    }
+
+    /**
+     * 队列中等待的线程数的估计值，需要遍历队列，只用于监控。
+     *
+     * @return
+     */
+    public final int getQueueLength() {
+        int n = 0;
+        // 只用于监控，opaque读即可
+        for (Node p = tail; p != null; p = (Node) PREV.getOpaque(p)) {
+            if (THREAD.getOpaque(p) != null || p.async != null) {
+                ++n;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * 头尾相等且(头的下一个为空或不为当前)-->开头正在处理(head 为虚拟节点，不存放线程)
+     *
+     * @return
+     */
+    public final boolean hasQueuedPredecessors() {
+        Node t = tail;
+        Node h = head;
+        Node s;
+        return h != t && ((s = h.next) == null || s.thread != Thread.currentThread());
+    }
+
+    /**
+     * 队列中第一个未取消的等待线程，没有时返回null；第一个等待者是异步获取时也返回null，因为它没有线程。
+     *
+     * @return
+     */
+    public final Thread getFirstQueuedThread() {
+        Node first = firstQueuedNode();
+        return first == null ? null : first.thread;
+    }
+
+    /**
+     * 队列中第一个未取消的节点，没有时返回null。
+     * head.next通常就是答案，next还没设置或已取消时从tail向前扫描。
+     *
+     * @return
+     */
+    final Node firstQueuedNode() {
+        Node h = head;
+        Node s;
+        if (h == null || h == tail) {
+            return null;
+        }
+        if ((s = h.next) != null && s.prev == h && s.waitStatus <= 0
+                && (s.thread != null || s.async != null)) {
+            return s;
+        }
+        Node first = null;
+        for (Node p = tail; p != null && p != head; p = p.prev) {
+            if (p.waitStatus <= 0 && (p.thread != null || p.async != null)) {
+                first = p;
+            }
+        }
+        return first;
+    }
+
+    protected boolean tryRelease(int arg) {
+        throw new UnsupportedOperationException();
+    }
+
+    public final boolean release(int arg) {
+        if (tryRelease(arg)) {
+            Node h = head;
+            if (h != null
+                    && h.waitStatus != 0) {
+                unparkSuccessor(h);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private void unparkSuccessor(Node node) {
+        int ws = node.waitStatus;
+        // 复用模式下node可能已经被复用，不能修改它的状态，保留SIGNAL只会多一次unpark
+        if (ws < 0 && !recycleNodes) {
+            compareAndSetWaitStatus(node, ws, 0);
+        }
+        Node s = node.next;
+        if (s == null || s.waitStatus > 0) {
+            s = findSuccessor(node);
+        }
+        if (s != null) {
+            AsyncAcquire async = s.async;
+            if (async != null) {
+                async.wake();
+            } else {
+                LockSupport.unpark(s.thread);
+            }
+        }
+    }
+
+    /**
+     * 查找node之后第一个未取消的节点。
+     * cancelAcquire会把前驱的next直接指向后继，所以先沿next向后查找，通常几步就能找到；
+     * 遇到next为null(入队还没设置next)或指向自己(已取消)时，next不可靠，
+     * 才退回到从tail沿prev向前的完整扫描。
+     *
+     * @param node
+     * @return
+     */
+    private Node findSuccessor(Node node) {
+        for (Node p = node.next; p != null; ) {
+            if (p.waitStatus <= 0) {
+                return p;
+            }
+            Node next = p.next;
+            if (next == p) {
+                break;
+            }
+            p = next;
+        }
+        Node s = null;
+        for (Node t = tail; t != null && t != node; t = t.prev) {
+            if (t.waitStatus <= 0) {
+                s = t;
+            }
+        }
+        return s;
+    }
+
+    /**
+     * 共享模式下的释放动作：唤醒后继并保证传播。
+     * 独占模式下release只需在head需要信号时调用unparkSuccessor，
+     * 共享模式下如果head的状态为0，则置为PROPAGATE，保证释放发生后传播仍然继续。
+     * 循环是为了防止在操作过程中有新节点加入，CAS失败时重新检查。
+     */
+    private void doReleaseShared() {
+        for (; ; ) {
+            Node h = head;
+            if (h != null && h != tail) {
+                int ws = h.waitStatus;
+                if (ws == Node.SIGNAL) {
+                    if (!compareAndSetWaitStatus(h, Node.SIGNAL, 0)) {
+                        // 重新检查
+                        continue;
+                    }
+                    unparkSuccessor(h);
+                } else if (ws == 0
+                        && !compareAndSetWaitStatus(h, 0, Node.PROPAGATE)) {
+                    // CAS失败则重试
+                    continue;
+                }
+            }
+            // head变化了说明有其他线程获取成功，需要继续唤醒
+            if (h == head) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * 设置队列头，检查后继是否在共享模式下等待，
+     * 如果是，并且propagate > 0或者设置了PROPAGATE状态，则继续传播。
+     *
+     * @param node
+     * @param propagate tryAcquireShared的返回值
+     */
+    private void setHeadAndPropagate(Node node, int propagate) {
+        // 记录旧的head用于下面的检查
+        Node h = head;
+        setHead(node);
+        /*
+         * 以下情况尝试唤醒下一个排队节点：
+         * 调用方指示传播(propagate > 0)，
+         * 或者之前的操作记录了传播(h.waitStatus，在setHead之前或之后)。
+         * 注意waitStatus使用符号检查，因为PROPAGATE可能转换为SIGNAL。
+         * 这两个检查比较保守，可能导致不必要的唤醒，但只在有多个竞争的获取/释放时出现。
+         */
+        if (propagate > 0 || h == null || h.waitStatus < 0
+                || (h = head) == null || h.waitStatus < 0) {
+            Node s = node.next;
+            if (s == null || s.isShared()) {
+                doReleaseShared();
+            }
+        }
+    }
+
+    /**
+     * 以共享的不间断模式获取。
+     *
+     * @param arg
+     */
+    private void doAcquireShared(int arg) {
+        final Node node = addWaiter(Node.SHARED);
+        boolean failed = true;
+        try {
+            boolean interrupted = false;
+            for (; ; ) {
+                final Node p = node.predecessor();
+                if (p == head) {
+                    int r = tryAcquireShared(arg);
+                    if (r < 0) {
+                        r = spinForAcquireShared(arg);
+                    }
+                    if (r >= 0) {
+                        setHeadAndPropagate(node, r);
+                        // help GC
+                        NEXT.set(p, null);
+                        if (interrupted) {
+                            selfInterrupt();
+                        }
+                        failed = false;
+                        return;
+                    }
+                }
+                if (shouldParkAfterFailedAcquire(p, node)
+                        && parkAndCheckInterrupt()) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (failed) {
+                cancelAcquire(node);
+            }
+        }
+    }
+
+    /**
+     * 尝试以共享模式获取。
+     * 返回负数表示失败；0表示成功，但后续的共享获取不会成功；
+     * 正数表示成功，并且后续的共享获取也可能成功，需要传播唤醒。
+     *
+     * @param arg
+     * @return
+     */
+    protected int tryAcquireShared(int arg) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * 尝试设置状态来反映共享模式下的释放。
+     *
+     * @param arg
+     * @return 如果此次释放可能允许等待的获取(共享或独占)成功，返回true
+     */
+    protected boolean tryReleaseShared(int arg) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * 同步是否被当前线程独占持有，只在ConditionObject中使用。
+     *
+     * @return
+     */
+    protected boolean isHeldExclusively() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * 以共享模式获取，忽略中断。
+     * 先调用一次tryAcquireShared，失败则入队，阻塞直到成功。
+     *
+     * @param arg
+     */
+    public final void acquireShared(int arg) {
+        if (tryAcquireShared(arg) >= 0) {
+            fastPathAcquired();
+            return;
+        }
+        long start = queuedStart();
+        doAcquireShared(arg);
+        queuedAcquired(start);
+    }
+
+    /**
+     * 以共享模式获取，被中断则中止并抛出InterruptedException。
+     *
+     * @param arg
+     * @throws InterruptedException
+     */
+    public final void acquireSharedInterruptibly(int arg) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        if (tryAcquireShared(arg) >= 0) {
+            fastPathAcquired();
+            return;
+        }
+        long start = queuedStart();
+        doAcquireSharedInterruptibly(arg);
+        queuedAcquired(start);
+    }
+
+    /**
+     * 以共享模式尝试获取，被中断或超时则中止。
+     *
+     * @param arg
+     * @param nanosTimeout 最长等待的纳秒数
+     * @return 获取成功返回true，超时返回false
+     * @throws InterruptedException
+     */
+    public final boolean tryAcquireSharedNanos(int arg, long nanosTimeout) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        if (tryAcquireShared(arg) >= 0) {
+            fastPathAcquired();
+            return true;
+        }
+        long start = queuedStart();
+        if (doAcquireSharedNanos(arg, nanosTimeout)) {
+            queuedAcquired(start);
+            return true;
+        }
+        return false;
+    }
+
+    private void doAcquireSharedInterruptibly(int arg) throws InterruptedException {
+        final Node node = addWaiter(Node.SHARED);
+        boolean failed = true;
+        try {
+            for (; ; ) {
+                final Node p = node.predecessor();
+                if (p == head) {
+                    int r = tryAcquireShared(arg);
+                    if (r < 0) {
+                        r = spinForAcquireShared(arg);
+                    }
+                    if (r >= 0) {
+                        setHeadAndPropagate(node, r);
+                        // help GC
+                        NEXT.set(p, null);
+                        failed = false;
+                        return;
+                    }
+                }
+                if (shouldParkAfterFailedAcquire(p, node)
+                        && parkAndCheckInterrupt()) {
+                    throw new InterruptedException();
+                }
+            }
+        } finally {
+            if (failed) {
+                cancelAcquire(node);
+            }
+        }
+    }
+
+    /**
+     * 以共享的限时模式获取，同doAcquireNanos。
+     *
+     * @param arg
+     * @param nanosTimeout
+     * @return
+     * @throws InterruptedException
+     */
+    private boolean doAcquireSharedNanos(int arg, long nanosTimeout) throws InterruptedException {
+        if (nanosTimeout <= 0L) {
+            return false;
+        }
+        final long deadline = System.nanoTime() + nanosTimeout;
+        final Node node = addWaiter(Node.SHARED);
+        boolean failed = true;
+        TimerWheel.Timeout timeout = null;
+        try {
+            for (; ; ) {
+                final Node p = node.predecessor();
+                if (p == head) {
+                    int r = tryAcquireShared(arg);
+                    if (r >= 0) {
+                        setHeadAndPropagate(node, r);
+                        // help GC
+                        NEXT.set(p, null);
+                        failed = false;
+                        return true;
+                    }
+                }
+                nanosTimeout = deadline - System.nanoTime();
+                if (nanosTimeout <= 0L) {
+                    return false;
+                }
+                if (shouldParkAfterFailedAcquire(p, node)) {
+                    if (TimerWheel.covers(nanosTimeout)) {
+                        parked();
+                        timeout = TimerWheel.park(this, timeout, deadline);
+                    } else if (nanosTimeout > SPIN_FOR_TIMEOUT_THRESHOLD) {
+                        parked();
+                        LockSupport.parkNanos(this, nanosTimeout);
+                    } else {
+                        VirtualThreads.onSpinWait();
+                    }
+                }
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        } finally {
+            TimerWheel.cancel(timeout);
+            if (failed) {
+                cancelAcquire(node);
+            }
+        }
+    }
+
+    /**
+     * 以共享模式释放，tryReleaseShared返回true时唤醒一个或多个线程。
+     *
+     * @param arg
+     * @return
+     */
+    public final boolean releaseShared(int arg) {
+        if (tryReleaseShared(arg)) {
+            doReleaseShared();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 如果第一个排队的线程(如果存在)以独占模式等待，返回true。
+     * 读写锁的非公平实现用它来避免写线程饥饿。
+     *
+     * @return
+     */
+    final boolean apparentlyFirstQueuedIsExclusive() {
+        Node h;
+        Node s;
+        return (h = head) != null
+                && (s = h.next) != null
+                && !s.isShared()
+                && s.thread != null;
+    }
+
+    /**
+     * 条件队列，只在持有独占锁时访问，所以条件队列本身不需要CAS。
+     * 被signal的节点转移到同步队列后，等待线程并不会立即被唤醒，
+     * 而是在同步队列中排队，直到signal的线程释放锁时才由unparkSuccessor唤醒，
+     * 避免等待线程醒来发现锁仍被signal线程持有，又再阻塞一次。
+     */
+    public class ConditionObject implements Condition {
+
+        private Node firstWaiter;
+
+        private Node lastWaiter;
+
+        /**
+         * 退出等待时重新设置中断状态
+         */
+        private static final int REINTERRUPT = 1;
+
+        /**
+         * 退出等待时抛出InterruptedException
+         */
+        private static final int THROW_IE = -1;
+
+        public ConditionObject() {
+        }
+
+        /**
+         * 创建新的CONDITION状态节点，加入条件队列队尾，并返回该节点；
+         *
+         * @return
+         */
+        private Node addConditionWaiter() {
+            Node t = lastWaiter;
+            if (t != null && t.waitStatus != Node.CONDITION) {
+                unlinkCancelledWaiters();
+                t = lastWaiter;
+            }
+            Node node = new Node(Thread.currentThread(), Node.CONDITION);
+            if (t == null) {
+                firstWaiter = node;
+            } else {
+                t.nextWaiter = node;
+            }
+            lastWaiter = node;
+            return node;
+        }
+
+        /**
+         * 从头开始转移，直到转移成功一个未取消的节点或者条件队列为空。
+         *
+         * @param first
+         */
+        private void doSignal(Node first) {
+            do {
+                if ((firstWaiter = first.nextWaiter) == null) {
+                    lastWaiter = null;
+                }
+                first.nextWaiter = null;
+            } while (!transferForSignal(first)
+                    && (first = firstWaiter) != null);
+        }
+
+        /**
+         * 整个条件队列一次性摘下，串成一段后拼接到同步队列。
+         *
+         * @param first
+         */
+        private void doSignalAll(Node first) {
+            lastWaiter = firstWaiter = null;
+            transferAllForSignal(first);
+        }
+
+        @Override
+        public void await() throws InterruptedException {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            Node node = addConditionWaiter();
+            int savedState = fullyRelease(node);
+            int interruptMode = 0;
+            while (!isOnSyncQueue(node)) {
+                LockSupport.park(this);
+                if ((interruptMode = checkInterruptWhileWaiting(node)) != 0) {
+                    break;
+                }
+            }
+            if (acquireQueued(node, savedState) && interruptMode != THROW_IE) {
+                interruptMode = REINTERRUPT;
+            }
+            // 被取消的节点需要清理
+            if (node.nextWaiter != null) {
+                unlinkCancelledWaiters();
+            }
+            if (interruptMode != 0) {
+                reportInterruptAfterWait(interruptMode);
+            }
+        }
+
+        @Override
+        public void awaitUninterruptibly() {
+            Node node = addConditionWaiter();
+            int savedState = fullyRelease(node);
+            boolean interrupted = false;
+            while (!isOnSyncQueue(node)) {
+                LockSupport.park(this);
+                if (Thread.interrupted()) {
+                    interrupted = true;
+                }
+            }
+            if (acquireQueued(node, savedState) || interrupted) {
+                selfInterrupt();
+            }
+        }
+
+        @Override
+        public long awaitNanos(long nanosTimeout) throws InterruptedException {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            Node node = addConditionWaiter();
+            int savedState = fullyRelease(node);
+            final long deadline = System.nanoTime() + nanosTimeout;
+            int interruptMode = 0;
+            TimerWheel.Timeout timeout = null;
+            while (!isOnSyncQueue(node)) {
+                if (nanosTimeout <= 0L) {
+                    transferAfterCancelledWait(node);
+                    break;
+                }
+                if (TimerWheel.covers(nanosTimeout)) {
+                    timeout = TimerWheel.park(this, timeout, deadline);
+                } else if (nanosTimeout > SPIN_FOR_TIMEOUT_THRESHOLD) {
+                    LockSupport.parkNanos(this, nanosTimeout);
+                } else {
+                    VirtualThreads.onSpinWait();
+                }
+                if ((interruptMode = checkInterruptWhileWaiting(node)) != 0) {
+                    break;
+                }
+                nanosTimeout = deadline - System.nanoTime();
+            }
+            TimerWheel.cancel(timeout);
+            if (acquireQueued(node, savedState) && interruptMode != THROW_IE) {
+                interruptMode = REINTERRUPT;
+            }
+            if (node.nextWaiter != null) {
+                unlinkCancelledWaiters();
+            }
+            if (interruptMode != 0) {
+                reportInterruptAfterWait(interruptMode);
+            }
+            return deadline - System.nanoTime();
+        }
+
+        @Override
+        public boolean await(long time, TimeUnit unit) throws InterruptedException {
+            return awaitNanos(unit.toNanos(time)) > 0L;
+        }
+
+        @Override
+        public boolean awaitUntil(Date deadline) throws InterruptedException {
+            long abstime = deadline.getTime();
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            Node node = addConditionWaiter();
+            int savedState = fullyRelease(node);
+            boolean timedout = false;
+            int interruptMode = 0;
+            TimerWheel.Timeout timeout = null;
+            while (!isOnSyncQueue(node)) {
+                long remaining = abstime - System.currentTimeMillis();
+                if (remaining < 0L) {
+                    timedout = transferAfterCancelledWait(node);
+                    break;
+                }
+                long nanos = TimeUnit.MILLISECONDS.toNanos(remaining);
+                if (TimerWheel.covers(nanos)) {
+                    // 时间轮按nanoTime计时，墙上时间被调整时醒来后重新登记
+                    timeout = TimerWheel.park(this, timeout, System.nanoTime() + nanos);
+                } else {
+                    LockSupport.parkUntil(this, abstime);
+                }
+                if ((interruptMode = checkInterruptWhileWaiting(node)) != 0) {
+                    break;
+                }
+            }
+            TimerWheel.cancel(timeout);
+            if (acquireQueued(node, savedState) && interruptMode != THROW_IE) {
+                interruptMode = REINTERRUPT;
+            }
+            if (node.nextWaiter != null) {
+                unlinkCancelledWaiters();
+            }
+            if (interruptMode != 0) {
+                reportInterruptAfterWait(interruptMode);
+            }
+            return !timedout;
+        }
+
+        @Override
+        public void signal() {
+            if (!isHeldExclusively()) {
+                throw new IllegalMonitorStateException();
+            }
+            Node first = firstWaiter;
+            if (first != null) {
+                doSignal(first);
+            }
+        }
+
+        @Override
+        public void signalAll() {
+            if (!isHeldExclusively()) {
+                throw new IllegalMonitorStateException();
+            }
+            Node first = firstWaiter;
+            if (first != null) {
+                doSignalAll(first);
+            }
+        }
+
+        /**
+         * 检查中断，在signal之前被中断返回THROW_IE，之后返回REINTERRUPT，没有中断返回0
+         *
+         * @param node
+         * @return
+         */
+        private int checkInterruptWhileWaiting(Node node) {
+            return Thread.interrupted()
+                    ? (transferAfterCancelledWait(node) ? THROW_IE : REINTERRUPT)
+                    : 0;
+        }
+
+        private void reportInterruptAfterWait(int interruptMode) throws InterruptedException {
+            if (interruptMode == THROW_IE) {
+                throw new InterruptedException();
+            } else if (interruptMode == REINTERRUPT) {
+                selfInterrupt();
+            }
+        }
+
+        /**
+         * 清除掉条件队列中所有被取消的节点；
+         */
+        private void unlinkCancelledWaiters() {
+            Node t = firstWaiter;
+            Node trail = null;
+            while (t != null) {
+                Node next = t.nextWaiter;
+                if (t.waitStatus != Node.CONDITION) {
+                    t.nextWaiter = null;
+                    if (trail == null) {
+                        firstWaiter = next;
+                    } else {
+                        trail.nextWaiter = next;
+                    }
+                    if (next == null) {
+                        lastWaiter = trail;
+                    }
+                } else {
+                    trail = t;
+                }
+                t = next;
+            }
+        }
+    }
+
+    /**
+     * 节点(最初在条件队列中)是否已经在同步队列中等待重新获取。
+     *
+     * @param node
+     * @return
+     */
+    final boolean isOnSyncQueue(Node node) {
+        if (node.waitStatus == Node.CONDITION || node.prev == null) {
+            return false;
+        }
+        // 有后继一定在队列中
+        if (node.next != null) {
+            return true;
+        }
+        // prev不为null也可能还不在队列中，因为入队的CAS可能失败，从tail向前确认
+        return findNodeFromTail(node);
+    }
+
+    private boolean findNodeFromTail(Node node) {
+        Node t = tail;
+        for (; ; ) {
+            if (t == node) {
+                return true;
+            }
+            if (t == null) {
+                return false;
+            }
+            t = t.prev;
+        }
+    }
+
+    /**
+     * 把节点从条件队列转移到同步队列。
+     * 只有在前驱已取消或者无法把前驱设为SIGNAL时才直接唤醒等待线程，
+     * 正常情况下等待线程由前驱释放锁时唤醒。
+     *
+     * @param node
+     * @return 转移成功返回true，节点在signal之前已经取消返回false
+     */
+    final boolean transferForSignal(Node node) {
+        if (!compareAndSetWaitStatus(node, Node.CONDITION, 0)) {
+            return false;
+        }
+        Node p = enq(node);
+        int ws = p.waitStatus;
+        if (ws > 0 || !compareAndSetWaitStatus(p, ws, Node.SIGNAL)) {
+            LockSupport.unpark(node.thread);
+        }
+        return true;
+    }
+
+    /**
+     * 把整个条件队列转移到同步队列，只对tail做一次CAS。
+     * 先把未取消的节点用prev串成一段，段内除最后一个节点外都预先设为SIGNAL，
+     * 因为它们的后继都在阻塞等待；整段挂到tail之后再从后往前补上next。
+     * 补next之前，段内节点的isOnSyncQueue会走findNodeFromTail，结果仍然正确。
+     *
+     * @param first 条件队列的第一个节点
+     */
+    final void transferAllForSignal(Node first) {
+        Node chainHead = null;
+        Node chainTail = null;
+        for (Node n = first; n != null; ) {
+            Node next = n.nextWaiter;
+            n.nextWaiter = null;
+            // CAS失败说明等待线程已经超时或中断，自己入队了
+            if (compareAndSetWaitStatus(n, Node.CONDITION, 0)) {
+                if (chainTail == null) {
+                    chainHead = n;
+                } else {
+                    // 整段由CAS tail发布，普通写即可
+                    PREV.set(n, chainTail);
+                    WAIT_STATUS.set(chainTail, Node.SIGNAL);
+                }
+                chainTail = n;
+            }
+            n = next;
+        }
+        if (chainHead == null) {
+            return;
+        }
+        Node p = enqAll(chainHead, chainTail);
+        for (Node n = chainTail; n != chainHead; n = n.prev) {
+            NEXT.setRelease(n.prev, n);
+        }
+        int ws = p.waitStatus;
+        if (ws > 0 || !compareAndSetWaitStatus(p, ws, Node.SIGNAL)) {
+            LockSupport.unpark(chainHead.thread);
+        }
+    }
+
+    /**
+     * 把first到last之间已经用prev链好的一段节点插入队列，必要时进行初始化。
+     *
+     * @param first
+     * @param last
+     * @return 原来的tail，即first的前驱
+     */
+    private Node enqAll(Node first, Node last) {
+        for (; ; ) {
+            Node t = tail;
+            if (t == null) {
+                if (compareAndSetHead(new Node())) {
+                    tail = head;
+                }
+            } else {
+                PREV.set(first, t);
+                if (compareAndSetTail(t, last)) {
+                    NEXT.setRelease(t, first);
+                    return t;
+                }
+            }
+        }
+    }
+
+    /**
+     * 等待超时或被中断后，把节点转移到同步队列。
+     *
+     * @param node
+     * @return 在signal之前取消返回true
+     */
+    final boolean transferAfterCancelledWait(Node node) {
+        if (compareAndSetWaitStatus(node, Node.CONDITION, 0)) {
+            enq(node);
+            return true;
+        }
+        // signal已经开始转移，等待转移完成。取消与转移同时发生很少见，短暂自旋即可
+        while (!isOnSyncQueue(node)) {
+            Thread.yield();
+        }
+        return false;
+    }
+
+    final int fullyRelease(Node node) {
+        boolean failed = true;
+        try {
+            int savedState = getState();
+            if (release(savedState)) {
+                failed = false;
+                return savedState;
+            } else {
+                throw new IllegalMonitorStateException();
+            }
+        } finally {
+            if (failed) {
+                node.waitStatus = Node.CANCELLED;
+            }
+        }
+    }
+
+
+    private final boolean compareAndSetHead(Node update) {
+        // head 为null才可以设置
+        return HEAD.compareAndSet(this, null, update);
+    }
+
+    private final boolean compareAndSetTail(Node expect, Node update) {
+        return TAIL.compareAndSet(this, expect, update);
+    }
+
+    private static final boolean compareAndSetWaitStatus(Node node, int expect, int update) {
+        return WAIT_STATUS.compareAndSet(node, expect, update);
+    }
+
+    private static final boolean compareAndSetNext(Node node, Node expect, Node update) {
+        return NEXT.compareAndSet(node, expect, update);
     }
 
     /**
-     * native unsafe
+     * VarHandle，CAS使用完整的volatile语义，其余按需要使用普通、opaque或release模式
      */
-    private static final Unsafe unsafe = Unsafe.getUnsafe();
-    private static final long stateOffset;
-    private static final long headOffset;
-    private static final long tailOffset;
-    private static final long waitStatusOffset;
-    private static final long nextOffset;
+    private static final VarHandle STATE;
+    private static final VarHandle HEAD;
+    private static final VarHandle TAIL;
+    private static final VarHandle CANCELLING;
+    private static final VarHandle RUN_STATE;
+    static final VarHandle WAIT_STATUS;
+    static final VarHandle NEXT;
+    static final VarHandle PREV;
+    static final VarHandle THREAD;
 
     static {
         try {
-            stateOffset = unsafe.objectFieldOffset(AbstractQueuedSynchronizer.class.getDeclaredField("state"));
-            headOffset = unsafe.objectFieldOffset(AbstractQueuedSynchronizer.class.getDeclaredField("head"));
-            tailOffset = unsafe.objectFieldOffset(AbstractQueuedSynchronizer.class.getDeclaredField("tail"));
-            waitStatusOffset = unsafe.objectFieldOffset(AbstractQueuedSynchronizer.class.getDeclaredField("waitStatus"));
-            nextOffset = unsafe.objectFieldOffset(AbstractQueuedSynchronizer.class.getDeclaredField("next"));
-        } catch (Exception exception) {
-            throw new Error(exception);
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            STATE = l.findVarHandle(AbstractQueuedSynchronizerHead.class, "state", int.class);
+            HEAD = l.findVarHandle(AbstractQueuedSynchronizerHead.class, "head", Node.class);
+            TAIL = l.findVarHandle(AbstractQueuedSynchronizerTail.class, "tail", Node.class);
+            CANCELLING = l.findVarHandle(AbstractQueuedSynchronizer.class, "cancelling", int.class);
+            RUN_STATE = l.findVarHandle(AsyncAcquire.class, "runState", int.class);
+            WAIT_STATUS = l.findVarHandle(Node.class, "waitStatus", int.class);
+            NEXT = l.findVarHandle(Node.class, "next", Node.class);
+            PREV = l.findVarHandle(Node.class, "prev", Node.class);
+            THREAD = l.findVarHandle(Node.class, "thread", Thread.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
         }
     }
 }
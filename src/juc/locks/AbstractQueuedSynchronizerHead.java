@@ -0,0 +1,19 @@
+package juc.locks;
+
+/**
+ * AQS中持有者一侧的热点字段：head和state。
+ * 获取成功的线程写head，持有和释放锁的线程读写state，两者与exclusiveOwnerThread放在同一个缓存行。
+ * 入队线程写的tail放在子类AbstractQueuedSynchronizerTail中，前后都有填充，
+ * 排队线程CAS tail不会让持有者所在的缓存行失效。
+ * <p>
+ * 字段只由AbstractQueuedSynchronizer通过VarHandle访问，子类不应直接使用。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+abstract class AbstractQueuedSynchronizerHead extends AbstractOwnableSynchronizer {
+
+    volatile AbstractQueuedSynchronizer.Node head;
+
+    volatile int state;
+}
@@ -0,0 +1,24 @@
+package juc.locks;
+
+/**
+ * AQS中入队一侧的热点字段：tail，以及排队线程自旋后更新的spinDuration。
+ * 子类中的字段排在父类之后，同一个类中long排在引用和int之前，
+ * 所以前面的填充把tail与head/state隔开，AbstractQueuedSynchronizer开头的填充再把它与后面的字段隔开。
+ * 每段填充128字节，覆盖相邻缓存行预取的范围。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+abstract class AbstractQueuedSynchronizerTail extends AbstractQueuedSynchronizerHead {
+
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p08, p09, p10, p11, p12, p13, p14, p15;
+
+    volatile AbstractQueuedSynchronizer.Node tail;
+
+    /**
+     * 排队线程在阻塞前的自旋次数，随自旋的成败自适应调整。
+     * 只是一个提示值，不需要volatile，多线程并发写丢失更新也无妨。
+     */
+    int spinDuration = AbstractQueuedSynchronizer.MAX_SPINS >>> 2;
+}
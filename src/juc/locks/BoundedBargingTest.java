@@ -0,0 +1,138 @@
+package juc.locks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 有界插队模式的压力测试：插队窗口很短，队首的等待者几乎每次都会进入饥饿状态，释放时频繁交接。
+ * 线程混用lock、lockInterruptibly、限时tryLock并随机重入，另有线程随机中断它们。
+ * 检查互斥、每次获取后的持有计数、加锁和解锁的次数相等，结束后锁空闲且队列为空；
+ * 有线程在限定时间内没有结束视为锁被遗留，输出锁的状态后失败。
+ * 自旋阶段只在多核上开启，单核机器上用-XX:ActiveProcessorCount=4运行才能覆盖自旋中的交接。
+ * 用法：java juc.locks.BoundedBargingTest [线程数] [秒数] [插队窗口微秒]
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+public class BoundedBargingTest {
+
+    private static long counter;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        long window = args.length > 2 ? Long.parseLong(args[2]) : 20;
+
+        ReentrantLock lock = ReentrantLock.boundedBarging(window, TimeUnit.MICROSECONDS);
+        AtomicReference<Thread> inside = new AtomicReference<>();
+        AtomicReference<String> failure = new AtomicReference<>();
+        LongAdder locks = new LongAdder();
+        LongAdder unlocks = new LongAdder();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                Thread current = Thread.currentThread();
+                while (System.nanoTime() < deadline && failure.get() == null) {
+                    try {
+                        if (!acquire(lock, random)) {
+                            continue;
+                        }
+                    } catch (InterruptedException e) {
+                        continue;
+                    }
+                    locks.increment();
+                    int depth = 1;
+                    try {
+                        if (lock.getHoldCount() != 1) {
+                            failure.compareAndSet(null, "hold count " + lock.getHoldCount() + " after first acquire");
+                        }
+                        if (!inside.compareAndSet(null, current)) {
+                            failure.compareAndSet(null, "mutual exclusion violated");
+                        }
+                        for (int r = random.nextInt(3); r > 0; r--) {
+                            lock.lock();
+                            locks.increment();
+                            depth++;
+                        }
+                        if (lock.getHoldCount() != depth) {
+                            failure.compareAndSet(null, "hold count " + lock.getHoldCount() + " != " + depth);
+                        }
+                        counter++;
+                        for (int k = random.nextInt(64); k > 0; k--) {
+                            Thread.onSpinWait();
+                        }
+                        inside.set(null);
+                    } finally {
+                        for (; depth > 0; depth--) {
+                            lock.unlock();
+                            unlocks.increment();
+                        }
+                    }
+                }
+                // 清除中断线程可能留下的中断状态
+                Thread.interrupted();
+            });
+        }
+        Thread interrupter = new Thread(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (System.nanoTime() < deadline) {
+                workers[random.nextInt(workers.length)].interrupt();
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        interrupter.setDaemon(true);
+
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        interrupter.start();
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(seconds + 10));
+            if (worker.isAlive()) {
+                failure.compareAndSet(null, "worker did not finish, locked=" + lock.isLocked()
+                        + " queueLength=" + lock.getQueueLength());
+                break;
+            }
+        }
+
+        if (failure.get() == null) {
+            if (locks.sum() != unlocks.sum()) {
+                failure.set("locks " + locks.sum() + " != unlocks " + unlocks.sum());
+            } else if (lock.isLocked() || lock.getQueueLength() != 0) {
+                failure.set("lock not free at the end, locked=" + lock.isLocked()
+                        + " queueLength=" + lock.getQueueLength());
+            } else if (!lock.tryLock(1, TimeUnit.SECONDS)) {
+                failure.set("final tryLock failed");
+            }
+        }
+        System.out.printf("threads=%d locks=%,d unlocks=%,d critical sections=%,d%n",
+                threads, locks.sum(), unlocks.sum(), counter);
+        if (failure.get() != null) {
+            System.out.println("FAILED: " + failure.get());
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    private static boolean acquire(ReentrantLock lock, ThreadLocalRandom random) throws InterruptedException {
+        switch (random.nextInt(3)) {
+            case 0:
+                lock.lock();
+                return true;
+            case 1:
+                lock.lockInterruptibly();
+                return true;
+            default:
+                return lock.tryLock(random.nextInt(200), TimeUnit.MICROSECONDS);
+        }
+    }
+}
@@ -0,0 +1,420 @@
+package juc.locks;
+
+import java.io.File;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntSupplier;
+
+/**
+ * NUMA感知的cohort锁：每个簇(一般是一个CPU插槽)一个MCS本地队列，簇之间竞争一把全局锁。
+ * <p>
+ * 本地队列的队首拿到全局锁后，释放时如果本簇还有线程在排队，直接把锁连同全局锁交给本簇的后继，
+ * 锁和它保护的数据一直留在同一个插槽的缓存里，不必每次释放都跨插槽传递。
+ * 连续在簇内传递maxBatch次后必须释放全局锁，全局锁是公平的，其他簇的队首按FIFO获取，饥饿是有界的。
+ * <p>
+ * 全局锁必须与线程无关：获取它的线程和释放它的线程可能不是同一个，所以用一个没有持有者的AQS实现。
+ * 超时和中断的线程不从MCS队列中摘除，只把节点标记为ABANDONED，释放者传递时跳过这些节点。
+ * <p>
+ * Java无法查询线程当前运行在哪个插槽上，默认按线程id把线程固定到一个簇，
+ * 需要准确的插槽时应当绑定线程亲和性，并通过构造方法传入查询当前簇的函数。
+ * 锁不可重入，不支持Condition。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+public class CohortLock implements Lock {
+
+    /**
+     * 默认的簇内连续传递次数上限
+     */
+    public static final int DEFAULT_MAX_BATCH = 64;
+
+    private static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 等待前驱传递时park之前的自旋次数，单核机器上不自旋
+     */
+    private static final int SPINS = NCPU > 1 ? 1 << 10 : 0;
+
+    /**
+     * QNode.state：等待前驱传递
+     */
+    static final int WAITING = 0;
+
+    /**
+     * QNode.state：前驱连同全局锁一起传递，直接成为持有者
+     */
+    static final int LOCAL_PASS = 1;
+
+    /**
+     * QNode.state：成为本地队首，还需要自己获取全局锁
+     */
+    static final int ACQUIRE_GLOBAL = 2;
+
+    /**
+     * QNode.state：等待超时或被中断，释放者跳过该节点
+     */
+    static final int ABANDONED = 3;
+
+    private final GlobalSync global = new GlobalSync();
+
+    private final Cluster[] clusters;
+
+    private final IntSupplier clusterOf;
+
+    private final int maxBatch;
+
+    /**
+     * 当前持有者的节点，只由持有者读写
+     */
+    private QNode owner;
+
+    /**
+     * 簇数取/sys/devices/system/node下的NUMA节点数，按线程id分簇
+     */
+    public CohortLock() {
+        this(numaNodes(), null, DEFAULT_MAX_BATCH);
+    }
+
+    /**
+     * @param clusters  簇数
+     * @param clusterOf 返回当前线程所在的簇，取值会对clusters取模；为null时按线程id分簇
+     * @param maxBatch  簇内连续传递次数的上限
+     */
+    public CohortLock(int clusters, IntSupplier clusterOf, int maxBatch) {
+        if (clusters <= 0 || maxBatch < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.clusters = new Cluster[clusters];
+        for (int i = 0; i < clusters; i++) {
+            this.clusters[i] = new Cluster();
+        }
+        this.clusterOf = clusterOf;
+        this.maxBatch = maxBatch;
+    }
+
+    /**
+     * 全局锁，公平且与线程无关，排队的最多是每个簇的队首
+     */
+    static final class GlobalSync extends AbstractQueuedSynchronizer {
+
+        @Override
+        protected boolean tryAcquire(int acquires) {
+            return getState() == 0 && !hasQueuedPredecessors() && compareAndSetState(0, 1);
+        }
+
+        @Override
+        protected boolean tryRelease(int releases) {
+            setState(0);
+            return true;
+        }
+
+        boolean tryBarge() {
+            return getState() == 0 && compareAndSetState(0, 1);
+        }
+    }
+
+    /**
+     * MCS队列的节点，每次获取新建一个，放弃的节点还留在队列中，不能复用
+     */
+    static final class QNode {
+
+        final Thread thread;
+
+        final Cluster cluster;
+
+        volatile int state;
+
+        volatile QNode next;
+
+        QNode(Thread thread, Cluster cluster) {
+            this.thread = thread;
+            this.cluster = cluster;
+        }
+
+        boolean casState(int expect, int update) {
+            return STATE.compareAndSet(this, expect, update);
+        }
+    }
+
+    /**
+     * 父类的填充字段排在子类字段之前，把相邻两个簇的tail隔开
+     */
+    static class ClusterPad {
+        long p0, p1, p2, p3, p4, p5, p6, p7;
+    }
+
+    static final class Cluster extends ClusterPad {
+
+        volatile QNode tail;
+
+        /**
+         * 本次持有全局锁期间已经在簇内连续传递的次数，只由持有者读写
+         */
+        int batch;
+
+        QNode getAndSetTail(QNode node) {
+            return (QNode) TAIL.getAndSet(this, node);
+        }
+
+        boolean casTail(QNode expect, QNode update) {
+            return TAIL.compareAndSet(this, expect, update);
+        }
+    }
+
+    private Cluster cluster() {
+        int i;
+        if (clusterOf != null) {
+            i = clusterOf.getAsInt();
+        } else {
+            long id = Thread.currentThread().getId();
+            i = (int) ((id * 0x9E3779B97F4A7C15L) >>> 32);
+        }
+        return clusters[Math.floorMod(i, clusters.length)];
+    }
+
+    @Override
+    public void lock() {
+        try {
+            acquire(false, false, 0L);
+        } catch (InterruptedException e) {
+            // 不可中断的获取不会抛出
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        acquire(true, false, 0L);
+    }
+
+    /**
+     * 本簇没有线程排队且全局锁空闲时立即获取，不论公平与否
+     *
+     * @return
+     */
+    @Override
+    public boolean tryLock() {
+        Cluster c = cluster();
+        if (c.tail != null) {
+            return false;
+        }
+        QNode node = new QNode(Thread.currentThread(), c);
+        if (!c.casTail(null, node)) {
+            return false;
+        }
+        if (global.tryBarge()) {
+            owner = node;
+            return true;
+        }
+        passLocal(c, node, ACQUIRE_GLOBAL);
+        return false;
+    }
+
+    @Override
+    public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        return acquire(true, true, System.nanoTime() + unit.toNanos(time));
+    }
+
+    /**
+     * 先在本簇的MCS队列中排到队首，再按需获取全局锁
+     *
+     * @param interruptible
+     * @param timed
+     * @param deadline
+     * @return 超时返回false
+     * @throws InterruptedException
+     */
+    private boolean acquire(boolean interruptible, boolean timed, long deadline) throws InterruptedException {
+        Cluster c = cluster();
+        QNode node = new QNode(Thread.currentThread(), c);
+        QNode pred = c.getAndSetTail(node);
+        int s = ACQUIRE_GLOBAL;
+        if (pred != null) {
+            pred.next = node;
+            s = awaitGrant(node, interruptible, timed, deadline);
+            if (s == ABANDONED) {
+                return false;
+            }
+        }
+        if (s == ACQUIRE_GLOBAL) {
+            boolean acquired;
+            try {
+                if (!interruptible) {
+                    global.acquire(1);
+                    acquired = true;
+                } else if (!timed) {
+                    global.acquireInterruptibly(1);
+                    acquired = true;
+                } else {
+                    acquired = global.tryAcquireNanos(1, deadline - System.nanoTime());
+                }
+            } catch (InterruptedException e) {
+                passLocal(c, node, ACQUIRE_GLOBAL);
+                throw e;
+            }
+            if (!acquired) {
+                // 让出本地队首，后继自己去获取全局锁
+                passLocal(c, node, ACQUIRE_GLOBAL);
+                return false;
+            }
+        }
+        owner = node;
+        return true;
+    }
+
+    /**
+     * 等待前驱传递，先自旋再park
+     *
+     * @return 传递的状态，超时返回ABANDONED
+     * @throws InterruptedException 可中断时被中断并成功放弃
+     */
+    private int awaitGrant(QNode node, boolean interruptible, boolean timed, long deadline)
+            throws InterruptedException {
+        boolean interrupted = false;
+        int spins = SPINS;
+        for (; ; ) {
+            int s = node.state;
+            if (s != WAITING) {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+                return s;
+            }
+            if (spins > 0) {
+                --spins;
+                VirtualThreads.onSpinWait();
+                continue;
+            }
+            if (timed) {
+                long nanos = deadline - System.nanoTime();
+                if (nanos <= 0L) {
+                    if (node.casState(WAITING, ABANDONED)) {
+                        return ABANDONED;
+                    }
+                    continue;
+                }
+                LockSupport.parkNanos(this, nanos);
+            } else {
+                LockSupport.park(this);
+            }
+            if (Thread.interrupted()) {
+                if (!interruptible) {
+                    interrupted = true;
+                } else if (node.casState(WAITING, ABANDONED)) {
+                    throw new InterruptedException();
+                } else {
+                    // 放弃之前已经被传递，接受这次传递并保留中断状态
+                    interrupted = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * 把本地队首传递给第一个没有放弃的后继
+     *
+     * @param c
+     * @param node  当前的本地队首
+     * @param grant LOCAL_PASS或ACQUIRE_GLOBAL
+     * @return 本地队列已空返回false
+     */
+    private static boolean passLocal(Cluster c, QNode node, int grant) {
+        QNode cur = node;
+        for (; ; ) {
+            QNode next = cur.next;
+            if (next == null) {
+                if (c.casTail(cur, null)) {
+                    return false;
+                }
+                // 后继已经交换了tail，正在设置next
+                while ((next = cur.next) == null) {
+                    VirtualThreads.onSpinWait();
+                }
+            }
+            if (next.casState(WAITING, grant)) {
+                LockSupport.unpark(next.thread);
+                return true;
+            }
+            cur = next;
+        }
+    }
+
+    /**
+     * 本簇还有后继且没有超过批量上限时，连同全局锁一起传给后继；
+     * 否则释放全局锁，再让本地后继去竞争全局锁。
+     */
+    @Override
+    public void unlock() {
+        QNode node = owner;
+        if (node == null || node.thread != Thread.currentThread()) {
+            throw new IllegalMonitorStateException();
+        }
+        owner = null;
+        Cluster c = node.cluster;
+        int b = c.batch;
+        if (b < maxBatch) {
+            // 先计数再传递，传递之后batch就归后继所有
+            c.batch = b + 1;
+            if (passLocal(c, node, LOCAL_PASS)) {
+                return;
+            }
+            // 本地队列已空，全局锁释放之前重置，下一个获取全局锁的线程一定能看到
+            c.batch = 0;
+            global.release(1);
+            return;
+        }
+        c.batch = 0;
+        global.release(1);
+        passLocal(c, node, ACQUIRE_GLOBAL);
+    }
+
+    @Override
+    public Condition newCondition() {
+        throw new UnsupportedOperationException();
+    }
+
+    public boolean isLocked() {
+        return global.getState() != 0;
+    }
+
+    public boolean isHeldByCurrentThread() {
+        QNode node = owner;
+        return node != null && node.thread == Thread.currentThread();
+    }
+
+    public int getClusterCount() {
+        return clusters.length;
+    }
+
+    /**
+     * 当前机器的NUMA节点数，无法读取时返回1
+     *
+     * @return
+     */
+    static int numaNodes() {
+        String[] nodes = new File("/sys/devices/system/node").list((dir, name) -> name.matches("node\\d+"));
+        return nodes == null || nodes.length == 0 ? 1 : nodes.length;
+    }
+
+    private static final VarHandle STATE;
+    private static final VarHandle TAIL;
+
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            STATE = l.findVarHandle(QNode.class, "state", int.class);
+            TAIL = l.findVarHandle(Cluster.class, "tail", QNode.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package juc.locks;
+
+import java.util.Date;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * 支持flat combining的可重入锁。
+ * <p>
+ * 除了普通的lock/unlock，还可以用execute提交一段临界区代码：拿不到锁的线程不排队阻塞，
+ * 而是把代码发布到一个槽位，由当前持有锁的线程(combiner)在释放之前成批执行，
+ * 受保护的数据一直留在combiner所在核的缓存里，也省去了每次释放都唤醒后继的开销。
+ * 临界区很短、瓶颈在锁传递本身的场景(计数器、小容量的map)收益最大。
+ * <p>
+ * 槽位放在一个AtomicReferenceArray中，相邻槽位间隔1 << SLOT_SHIFT个引用，避免伪共享。
+ * 发布者先写槽位再tryLock，持有者先释放锁再检查槽位，两者构成Dekker式的配对，
+ * 不会出现代码留在槽位而没有线程持有锁的情况。
+ * 只有Condition.await释放锁时不检查槽位，所以等待的线程park有上限，醒来后自己重新尝试获取。
+ * <p>
+ * 被combiner执行的代码运行在combiner的线程上：ThreadLocal、中断状态都是combiner的；
+ * 代码抛出的异常会转交给提交它的线程重新抛出。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+public class CombiningLock implements Lock {
+
+    /**
+     * 槽位间隔为1 << 4个引用，压缩指针时为64字节
+     */
+    private static final int SLOT_SHIFT = 4;
+
+    private static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 等待执行完成时park之前的自旋次数，单核机器上不自旋
+     */
+    private static final int SPINS = NCPU > 1 ? 1 << 10 : 0;
+
+    /**
+     * 等待执行完成时每次park的上限
+     */
+    private static final long PARK_NANOS = 1_000_000L;
+
+    /**
+     * combiner一次最多扫描槽位的轮数，限制一个线程替别人执行的时间
+     */
+    private static final int COMBINE_ROUNDS = 4;
+
+    private final ReentrantLock lock;
+
+    private final AtomicReferenceArray<Request> slots;
+
+    private final int mask;
+
+    /**
+     * 每个线程复用自己的请求，combiner清空槽位之后才标记完成，所以完成时请求一定不在任何槽位中
+     */
+    private final ThreadLocal<Request> requests = ThreadLocal.withInitial(Request::new);
+
+    public CombiningLock() {
+        this(false);
+    }
+
+    public CombiningLock(boolean fair) {
+        this.lock = new ReentrantLock(fair);
+        int n = 1;
+        while (n < NCPU << 1) {
+            n <<= 1;
+        }
+        this.mask = n - 1;
+        this.slots = new AtomicReferenceArray<>(n << SLOT_SHIFT);
+    }
+
+    /**
+     * 发布到槽位中的一次临界区调用
+     */
+    static final class Request {
+
+        final Thread thread = Thread.currentThread();
+
+        Supplier<?> action;
+
+        Object result;
+
+        Throwable failure;
+
+        volatile boolean done;
+
+        volatile boolean parked;
+
+        void prepare(Supplier<?> action) {
+            this.action = action;
+            this.result = null;
+            this.failure = null;
+            this.done = false;
+        }
+
+        /**
+         * 由combiner调用，清空槽位之后再标记完成
+         */
+        void run(AtomicReferenceArray<Request> slots, int slot) {
+            try {
+                result = action.get();
+            } catch (Throwable e) {
+                failure = e;
+            }
+            action = null;
+            slots.set(slot, null);
+            done = true;
+            if (parked) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> T take() {
+            Object r = result;
+            Throwable e = failure;
+            result = null;
+            failure = null;
+            if (e != null) {
+                if (e instanceof RuntimeException) {
+                    throw (RuntimeException) e;
+                }
+                if (e instanceof Error) {
+                    throw (Error) e;
+                }
+                throw new IllegalStateException(e);
+            }
+            return (T) r;
+        }
+    }
+
+    /**
+     * 在锁的保护下执行action并返回结果。
+     * 锁空闲时直接执行；否则发布到槽位，由持有锁的线程代为执行，当前线程等待结果。
+     * 已经持有锁时直接执行。
+     *
+     * @param action 临界区代码，应当很短且不阻塞
+     * @param <T>
+     * @return action的返回值
+     */
+    public <T> T execute(Supplier<T> action) {
+        Objects.requireNonNull(action);
+        if (lock.isHeldByCurrentThread()) {
+            return action.get();
+        }
+        if (lock.tryLock()) {
+            try {
+                return action.get();
+            } finally {
+                unlock();
+            }
+        }
+        Request req = requests.get();
+        req.prepare(action);
+        if (!publish(req)) {
+            // 槽位全满，退回到普通的加锁
+            req.action = null;
+            lock.lock();
+            try {
+                return action.get();
+            } finally {
+                unlock();
+            }
+        }
+        int spins = SPINS;
+        boolean interrupted = false;
+        for (; ; ) {
+            if (req.done) {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+                return req.take();
+            }
+            if (lock.tryLock()) {
+                // 成为combiner，自己的请求也在槽位中，一并执行
+                unlock();
+                continue;
+            }
+            if (spins > 0) {
+                --spins;
+                VirtualThreads.onSpinWait();
+                continue;
+            }
+            req.parked = true;
+            if (!req.done) {
+                LockSupport.parkNanos(this, PARK_NANOS);
+            }
+            req.parked = false;
+            // 请求一旦发布就不能撤回，等待期间不响应中断；清除中断状态，否则parkNanos立即返回变成忙等，返回前再恢复
+            if (Thread.interrupted()) {
+                interrupted = true;
+            }
+        }
+    }
+
+    /**
+     * 从线程id散列的槽位开始找一个空槽位
+     *
+     * @param req
+     * @return 槽位全满返回false
+     */
+    private boolean publish(Request req) {
+        long id = Thread.currentThread().getId();
+        int h = (int) ((id * 0x9E3779B97F4A7C15L) >>> 32);
+        for (int i = 0; i <= mask; i++) {
+            int slot = ((h + i) & mask) << SLOT_SHIFT;
+            if (slots.get(slot) == null && slots.compareAndSet(slot, null, req)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 持有锁时执行槽位中的请求，最多扫描COMBINE_ROUNDS轮
+     */
+    private void combine() {
+        for (int round = 0; round < COMBINE_ROUNDS; round++) {
+            boolean found = false;
+            for (int i = 0; i <= mask; i++) {
+                int slot = i << SLOT_SHIFT;
+                Request req = slots.get(slot);
+                if (req != null) {
+                    req.run(slots, slot);
+                    found = true;
+                }
+            }
+            if (!found) {
+                return;
+            }
+        }
+    }
+
+    private boolean hasPending() {
+        for (int i = 0; i <= mask; i++) {
+            if (slots.get(i << SLOT_SHIFT) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void lock() {
+        lock.lock();
+    }
+
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+        lock.lockInterruptibly();
+    }
+
+    @Override
+    public boolean tryLock() {
+        return lock.tryLock();
+    }
+
+    @Override
+    public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+        return lock.tryLock(time, unit);
+    }
+
+    /**
+     * 最外层的释放先替等待的线程执行槽位中的请求；释放之后如果又有新的请求且能重新拿到锁，继续执行
+     */
+    @Override
+    public void unlock() {
+        if (lock.getHoldCount() != 1) {
+            lock.unlock();
+            return;
+        }
+        for (; ; ) {
+            try {
+                combine();
+            } finally {
+                lock.unlock();
+            }
+            if (!hasPending() || !lock.tryLock()) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public Condition newCondition() {
+        return new CombiningCondition(lock.newCondition());
+    }
+
+    public boolean isHeldByCurrentThread() {
+        return lock.isHeldByCurrentThread();
+    }
+
+    public boolean isLocked() {
+        return lock.isLocked();
+    }
+
+    public int getHoldCount() {
+        return lock.getHoldCount();
+    }
+
+    /**
+     * 等待之前先执行槽位中的请求，避免它们在等待期间一直得不到执行
+     */
+    private final class CombiningCondition implements Condition {
+
+        private final Condition condition;
+
+        CombiningCondition(Condition condition) {
+            this.condition = condition;
+        }
+
+        private void beforeAwait() {
+            if (lock.getHoldCount() == 1) {
+                combine();
+            }
+        }
+
+        @Override
+        public void await() throws InterruptedException {
+            beforeAwait();
+            condition.await();
+        }
+
+        @Override
+        public void awaitUninterruptibly() {
+            beforeAwait();
+            condition.awaitUninterruptibly();
+        }
+
+        @Override
+        public long awaitNanos(long nanosTimeout) throws InterruptedException {
+            beforeAwait();
+            return condition.awaitNanos(nanosTimeout);
+        }
+
+        @Override
+        public boolean await(long time, TimeUnit unit) throws InterruptedException {
+            beforeAwait();
+            return condition.await(time, unit);
+        }
+
+        @Override
+        public boolean awaitUntil(Date deadline) throws InterruptedException {
+            beforeAwait();
+            return condition.awaitUntil(deadline);
+        }
+
+        @Override
+        public void signal() {
+            condition.signal();
+        }
+
+        @Override
+        public void signalAll() {
+            condition.signalAll();
+        }
+    }
+}
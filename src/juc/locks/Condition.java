@@ -13,11 +13,11 @@ public interface Condition {
 
     void awaitUninterruptibly();
 
-    long awitNanos(long nanosTimeout) throws InterruptedException;
+    long awaitNanos(long nanosTimeout) throws InterruptedException;
 
     boolean await(long time, TimeUnit unit) throws InterruptedException;
 
-    boolean awaitUnitl(Date deadline) throws InterruptedException;
+    boolean awaitUntil(Date deadline) throws InterruptedException;
 
     void signal();
 
@@ -0,0 +1,459 @@
+package juc.locks;
+
+import juc.locks.AbstractQueuedSynchronizer.Node;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 按截止时间排队的可重入锁(earliest-deadline-first)：释放时把锁直接交给截止时间最早的等待者，
+ * 而不是最先到达的，离SLA超时最近的请求先拿到锁。
+ * <p>
+ * 等待者仍然是AQS的Node：入队时waitStatus为SIGNAL表示需要唤醒；释放者把SIGNAL CAS为0表示交接，
+ * 超时或被中断的等待者把SIGNAL CAS为CANCELLED表示放弃，两者只有一方能成功。
+ * 排序用一个二叉堆，由一个自旋锁保护，堆操作是O(log n)，持有时间很短。
+ * 放弃的节点不从堆中删除，释放者弹出时跳过。
+ * <p>
+ * 没有等待者时与普通锁一样只CAS一次state；有等待者时新来的线程不插队，释放时直接交接，
+ * 所以顺序完全由截止时间决定，截止时间相同的按到达顺序。
+ * 也可以用优先级代替截止时间，数值越大越先获取；同一把锁上应当只使用其中一种。
+ * 不支持Condition。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+public class DeadlineLock implements Lock {
+
+    /**
+     * 没有截止时间的等待者排在所有有截止时间的等待者之后
+     */
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    private final Sync sync = new Sync();
+
+    /**
+     * 截止时间之后才获取成功或者等到截止时间放弃的次数
+     */
+    private final LongAdder missedDeadlines = new LongAdder();
+
+    static final class Sync extends AbstractOwnableSynchronizer {
+
+        private static final int INITIAL_CAPACITY = 16;
+
+        /**
+         * 截止时间以构造时的nanoTime为原点，转换为非负的相对值后可以直接比较大小
+         */
+        private final long origin = System.nanoTime();
+
+        /**
+         * 持有次数，0表示空闲；交接时保持为1，接收者看到交接后把自己设为持有者
+         */
+        private volatile int state;
+
+        /**
+         * 堆中的节点数，包括已放弃的，在堆锁内修改
+         */
+        private volatile int waiters;
+
+        private volatile int heapLock;
+
+        private Node[] nodes = new Node[INITIAL_CAPACITY];
+
+        private long[] keys = new long[INITIAL_CAPACITY];
+
+        /**
+         * 到达序号，截止时间相同时先到先得
+         */
+        private long[] seqs = new long[INITIAL_CAPACITY];
+
+        private int size;
+
+        private long nextSeq;
+
+        long toKey(long deadline) {
+            long key = deadline - origin;
+            // 原点之前的截止时间都已经过期，按最紧急处理
+            return key < 0 ? 0 : key;
+        }
+
+        boolean tryAcquire() {
+            Thread current = Thread.currentThread();
+            int c = state;
+            if (c == 0) {
+                if (waiters == 0 && STATE.compareAndSet(this, 0, 1)) {
+                    setExclusiveOwnerThread(current);
+                    return true;
+                }
+            } else if (getExclusiveOwnerThread() == current) {
+                if (c + 1 < 0) {
+                    throw new Error("Maximum lock count exceeded");
+                }
+                state = c + 1;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * 在堆锁内再尝试一次，失败则入堆
+         *
+         * @return 获取成功返回null，否则返回入堆的节点
+         */
+        Node tryAcquireOrEnqueue(long key) {
+            Thread current = Thread.currentThread();
+            lockHeap();
+            try {
+                // 先增加waiters再检查state，与release的先清state再检查waiters配对
+                waiters = size + 1;
+                if (state == 0 && STATE.compareAndSet(this, 0, 1)) {
+                    waiters = size;
+                    setExclusiveOwnerThread(current);
+                    return null;
+                }
+                Node node = new Node(current, Node.SIGNAL);
+                offer(node, key);
+                return node;
+            } finally {
+                unlockHeap();
+            }
+        }
+
+        void release() {
+            if (getExclusiveOwnerThread() != Thread.currentThread()) {
+                throw new IllegalMonitorStateException();
+            }
+            int c = state - 1;
+            if (c != 0) {
+                state = c;
+                return;
+            }
+            setExclusiveOwnerThread(null);
+            if (waiters == 0) {
+                state = 0;
+                if (waiters == 0 || !STATE.compareAndSet(this, 0, 1)) {
+                    // 没有等待者，或者已经被其他线程获取，由它负责交接
+                    return;
+                }
+            }
+            handOff();
+        }
+
+        /**
+         * 持有state时调用，把锁交给截止时间最早且没有放弃的等待者，没有则释放state
+         */
+        private void handOff() {
+            Node next = null;
+            lockHeap();
+            try {
+                for (Node n; (n = poll()) != null; ) {
+                    // 持有者由接收者自己设置，这里设置的话，已放弃的线程可能看到自己是持有者而走重入的分支
+                    if (WAIT_STATUS.compareAndSet(n, Node.SIGNAL, 0)) {
+                        next = n;
+                        break;
+                    }
+                }
+                waiters = size;
+                if (next == null) {
+                    state = 0;
+                }
+            } finally {
+                unlockHeap();
+            }
+            if (next != null) {
+                LockSupport.unpark(next.thread);
+            }
+        }
+
+        private void lockHeap() {
+            for (int spins = 0; !HEAP_LOCK.compareAndSet(this, 0, 1); ) {
+                if (++spins < 64) {
+                    VirtualThreads.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            }
+        }
+
+        private void unlockHeap() {
+            HEAP_LOCK.setRelease(this, 0);
+        }
+
+        private void offer(Node node, long key) {
+            if (size == nodes.length) {
+                int capacity = size << 1;
+                nodes = java.util.Arrays.copyOf(nodes, capacity);
+                keys = java.util.Arrays.copyOf(keys, capacity);
+                seqs = java.util.Arrays.copyOf(seqs, capacity);
+            }
+            long seq = nextSeq++;
+            int i = size++;
+            // 上浮
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!less(key, seq, keys[parent], seqs[parent])) {
+                    break;
+                }
+                move(parent, i);
+                i = parent;
+            }
+            set(i, node, key, seq);
+        }
+
+        private Node poll() {
+            if (size == 0) {
+                return null;
+            }
+            Node result = nodes[0];
+            int last = --size;
+            Node node = nodes[last];
+            long key = keys[last];
+            long seq = seqs[last];
+            nodes[last] = null;
+            if (last > 0) {
+                // 下沉
+                int i = 0;
+                int half = last >>> 1;
+                while (i < half) {
+                    int child = (i << 1) + 1;
+                    int right = child + 1;
+                    if (right < last && less(keys[right], seqs[right], keys[child], seqs[child])) {
+                        child = right;
+                    }
+                    if (!less(keys[child], seqs[child], key, seq)) {
+                        break;
+                    }
+                    move(child, i);
+                    i = child;
+                }
+                set(i, node, key, seq);
+            }
+            return result;
+        }
+
+        private static boolean less(long k1, long s1, long k2, long s2) {
+            return k1 < k2 || (k1 == k2 && s1 < s2);
+        }
+
+        private void move(int from, int to) {
+            nodes[to] = nodes[from];
+            keys[to] = keys[from];
+            seqs[to] = seqs[from];
+        }
+
+        private void set(int i, Node node, long key, long seq) {
+            nodes[i] = node;
+            keys[i] = key;
+            seqs[i] = seq;
+        }
+
+        void handedOff() {
+            setExclusiveOwnerThread(Thread.currentThread());
+        }
+
+        boolean isHeldExclusively() {
+            return getExclusiveOwnerThread() == Thread.currentThread();
+        }
+
+        private static final VarHandle STATE;
+        private static final VarHandle HEAP_LOCK;
+
+        static {
+            try {
+                MethodHandles.Lookup l = MethodHandles.lookup();
+                STATE = l.findVarHandle(Sync.class, "state", int.class);
+                HEAP_LOCK = l.findVarHandle(Sync.class, "heapLock", int.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+    }
+
+    private static final VarHandle WAIT_STATUS = AbstractQueuedSynchronizer.WAIT_STATUS;
+
+    /**
+     * 获取锁
+     *
+     * @param key          排序的键，越小越先获取
+     * @param interruptible
+     * @param deadline     放弃等待的时间，System.nanoTime()的值
+     * @param timed        到deadline时是否放弃
+     * @return 放弃返回false
+     * @throws InterruptedException
+     */
+    private boolean acquire(long key, boolean interruptible, boolean timed, long deadline)
+            throws InterruptedException {
+        if (sync.tryAcquire()) {
+            return true;
+        }
+        Node node = sync.tryAcquireOrEnqueue(key);
+        if (node == null) {
+            return true;
+        }
+        boolean interrupted = false;
+        for (; ; ) {
+            if (node.waitStatus == 0) {
+                // 已经被交接，state保持为1
+                sync.handedOff();
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }
+            if (timed) {
+                long nanos = deadline - System.nanoTime();
+                if (nanos <= 0L) {
+                    if (WAIT_STATUS.compareAndSet(node, Node.SIGNAL, Node.CANCELLED)) {
+                        return false;
+                    }
+                    continue;
+                }
+                LockSupport.parkNanos(this, nanos);
+            } else {
+                LockSupport.park(this);
+            }
+            if (Thread.interrupted()) {
+                if (interruptible && WAIT_STATUS.compareAndSet(node, Node.SIGNAL, Node.CANCELLED)) {
+                    throw new InterruptedException();
+                }
+                interrupted = true;
+            }
+        }
+    }
+
+    /**
+     * 按截止时间排队获取，一直等到获取成功，获取时已经过了截止时间记为一次错过
+     *
+     * @param deadline System.nanoTime()的值
+     */
+    public void lockByDeadline(long deadline) {
+        try {
+            acquire(sync.toKey(deadline), false, false, 0L);
+        } catch (InterruptedException e) {
+            // 不可中断的获取不会抛出
+            throw new IllegalStateException(e);
+        }
+        if (System.nanoTime() - deadline > 0) {
+            missedDeadlines.increment();
+        }
+    }
+
+    /**
+     * 按截止时间排队获取，到截止时间还没有获取则放弃并记为一次错过
+     *
+     * @param deadline System.nanoTime()的值
+     * @return
+     * @throws InterruptedException
+     */
+    public boolean tryLockByDeadline(long deadline) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        if (acquire(sync.toKey(deadline), true, true, deadline)) {
+            return true;
+        }
+        missedDeadlines.increment();
+        return false;
+    }
+
+    /**
+     * 按优先级排队获取，数值越大越先获取
+     *
+     * @param priority
+     */
+    public void lockByPriority(int priority) {
+        try {
+            acquire(-(long) priority, false, false, 0L);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 没有截止时间，排在所有有截止时间的等待者之后
+     */
+    @Override
+    public void lock() {
+        try {
+            acquire(NO_DEADLINE, false, false, 0L);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        acquire(NO_DEADLINE, true, false, 0L);
+    }
+
+    /**
+     * 锁空闲且没有等待者时立即获取
+     *
+     * @return
+     */
+    @Override
+    public boolean tryLock() {
+        return sync.tryAcquire();
+    }
+
+    /**
+     * 以now + time作为截止时间，等价于tryLockByDeadline。
+     * 截止时间超出键的表示范围时视为没有截止时间，等价于lockInterruptibly：
+     * 否则溢出后的键是负数，被当作已经过期的截止时间排到所有等待者之前。
+     */
+    @Override
+    public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(time);
+        long now = System.nanoTime();
+        if (nanos > NO_DEADLINE - sync.toKey(now)) {
+            lockInterruptibly();
+            return true;
+        }
+        return tryLockByDeadline(now + nanos);
+    }
+
+    @Override
+    public void unlock() {
+        sync.release();
+    }
+
+    @Override
+    public Condition newCondition() {
+        throw new UnsupportedOperationException();
+    }
+
+    public boolean isHeldByCurrentThread() {
+        return sync.isHeldExclusively();
+    }
+
+    public boolean isLocked() {
+        return sync.state != 0;
+    }
+
+    /**
+     * 等待者的估计值，包括已经放弃但还没有被弹出的
+     *
+     * @return
+     */
+    public int getQueueLength() {
+        return sync.waiters;
+    }
+
+    /**
+     * 错过截止时间的次数
+     *
+     * @return
+     */
+    public long getMissedDeadlines() {
+        return missedDeadlines.sum();
+    }
+
+    public void resetMissedDeadlines() {
+        missedDeadlines.reset();
+    }
+}
@@ -0,0 +1,30 @@
+package juc.locks;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * 排队等待锁超过阈值时提交的JFR事件
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+@Name("juc.locks.LockContended")
+@Label("Lock Contended")
+@Category({"juc", "Locks"})
+@Description("A thread waited in the queue of a juc.locks lock")
+@StackTrace
+final class LockContendedEvent extends Event {
+
+    @Label("Lock Name")
+    String lockName;
+
+    @Label("Wait Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long waitTime;
+}
@@ -0,0 +1,22 @@
+package juc.locks;
+
+/**
+ * 异步获取得到的锁的所有权，不属于任何线程，可以在任意线程上释放，只能释放一次。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+public interface LockHandle extends AutoCloseable {
+
+    /**
+     * 释放锁
+     *
+     * @throws IllegalMonitorStateException 已经释放过
+     */
+    void unlock();
+
+    @Override
+    default void close() {
+        unlock();
+    }
+}
@@ -0,0 +1,30 @@
+package juc.locks;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * 持有锁超过阈值时，在释放锁的线程上提交的JFR事件
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+@Name("juc.locks.LockHeld")
+@Label("Lock Held")
+@Category({"juc", "Locks"})
+@Description("A juc.locks lock was held longer than the configured threshold")
+@StackTrace
+final class LockHeldEvent extends Event {
+
+    @Label("Lock Name")
+    String lockName;
+
+    @Label("Hold Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long holdTime;
+}
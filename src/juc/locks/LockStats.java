@@ -0,0 +1,258 @@
+package juc.locks;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 锁的竞争统计：获取等待时间和持有时间的直方图、快速路径与排队获取的次数、阻塞次数。
+ * <p>
+ * 统计是按需开启的：只有以-Djuc.locks.stats=true启动时ENABLED才为true，
+ * 且只有用带名字的构造方法创建的锁才会统计。ENABLED是static final常量，
+ * 关闭时JIT会把所有统计代码消除，compareAndSetState的快速路径没有任何额外开销。
+ * <p>
+ * 等待时间超过juc.locks.stats.contendedThreshold(默认20微秒)时提交LockContendedEvent，
+ * 持有时间超过juc.locks.stats.heldThreshold(默认1毫秒)时提交LockHeldEvent，单位为纳秒。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+public class LockStats implements LockStatsMXBean {
+
+    public static final boolean ENABLED = Boolean.getBoolean("juc.locks.stats");
+
+    private static final long CONTENDED_THRESHOLD = Long.getLong("juc.locks.stats.contendedThreshold", 20_000L);
+
+    private static final long HELD_THRESHOLD = Long.getLong("juc.locks.stats.heldThreshold", 1_000_000L);
+
+    private final String name;
+
+    private final AbstractQueuedSynchronizer sync;
+
+    private final LongAdder fastPath = new LongAdder();
+
+    private final LongAdder queued = new LongAdder();
+
+    private final LongAdder parks = new LongAdder();
+
+    private final Histogram waitTimes = new Histogram();
+
+    private final Histogram holdTimes = new Histogram();
+
+    private ObjectName objectName;
+
+    LockStats(String name, AbstractQueuedSynchronizer sync) {
+        this.name = name;
+        this.sync = sync;
+    }
+
+    void fastPathAcquired() {
+        fastPath.increment();
+    }
+
+    void queuedAcquired(long waitNanos) {
+        queued.increment();
+        waitTimes.record(waitNanos);
+        if (waitNanos >= CONTENDED_THRESHOLD) {
+            LockContendedEvent event = new LockContendedEvent();
+            if (event.isEnabled()) {
+                event.lockName = name;
+                event.waitTime = waitNanos;
+                event.commit();
+            }
+        }
+    }
+
+    void parked() {
+        parks.increment();
+    }
+
+    void held(long holdNanos) {
+        holdTimes.record(holdNanos);
+        if (holdNanos >= HELD_THRESHOLD) {
+            LockHeldEvent event = new LockHeldEvent();
+            if (event.isEnabled()) {
+                event.lockName = name;
+                event.holdTime = holdNanos;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * 以juc.locks:type=LockStats,name=锁名注册到平台MBeanServer，重名时在名字后追加对象的哈希码
+     */
+    void register() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            try {
+                objectName = objectName(name);
+                server.registerMBean(this, objectName);
+            } catch (InstanceAlreadyExistsException e) {
+                objectName = objectName(name + "@" + Integer.toHexString(System.identityHashCode(this)));
+                server.registerMBean(this, objectName);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Unable to register lock stats " + name, e);
+        }
+    }
+
+    /**
+     * 从MBeanServer注销，锁不再使用时调用
+     */
+    public void unregister() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException ignored) {
+            // 已经被注销
+        }
+        objectName = null;
+    }
+
+    private static ObjectName objectName(String name) throws JMException {
+        return new ObjectName("juc.locks:type=LockStats,name=" + ObjectName.quote(name));
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getFastPathAcquisitions() {
+        return fastPath.sum();
+    }
+
+    @Override
+    public long getQueuedAcquisitions() {
+        return queued.sum();
+    }
+
+    @Override
+    public long getParkCount() {
+        return parks.sum();
+    }
+
+    @Override
+    public int getQueueLength() {
+        return sync.getQueueLength();
+    }
+
+    @Override
+    public long getWaitP50Nanos() {
+        return waitTimes.percentile(0.50);
+    }
+
+    @Override
+    public long getWaitP99Nanos() {
+        return waitTimes.percentile(0.99);
+    }
+
+    @Override
+    public long getWaitMaxNanos() {
+        return waitTimes.max();
+    }
+
+    @Override
+    public long[] getWaitHistogram() {
+        return waitTimes.snapshot();
+    }
+
+    @Override
+    public long getHoldP50Nanos() {
+        return holdTimes.percentile(0.50);
+    }
+
+    @Override
+    public long getHoldP99Nanos() {
+        return holdTimes.percentile(0.99);
+    }
+
+    @Override
+    public long getHoldMaxNanos() {
+        return holdTimes.max();
+    }
+
+    @Override
+    public long[] getHoldHistogram() {
+        return holdTimes.snapshot();
+    }
+
+    @Override
+    public void reset() {
+        fastPath.reset();
+        queued.reset();
+        parks.reset();
+        waitTimes.reset();
+        holdTimes.reset();
+    }
+
+    /**
+     * 按2的幂分桶的直方图，记录只需要一次原子加，不分配对象
+     */
+    static final class Histogram {
+
+        private static final int BUCKETS = 64;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+        private volatile long max;
+
+        void record(long nanos) {
+            if (nanos < 0) {
+                nanos = 0;
+            }
+            counts.incrementAndGet(63 - Long.numberOfLeadingZeros(nanos | 1));
+            // max只是近似值，竞争时丢失更新也无妨
+            if (nanos > max) {
+                max = nanos;
+            }
+        }
+
+        long percentile(double p) {
+            long[] snapshot = snapshot();
+            long total = 0;
+            for (long c : snapshot) {
+                total += c;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(total * p);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) {
+                    return i == BUCKETS - 1 ? Long.MAX_VALUE : (1L << (i + 1)) - 1;
+                }
+            }
+            return Long.MAX_VALUE;
+        }
+
+        long max() {
+            return max;
+        }
+
+        long[] snapshot() {
+            long[] snapshot = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] = counts.get(i);
+            }
+            return snapshot;
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts.set(i, 0);
+            }
+            max = 0;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package juc.locks;
+
+/**
+ * 单个锁的竞争统计，时间单位都是纳秒。
+ * 直方图按2的幂分桶，第i个桶统计[2^i, 2^(i+1))纳秒的次数，分位数取所在桶的上界。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+public interface LockStatsMXBean {
+
+    String getName();
+
+    /**
+     * 不需要排队就获取成功的次数
+     */
+    long getFastPathAcquisitions();
+
+    /**
+     * 排队之后才获取成功的次数
+     */
+    long getQueuedAcquisitions();
+
+    /**
+     * 排队线程阻塞的次数
+     */
+    long getParkCount();
+
+    /**
+     * 当前排队的线程数
+     */
+    int getQueueLength();
+
+    long getWaitP50Nanos();
+
+    long getWaitP99Nanos();
+
+    long getWaitMaxNanos();
+
+    long[] getWaitHistogram();
+
+    long getHoldP50Nanos();
+
+    long getHoldP99Nanos();
+
+    long getHoldMaxNanos();
+
+    long[] getHoldHistogram();
+
+    void reset();
+}
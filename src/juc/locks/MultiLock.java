@@ -0,0 +1,229 @@
+package juc.locks;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 同时持有多把锁，例如跨分片转账时锁住两个分段。
+ * <p>
+ * 每个调用者各自决定加锁顺序很容易死锁，按固定顺序阻塞加锁虽然不会死锁，
+ * 但持有一部分锁阻塞在下一把锁上时，后面所有需要这些锁的线程都跟着排队(convoy)。
+ * 这里的做法是：
+ * <ul>
+ * <li>先按全局统一的顺序排列(identityHashCode，相同时保持传入顺序并去重)，不同调用者竞争的总是排在前面的同一把锁；</li>
+ * <li>只有在不持有任何锁的时候才阻塞；持有部分锁时对其余的锁只用tryLock，失败就按逆序全部释放，
+ * 再阻塞等待失败的那一把，拿到后用tryLock获取其余的；</li>
+ * <li>连续失败时在阻塞之前随机退避一小段时间，避免两个线程互相让来让去(活锁)；</li>
+ * <li>释放时按排列顺序的逆序释放。</li>
+ * </ul>
+ * 因为阻塞时不持有锁，即使顺序相同(identityHashCode冲突)也不会死锁，顺序只是为了减少冲突。
+ * 支持任意实现了Lock的锁，可重入的锁可以在已经持有的情况下再次获取。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+public final class MultiLock implements AutoCloseable {
+
+    /**
+     * 退避时间的上限
+     */
+    private static final long MAX_BACKOFF_NANOS = 1_000_000L;
+
+    private final Lock[] locks;
+
+    private boolean released;
+
+    private MultiLock(Lock[] locks) {
+        this.locks = locks;
+    }
+
+    /**
+     * 获取所有的锁，一直等到全部获取成功
+     *
+     * @param locks
+     * @return 用于按逆序释放
+     */
+    public static MultiLock acquireAll(Lock... locks) {
+        Lock[] sorted = order(locks);
+        try {
+            acquire(sorted, false, false, 0L);
+        } catch (InterruptedException e) {
+            // 不可中断的获取不会抛出
+            throw new IllegalStateException(e);
+        }
+        return new MultiLock(sorted);
+    }
+
+    /**
+     * 获取所有的锁，被中断时已经获取的锁全部释放
+     *
+     * @param locks
+     * @return 用于按逆序释放
+     * @throws InterruptedException
+     */
+    public static MultiLock acquireAllInterruptibly(Lock... locks) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        Lock[] sorted = order(locks);
+        acquire(sorted, true, false, 0L);
+        return new MultiLock(sorted);
+    }
+
+    /**
+     * 在给定时间内获取所有的锁，超时或被中断时已经获取的锁全部释放
+     *
+     * @param time
+     * @param unit
+     * @param locks
+     * @return 超时返回null
+     * @throws InterruptedException
+     */
+    public static MultiLock tryAcquireAll(long time, TimeUnit unit, Lock... locks) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        Lock[] sorted = order(locks);
+        if (!acquire(sorted, true, true, System.nanoTime() + unit.toNanos(time))) {
+            return null;
+        }
+        return new MultiLock(sorted);
+    }
+
+    /**
+     * 按identityHashCode排序并去掉重复的引用，锁很少，用插入排序
+     *
+     * @param locks
+     * @return
+     */
+    static Lock[] order(Lock[] locks) {
+        int n = locks.length;
+        Lock[] sorted = new Lock[n];
+        int[] hashes = new int[n];
+        int size = 0;
+        outer:
+        for (Lock lock : locks) {
+            if (lock == null) {
+                throw new NullPointerException();
+            }
+            for (int j = 0; j < size; j++) {
+                if (sorted[j] == lock) {
+                    continue outer;
+                }
+            }
+            int h = System.identityHashCode(lock);
+            int i = size;
+            // 相同的hash保持传入顺序
+            while (i > 0 && hashes[i - 1] > h) {
+                sorted[i] = sorted[i - 1];
+                hashes[i] = hashes[i - 1];
+                i--;
+            }
+            sorted[i] = lock;
+            hashes[i] = h;
+            size++;
+        }
+        return size == n ? sorted : Arrays.copyOf(sorted, size);
+    }
+
+    /**
+     * 只在不持有任何锁时阻塞，持有部分锁时其余的只用tryLock
+     *
+     * @return 超时返回false，此时不持有任何锁
+     * @throws InterruptedException 可中断时被中断，此时不持有任何锁
+     */
+    private static boolean acquire(Lock[] locks, boolean interruptible, boolean timed, long deadline)
+            throws InterruptedException {
+        int n = locks.length;
+        if (n == 0) {
+            return true;
+        }
+        // 阻塞等待的锁，第一轮是排在最前面的
+        int first = 0;
+        for (int round = 0; ; round++) {
+            if (!block(locks[first], interruptible, timed, deadline)) {
+                return false;
+            }
+            int failed = -1;
+            for (int i = 0; i < n; i++) {
+                if (i != first && !locks[i].tryLock()) {
+                    failed = i;
+                    break;
+                }
+            }
+            if (failed < 0) {
+                return true;
+            }
+            // 按逆序释放已经获取的：failed之前的，以及first
+            for (int i = n - 1; i >= 0; i--) {
+                if (i < failed || i == first) {
+                    locks[i].unlock();
+                }
+            }
+            first = failed;
+            if (round > 0) {
+                backoff(round, timed, deadline);
+            }
+            if (interruptible && Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    private static boolean block(Lock lock, boolean interruptible, boolean timed, long deadline)
+            throws InterruptedException {
+        if (timed) {
+            return lock.tryLock(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+        if (interruptible) {
+            lock.lockInterruptibly();
+        } else {
+            lock.lock();
+        }
+        return true;
+    }
+
+    /**
+     * 随机退避，上限随轮数指数增长，不超过MAX_BACKOFF_NANOS和剩余时间
+     */
+    private static void backoff(int round, boolean timed, long deadline) {
+        long bound = Math.min(MAX_BACKOFF_NANOS, 1000L << Math.min(round, 10));
+        if (timed) {
+            bound = Math.min(bound, deadline - System.nanoTime());
+        }
+        if (bound > 1L) {
+            LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(1L, bound));
+        }
+    }
+
+    /**
+     * 按排列顺序的逆序释放所有的锁，只能调用一次
+     *
+     * @throws IllegalMonitorStateException 已经释放过
+     */
+    public void unlock() {
+        if (released) {
+            throw new IllegalMonitorStateException();
+        }
+        released = true;
+        for (int i = locks.length - 1; i >= 0; i--) {
+            locks[i].unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        unlock();
+    }
+
+    /**
+     * 去重之后锁的个数
+     *
+     * @return
+     */
+    public int size() {
+        return locks.length;
+    }
+}
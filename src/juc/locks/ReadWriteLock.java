@@ -0,0 +1,15 @@
+package juc.locks;
+
+/**
+ * 读写锁，维护一对关联的锁，一个用于只读操作，一个用于写入。
+ * 只要没有写线程，读锁可以被多个读线程同时持有；写锁是独占的。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+public interface ReadWriteLock {
+
+    Lock readLock();
+
+    Lock writeLock();
+}
@@ -1,6 +1,13 @@
 package juc.locks;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * @author hui.zhong
@@ -8,12 +15,38 @@ import java.util.concurrent.TimeUnit;
  */
 public class ReentrantLock implements Lock {
 
+    /**
+     * 释放LockHandle持有的锁时传给AQS的参数，这种持有没有持有者线程
+     */
+    static final int HANDLE_RELEASE = -1;
+
     private final Sync sync;
 
     abstract static class Sync extends AbstractQueuedSynchronizer {
 
+        /**
+         * 本次持有的开始时间，只在开启统计时由持有者读写
+         */
+        private long holdStart;
+
+        /**
+         * ReentrantLock只使用独占模式，开启juc.locks.recycleNodes时复用等待节点
+         */
+        Sync() {
+            super(NODE_RECYCLING);
+        }
+
         abstract void lock();
 
+        /**
+         * state从0变为非0后由获取成功的线程调用，记录持有开始时间
+         */
+        final void holdStarted() {
+            if (LockStats.ENABLED && stats != null) {
+                holdStart = System.nanoTime();
+            }
+        }
+
         /**
          * 获取非公平锁
          *
@@ -27,6 +60,7 @@ public class ReentrantLock implements Lock {
             if (c == 0) {
                 if (compareAndSetState(0, acquires)) {
                     setExclusiveOwnerThread(current);
+                    holdStarted();
                     return true;
                 }
             } else if (c != 0 && current == getExclusiveOwnerThread()) {
@@ -40,7 +74,32 @@ public class ReentrantLock implements Lock {
             return false;
         }
 
+        /**
+         * 异步获取：持有者线程为null，计数固定为1，不可重入
+         *
+         * @param acquires
+         * @return
+         */
+        @Override
+        protected final boolean tryAcquireDetached(int acquires) {
+            if (getState() == 0 && compareAndSetState(0, 1)) {
+                holdStarted();
+                return true;
+            }
+            return false;
+        }
+
         protected final boolean tryRelease(int releases) {
+            if (releases == HANDLE_RELEASE) {
+                if (getState() != 1 || getExclusiveOwnerThread() != null) {
+                    throw new IllegalMonitorStateException();
+                }
+                if (LockStats.ENABLED && stats != null) {
+                    stats.held(System.nanoTime() - holdStart);
+                }
+                setState(0);
+                return true;
+            }
             int c = getState() - releases;
             if (Thread.currentThread() != getExclusiveOwnerThread()) {
                 throw new IllegalMonitorStateException();
@@ -48,12 +107,27 @@ public class ReentrantLock implements Lock {
             boolean free = false;
             if (c == 0) {
                 free = true;
+                if (LockStats.ENABLED && stats != null) {
+                    stats.held(System.nanoTime() - holdStart);
+                }
+                if (releaseFree()) {
+                    return true;
+                }
                 setExclusiveOwnerThread(null);
             }
             setState(c);
             return free;
         }
 
+        /**
+         * 计数减为0时调用，返回true表示已经把锁直接交给了其他线程，不需要再清空state
+         *
+         * @return
+         */
+        boolean releaseFree() {
+            return false;
+        }
+
         protected final boolean isHeldExclusively() {
             return getExclusiveOwnerThread() == Thread.currentThread();
         }
@@ -79,6 +153,10 @@ public class ReentrantLock implements Lock {
         final void lock() {
             if (compareAndSetState(0, 1)) {
                 setExclusiveOwnerThread(Thread.currentThread());
+                if (LockStats.ENABLED && stats != null) {
+                    stats.fastPathAcquired();
+                    holdStarted();
+                }
             } else {
                 // 阻塞并等待获取锁
                 acquire(1);
@@ -104,6 +182,7 @@ public class ReentrantLock implements Lock {
                 if (!hasQueuedPredecessors()
                         && compareAndSetState(0, acquires)) {
                     setExclusiveOwnerThread(current);
+                    holdStarted();
                     return true;
                 }
             } else if (c != 0 && current == getExclusiveOwnerThread()) {
@@ -118,6 +197,168 @@ public class ReentrantLock implements Lock {
         }
     }
 
+    /**
+     * 有界插队模式，队首等待者等待超过该时间后切换为直接交接，默认1毫秒
+     */
+    public static final long DEFAULT_BARGING_WINDOW_NANOS = 1_000_000L;
+
+    /**
+     * 有界插队：平时与非公平锁一样允许插队；队首的等待者等待超过bargingWindow后进入饥饿状态，
+     * 此时新来的线程不能插队，释放锁时也不把state置0，而是直接把所有权交给队首的线程再唤醒它，
+     * 其他线程没有机会在唤醒的间隙抢走锁。交接完成后退出饥饿状态，重新允许插队。
+     * 每个等待者成为队首后最多再等待约bargingWindow加上一次交接的时间。
+     */
+    static final class BoundedBargingSync extends Sync {
+
+        private final long bargingWindow;
+
+        /**
+         * 队首的等待者等待太久，禁止插队并在释放时直接交接
+         */
+        private volatile boolean starving;
+
+        /**
+         * 释放者发出、还没有被接收的交接。
+         * 每次交接新建一个对象，撤回和接收都CAS这个对象，不会有ABA；只在饥饿时才分配，频率有界。
+         */
+        private volatile Handoff handoff;
+
+        /**
+         * 正在计时的队首等待者及其成为队首后第一次获取失败的时间，只由队首的等待者写
+         */
+        private volatile Thread firstWaiter;
+
+        private long firstWaiterSince;
+
+        static final class Handoff {
+
+            final Thread to;
+
+            Handoff(Thread to) {
+                this.to = to;
+            }
+        }
+
+        BoundedBargingSync(long bargingWindow) {
+            this.bargingWindow = bargingWindow;
+        }
+
+        final void lock() {
+            if (!starving && compareAndSetState(0, 1)) {
+                setExclusiveOwnerThread(Thread.currentThread());
+                if (LockStats.ENABLED && stats != null) {
+                    stats.fastPathAcquired();
+                    holdStarted();
+                }
+            } else {
+                acquire(1);
+            }
+        }
+
+        @Override
+        protected boolean tryAcquire(int acquires) {
+            final Thread current = Thread.currentThread();
+            if (claimHandoff(current)) {
+                // 条件等待重新获取时acquires可能大于1
+                setState(acquires);
+                holdStarted();
+                return true;
+            }
+            int c = getState();
+            if (c == 0) {
+                if ((!starving || !hasQueuedPredecessors()) && compareAndSetState(0, acquires)) {
+                    setExclusiveOwnerThread(current);
+                    holdStarted();
+                    return true;
+                }
+            } else if (current == getExclusiveOwnerThread()) {
+                int nextc = c + acquires;
+                if (nextc < 0) {
+                    throw new Error("Maximum lock count exceeded");
+                }
+                setState(nextc);
+                return true;
+            }
+            if (hasQueuedThreads() && !hasQueuedPredecessors()) {
+                // 当前线程是队首的等待者，开始或继续计时
+                long now = System.nanoTime();
+                if (firstWaiter != current) {
+                    firstWaiterSince = now;
+                    firstWaiter = current;
+                } else if (now - firstWaiterSince >= bargingWindow) {
+                    starving = true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * 接收发给当前线程的交接，成功后当前线程成为持有者
+         *
+         * @param current
+         * @return
+         */
+        private boolean claimHandoff(Thread current) {
+            Handoff h = handoff;
+            if (h != null && h.to == current && HANDOFF.compareAndSet(this, h, null)) {
+                setExclusiveOwnerThread(current);
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * 发出交接之后不再写state：接收者确认时写入自己的计数，在此之前state保持释放者的计数，锁不会显得空闲。
+         * 持有者在发出交接前清空，由接收者确认时设置：这里设置的话，接收者在确认之前的tryAcquire中
+         * 会看到自己是持有者而走重入的分支，在交接还没完成时就返回成功；不清空的话释放者再次加锁也会走重入的分支。
+         */
+        @Override
+        boolean releaseFree() {
+            if (!starving) {
+                return false;
+            }
+            Node first = firstQueuedNode();
+            Thread next;
+            if (first == null || (next = first.thread) == null) {
+                // 队首是异步获取或者队列已空，正常释放，饥饿状态下不会被插队
+                return false;
+            }
+            starving = false;
+            firstWaiter = null;
+            Handoff h = new Handoff(next);
+            setExclusiveOwnerThread(null);
+            handoff = h;
+            // 与cancelAcquire构成Dekker式的配对：接收者已经放弃等待时撤回，撤回失败说明它已经接收
+            if (first.thread == null && HANDOFF.compareAndSet(this, h, null)) {
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * 被选为接收者之后才超时或被中断，接收的锁需要再交出去
+         */
+        @Override
+        protected void cancelAcquire(Node node) {
+            super.cancelAcquire(node);
+            VarHandle.fullFence();
+            if (claimHandoff(Thread.currentThread())) {
+                setState(1);
+                release(1);
+            }
+        }
+
+        private static final VarHandle HANDOFF;
+
+        static {
+            try {
+                HANDOFF = MethodHandles.lookup().findVarHandle(BoundedBargingSync.class, "handoff", Handoff.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+    }
+
     /**
      * 默认是非公平锁
      */
@@ -129,6 +370,45 @@ public class ReentrantLock implements Lock {
         sync = fair ? new FairSync() : new NonfairSync();
     }
 
+    private ReentrantLock(Sync sync) {
+        this.sync = sync;
+    }
+
+    /**
+     * 创建有界插队的锁：吞吐量接近非公平锁，同时队首的等待者最多被插队bargingWindow这么久，
+     * 之后释放锁时直接交接给它，见BoundedBargingSync。
+     *
+     * @param bargingWindow 允许插队的时间
+     * @param unit
+     * @return
+     */
+    public static ReentrantLock boundedBarging(long bargingWindow, TimeUnit unit) {
+        if (bargingWindow < 0) {
+            throw new IllegalArgumentException();
+        }
+        return new ReentrantLock(new BoundedBargingSync(unit.toNanos(bargingWindow)));
+    }
+
+    public static ReentrantLock boundedBarging() {
+        return boundedBarging(DEFAULT_BARGING_WINDOW_NANOS, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 创建带竞争统计的锁。
+     * 只有以-Djuc.locks.stats=true启动时才会统计，并以name注册LockStatsMXBean；
+     * 否则与ReentrantLock(fair)完全相同。
+     *
+     * @param fair
+     * @param name 统计和JFR事件中显示的锁名
+     */
+    public ReentrantLock(boolean fair, String name) {
+        this(fair);
+        if (LockStats.ENABLED) {
+            sync.stats = new LockStats(name, sync);
+            sync.stats.register();
+        }
+    }
+
     @Override
     public void lock() {
         sync.lock();
@@ -146,7 +426,7 @@ public class ReentrantLock implements Lock {
 
     @Override
     public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
-        return sync.tryAcquireNanos(1, unit.toNanos(timeout));
+        return sync.tryAcquireNanos(1, unit.toNanos(time));
     }
 
     @Override
@@ -154,6 +434,91 @@ public class ReentrantLock implements Lock {
         sync.release(1);
     }
 
+    /**
+     * 异步获取锁，等价于lockAsync(ForkJoinPool.commonPool())
+     *
+     * @return
+     */
+    public CompletableFuture<LockHandle> lockAsync() {
+        return lockAsync(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 异步获取锁，调用线程不阻塞。
+     * 等待者以一个没有线程的节点排在AQS队列中，释放锁的线程代为获取，再把完成交给executor，
+     * 所以大量异步等待者不占用任何线程，unlock也不会执行等待者的后续代码。
+     * <p>
+     * 得到的锁不属于任何线程：只能通过LockHandle释放，不可重入，不能用于Condition。
+     * 队列为空时才会立即获取，即使是非公平锁也不插队。
+     * 取消返回的future会把等待者从队列中摘除；取消时恰好已经获取成功则立即释放。
+     *
+     * @param executor 完成future的线程，例如事件循环
+     * @return
+     */
+    public CompletableFuture<LockHandle> lockAsync(Executor executor) {
+        return acquireAsync(executor, -1L);
+    }
+
+    /**
+     * 异步限时获取，超时后future以TimeoutException异常完成
+     *
+     * @param time
+     * @param unit
+     * @return
+     */
+    public CompletableFuture<LockHandle> tryLockAsync(long time, TimeUnit unit) {
+        return tryLockAsync(time, unit, ForkJoinPool.commonPool());
+    }
+
+    public CompletableFuture<LockHandle> tryLockAsync(long time, TimeUnit unit, Executor executor) {
+        return acquireAsync(executor, Math.max(0L, unit.toNanos(time)));
+    }
+
+    /**
+     * @param executor
+     * @param nanosTimeout 小于0表示不限时
+     * @return
+     */
+    private CompletableFuture<LockHandle> acquireAsync(Executor executor, long nanosTimeout) {
+        CompletableFuture<LockHandle> future = new CompletableFuture<>();
+        AsyncHandle handle = new AsyncHandle();
+        AbstractQueuedSynchronizer.AsyncAcquire acquire = sync.acquireAsync(1,
+                () -> executor.execute(() -> {
+                    if (!future.complete(handle)) {
+                        // future已经被取消，没有人会释放
+                        handle.unlock();
+                    }
+                }),
+                () -> executor.execute(() -> future.completeExceptionally(new TimeoutException())));
+        if (nanosTimeout >= 0L && !future.isDone()) {
+            // 定时器线程只做摘除节点这样的短操作，回调仍然交给executor
+            CompletableFuture.delayedExecutor(nanosTimeout, TimeUnit.NANOSECONDS, Runnable::run)
+                    .execute(acquire::cancel);
+        }
+        future.whenComplete((h, e) -> {
+            if (e != null) {
+                acquire.cancel();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 一次异步获取的所有权，只能释放一次
+     */
+    private final class AsyncHandle implements LockHandle {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        @Override
+        public void unlock() {
+            if (!released.compareAndSet(false, true)) {
+                throw new IllegalMonitorStateException();
+            }
+            sync.release(HANDLE_RELEASE);
+        }
+    }
+
     @Override
     public Condition newCondition() {
         return sync.newCondition();
@@ -175,7 +540,24 @@ public class ReentrantLock implements Lock {
         return sync instanceof FairSync;
     }
 
+    public final boolean isBoundedBarging() {
+        return sync instanceof BoundedBargingSync;
+    }
+
     protected Thread getOwner() {
         return sync.getOwner();
     }
+
+    public final int getQueueLength() {
+        return sync.getQueueLength();
+    }
+
+    /**
+     * 竞争统计，没有开启时返回null
+     *
+     * @return
+     */
+    public LockStats getStats() {
+        return sync.stats;
+    }
 }
@@ -0,0 +1,549 @@
+package juc.locks;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 可重入的读写锁。
+ * 读锁基于AQS的共享模式，写锁基于独占模式，两者共用同一个state：
+ * 高16位表示读锁的持有次数，低16位表示写锁的重入次数。
+ * 持有写锁的线程可以再获取读锁(锁降级)，反之不行。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+public class ReentrantReadWriteLock implements ReadWriteLock {
+
+    private final ReadLock readerLock;
+
+    private final WriteLock writerLock;
+
+    final Sync sync;
+
+    /**
+     * 默认是非公平锁
+     */
+    public ReentrantReadWriteLock() {
+        this(false);
+    }
+
+    public ReentrantReadWriteLock(boolean fair) {
+        sync = fair ? new FairSync() : new NonfairSync();
+        readerLock = new ReadLock(this);
+        writerLock = new WriteLock(this);
+    }
+
+    @Override
+    public ReadLock readLock() {
+        return readerLock;
+    }
+
+    @Override
+    public WriteLock writeLock() {
+        return writerLock;
+    }
+
+    abstract static class Sync extends AbstractQueuedSynchronizer {
+
+        static final int SHARED_SHIFT = 16;
+        static final int SHARED_UNIT = (1 << SHARED_SHIFT);
+        static final int MAX_COUNT = (1 << SHARED_SHIFT) - 1;
+        static final int EXCLUSIVE_MASK = (1 << SHARED_SHIFT) - 1;
+
+        /**
+         * 读锁的持有次数
+         *
+         * @param c
+         * @return
+         */
+        static int sharedCount(int c) {
+            return c >>> SHARED_SHIFT;
+        }
+
+        /**
+         * 写锁的重入次数
+         *
+         * @param c
+         * @return
+         */
+        static int exclusiveCount(int c) {
+            return c & EXCLUSIVE_MASK;
+        }
+
+        /**
+         * 每个读线程持有读锁的次数，保存在ThreadLocal中，cachedHoldCounter缓存最后一次获取的。
+         * tid用线程id而不是引用，避免阻止线程被回收。
+         */
+        static final class HoldCounter {
+            int count = 0;
+            final long tid = Thread.currentThread().getId();
+        }
+
+        static final class ThreadLocalHoldCounter extends ThreadLocal<HoldCounter> {
+            @Override
+            public HoldCounter initialValue() {
+                return new HoldCounter();
+            }
+        }
+
+        /**
+         * 当前线程持有的可重入读锁数，读锁数降为0时删除。
+         */
+        private transient ThreadLocalHoldCounter readHolds;
+
+        /**
+         * 最后一个成功获取读锁的线程的计数，通常下一个释放的线程就是最后一个获取的，省去ThreadLocal查找。
+         */
+        private transient HoldCounter cachedHoldCounter;
+
+        /**
+         * 第一个获取读锁的线程及其计数，没有竞争的读锁只需要这两个字段，不用ThreadLocal。
+         */
+        private transient Thread firstReader = null;
+        private transient int firstReaderHoldCount;
+
+        Sync() {
+            readHolds = new ThreadLocalHoldCounter();
+            // 保证readHolds的可见性
+            setState(getState());
+        }
+
+        /**
+         * 读线程获取锁时是否应该阻塞，公平锁与非公平锁的区别所在。
+         *
+         * @return
+         */
+        abstract boolean readerShouldBlock();
+
+        /**
+         * 写线程获取锁时是否应该阻塞。
+         *
+         * @return
+         */
+        abstract boolean writerShouldBlock();
+
+        @Override
+        protected final boolean tryRelease(int releases) {
+            if (!isHeldExclusively()) {
+                throw new IllegalMonitorStateException();
+            }
+            int nextc = getState() - releases;
+            boolean free = exclusiveCount(nextc) == 0;
+            if (free) {
+                setExclusiveOwnerThread(null);
+            }
+            setState(nextc);
+            return free;
+        }
+
+        @Override
+        protected final boolean tryAcquire(int acquires) {
+            /*
+             * 1. 读锁数不为0或者写锁数不为0且持有者不是当前线程，失败；
+             * 2. 重入次数溢出，失败；
+             * 3. 否则，如果是重入或者队列策略允许，则尝试CAS并设置持有者。
+             */
+            Thread current = Thread.currentThread();
+            int c = getState();
+            int w = exclusiveCount(c);
+            if (c != 0) {
+                // c != 0 且 w == 0 说明有读锁
+                if (w == 0 || current != getExclusiveOwnerThread()) {
+                    return false;
+                }
+                if (w + exclusiveCount(acquires) > MAX_COUNT) {
+                    throw new Error("Maximum lock count exceeded");
+                }
+                // 重入，只有持有者会走到这里，不需要CAS
+                setState(c + acquires);
+                return true;
+            }
+            if (writerShouldBlock()
+                    || !compareAndSetState(c, c + acquires)) {
+                return false;
+            }
+            setExclusiveOwnerThread(current);
+            return true;
+        }
+
+        @Override
+        protected final boolean tryReleaseShared(int unused) {
+            Thread current = Thread.currentThread();
+            if (firstReader == current) {
+                if (firstReaderHoldCount == 1) {
+                    firstReader = null;
+                } else {
+                    firstReaderHoldCount--;
+                }
+            } else {
+                HoldCounter rh = cachedHoldCounter;
+                if (rh == null || rh.tid != current.getId()) {
+                    rh = readHolds.get();
+                }
+                int count = rh.count;
+                if (count <= 1) {
+                    readHolds.remove();
+                    if (count <= 0) {
+                        throw new IllegalMonitorStateException("attempt to unlock read lock, not locked by current thread");
+                    }
+                }
+                --rh.count;
+            }
+            for (; ; ) {
+                int c = getState();
+                int nextc = c - SHARED_UNIT;
+                if (compareAndSetState(c, nextc)) {
+                    // 释放读锁对读线程没有影响，但读写锁都空闲时可以让等待的写线程继续
+                    return nextc == 0;
+                }
+            }
+        }
+
+        @Override
+        protected final int tryAcquireShared(int unused) {
+            /*
+             * 1. 其他线程持有写锁，失败；
+             * 2. 否则如果队列策略允许，尝试CAS增加读锁数，成功后记录持有次数；
+             * 3. 第2步失败(应该阻塞、溢出或CAS失败)，进入完整的重试循环。
+             */
+            Thread current = Thread.currentThread();
+            int c = getState();
+            if (exclusiveCount(c) != 0
+                    && getExclusiveOwnerThread() != current) {
+                return -1;
+            }
+            int r = sharedCount(c);
+            if (!readerShouldBlock()
+                    && r < MAX_COUNT
+                    && compareAndSetState(c, c + SHARED_UNIT)) {
+                if (r == 0) {
+                    firstReader = current;
+                    firstReaderHoldCount = 1;
+                } else if (firstReader == current) {
+                    firstReaderHoldCount++;
+                } else {
+                    HoldCounter rh = cachedHoldCounter;
+                    if (rh == null || rh.tid != current.getId()) {
+                        cachedHoldCounter = rh = readHolds.get();
+                    } else if (rh.count == 0) {
+                        readHolds.set(rh);
+                    }
+                    rh.count++;
+                }
+                return 1;
+            }
+            return fullTryAcquireShared(current);
+        }
+
+        /**
+         * 读锁获取的完整版本，处理tryAcquireShared中没有处理的CAS失败和重入读。
+         *
+         * @param current
+         * @return
+         */
+        final int fullTryAcquireShared(Thread current) {
+            HoldCounter rh = null;
+            for (; ; ) {
+                int c = getState();
+                if (exclusiveCount(c) != 0) {
+                    if (getExclusiveOwnerThread() != current) {
+                        return -1;
+                    }
+                    // 否则持有写锁，在这里阻塞会导致死锁
+                } else if (readerShouldBlock()) {
+                    // 确保不是重入获取读锁，重入的读锁不应该阻塞
+                    if (firstReader == current) {
+                        // assert firstReaderHoldCount > 0;
+                    } else {
+                        if (rh == null) {
+                            rh = cachedHoldCounter;
+                            if (rh == null || rh.tid != current.getId()) {
+                                rh = readHolds.get();
+                                if (rh.count == 0) {
+                                    readHolds.remove();
+                                }
+                            }
+                        }
+                        if (rh.count == 0) {
+                            return -1;
+                        }
+                    }
+                }
+                if (sharedCount(c) == MAX_COUNT) {
+                    throw new Error("Maximum lock count exceeded");
+                }
+                if (compareAndSetState(c, c + SHARED_UNIT)) {
+                    if (sharedCount(c) == 0) {
+                        firstReader = current;
+                        firstReaderHoldCount = 1;
+                    } else if (firstReader == current) {
+                        firstReaderHoldCount++;
+                    } else {
+                        if (rh == null) {
+                            rh = cachedHoldCounter;
+                        }
+                        if (rh == null || rh.tid != current.getId()) {
+                            rh = readHolds.get();
+                        } else if (rh.count == 0) {
+                            readHolds.set(rh);
+                        }
+                        rh.count++;
+                        // 缓存用于释放
+                        cachedHoldCounter = rh;
+                    }
+                    return 1;
+                }
+            }
+        }
+
+        /**
+         * 写锁的tryLock，两种模式下都允许插队，与tryAcquire的区别只是不调用writerShouldBlock。
+         *
+         * @return
+         */
+        final boolean tryWriteLock() {
+            Thread current = Thread.currentThread();
+            int c = getState();
+            if (c != 0) {
+                int w = exclusiveCount(c);
+                if (w == 0 || current != getExclusiveOwnerThread()) {
+                    return false;
+                }
+                if (w == MAX_COUNT) {
+                    throw new Error("Maximum lock count exceeded");
+                }
+            }
+            if (!compareAndSetState(c, c + 1)) {
+                return false;
+            }
+            setExclusiveOwnerThread(current);
+            return true;
+        }
+
+        /**
+         * 读锁的tryLock，两种模式下都允许插队，与tryAcquireShared的区别只是不调用readerShouldBlock。
+         *
+         * @return
+         */
+        final boolean tryReadLock() {
+            Thread current = Thread.currentThread();
+            for (; ; ) {
+                int c = getState();
+                if (exclusiveCount(c) != 0
+                        && getExclusiveOwnerThread() != current) {
+                    return false;
+                }
+                int r = sharedCount(c);
+                if (r == MAX_COUNT) {
+                    throw new Error("Maximum lock count exceeded");
+                }
+                if (compareAndSetState(c, c + SHARED_UNIT)) {
+                    if (r == 0) {
+                        firstReader = current;
+                        firstReaderHoldCount = 1;
+                    } else if (firstReader == current) {
+                        firstReaderHoldCount++;
+                    } else {
+                        HoldCounter rh = cachedHoldCounter;
+                        if (rh == null || rh.tid != current.getId()) {
+                            cachedHoldCounter = rh = readHolds.get();
+                        } else if (rh.count == 0) {
+                            readHolds.set(rh);
+                        }
+                        rh.count++;
+                    }
+                    return true;
+                }
+            }
+        }
+
+        @Override
+        protected final boolean isHeldExclusively() {
+            // 持有者一定是先读state再读owner，这里的顺序无所谓
+            return getExclusiveOwnerThread() == Thread.currentThread();
+        }
+
+        final ConditionObject newCondition() {
+            return new ConditionObject();
+        }
+
+        final Thread getOwner() {
+            return exclusiveCount(getState()) == 0 ? null : getExclusiveOwnerThread();
+        }
+
+        final int getReadLockCount() {
+            return sharedCount(getState());
+        }
+
+        final boolean isWriteLocked() {
+            return exclusiveCount(getState()) != 0;
+        }
+
+        final int getWriteHoldCount() {
+            return isHeldExclusively() ? exclusiveCount(getState()) : 0;
+        }
+
+        final int getReadHoldCount() {
+            if (getReadLockCount() == 0) {
+                return 0;
+            }
+            Thread current = Thread.currentThread();
+            if (firstReader == current) {
+                return firstReaderHoldCount;
+            }
+            HoldCounter rh = cachedHoldCounter;
+            if (rh != null && rh.tid == current.getId()) {
+                return rh.count;
+            }
+            int count = readHolds.get().count;
+            if (count == 0) {
+                readHolds.remove();
+            }
+            return count;
+        }
+    }
+
+    static final class NonfairSync extends Sync {
+        @Override
+        final boolean writerShouldBlock() {
+            // 写线程总是可以插队
+            return false;
+        }
+
+        @Override
+        final boolean readerShouldBlock() {
+            // 队列第一个是写线程时读线程让步，避免写线程饥饿
+            return apparentlyFirstQueuedIsExclusive();
+        }
+    }
+
+    static final class FairSync extends Sync {
+        @Override
+        final boolean writerShouldBlock() {
+            return hasQueuedPredecessors();
+        }
+
+        @Override
+        final boolean readerShouldBlock() {
+            return hasQueuedPredecessors();
+        }
+    }
+
+    public static class ReadLock implements Lock {
+
+        private final Sync sync;
+
+        protected ReadLock(ReentrantReadWriteLock lock) {
+            sync = lock.sync;
+        }
+
+        @Override
+        public void lock() {
+            sync.acquireShared(1);
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            sync.acquireSharedInterruptibly(1);
+        }
+
+        @Override
+        public boolean tryLock() {
+            return sync.tryReadLock();
+        }
+
+        @Override
+        public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+            return sync.tryAcquireSharedNanos(1, unit.toNanos(time));
+        }
+
+        @Override
+        public void unlock() {
+            sync.releaseShared(1);
+        }
+
+        /**
+         * 读锁不支持条件
+         *
+         * @return
+         */
+        @Override
+        public Condition newCondition() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    public static class WriteLock implements Lock {
+
+        private final Sync sync;
+
+        protected WriteLock(ReentrantReadWriteLock lock) {
+            sync = lock.sync;
+        }
+
+        @Override
+        public void lock() {
+            sync.acquire(1);
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            sync.acquireInterruptibly(1);
+        }
+
+        @Override
+        public boolean tryLock() {
+            return sync.tryWriteLock();
+        }
+
+        @Override
+        public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+            return sync.tryAcquireNanos(1, unit.toNanos(time));
+        }
+
+        @Override
+        public void unlock() {
+            sync.release(1);
+        }
+
+        @Override
+        public Condition newCondition() {
+            return sync.newCondition();
+        }
+
+        public boolean isHeldByCurrentThread() {
+            return sync.isHeldExclusively();
+        }
+
+        public int getHoldCount() {
+            return sync.getWriteHoldCount();
+        }
+    }
+
+    public final boolean isFair() {
+        return sync instanceof FairSync;
+    }
+
+    protected Thread getOwner() {
+        return sync.getOwner();
+    }
+
+    public int getReadLockCount() {
+        return sync.getReadLockCount();
+    }
+
+    public boolean isWriteLocked() {
+        return sync.isWriteLocked();
+    }
+
+    public boolean isWriteLockedByCurrentThread() {
+        return sync.isHeldExclusively();
+    }
+
+    public int getWriteHoldCount() {
+        return sync.getWriteHoldCount();
+    }
+
+    public int getReadHoldCount() {
+        return sync.getReadHoldCount();
+    }
+}
@@ -0,0 +1,407 @@
+package juc.locks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * 计数信号量，基于AQS的共享模式，state表示可用的许可数。
+ * <p>
+ * 除了与ReentrantLock一样的公平/非公平两种模式外，还提供分段(striped)模式：
+ * 许可分散到多个槽位中，类似LongAdder，每个线程优先在自己的槽位上获取和释放，
+ * 只有槽位耗尽时才从中心的state批量补充，避免所有线程CAS同一个state。
+ * 准备阻塞前会把所有槽位收回state，保证不会有闲置的许可而线程仍在等待。
+ * 分段模式只支持非公平。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+public class Semaphore {
+
+    private final Sync sync;
+
+    abstract static class Sync extends AbstractQueuedSynchronizer {
+
+        Sync(int permits) {
+            setState(permits);
+        }
+
+        /**
+         * 可用的许可数
+         *
+         * @return
+         */
+        int getPermits() {
+            return getState();
+        }
+
+        int nonfairTryAcquireShared(int acquires) {
+            for (; ; ) {
+                int available = getState();
+                int remaining = available - acquires;
+                if (remaining < 0
+                        || compareAndSetState(available, remaining)) {
+                    return remaining;
+                }
+            }
+        }
+
+        @Override
+        protected final boolean tryReleaseShared(int releases) {
+            for (; ; ) {
+                int current = getState();
+                int next = current + releases;
+                if (next < current) {
+                    throw new Error("Maximum permit count exceeded");
+                }
+                if (compareAndSetState(current, next)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * 归还许可，分段模式下会先放回本地槽位
+         *
+         * @param releases
+         */
+        void releasePermits(int releases) {
+            releaseShared(releases);
+        }
+
+        final void reducePermits(int reductions) {
+            for (; ; ) {
+                int current = getState();
+                int next = current - reductions;
+                if (next > current) {
+                    throw new Error("Permit count underflow");
+                }
+                if (compareAndSetState(current, next)) {
+                    return;
+                }
+            }
+        }
+
+        int drainPermits() {
+            for (; ; ) {
+                int current = getState();
+                if (current == 0 || compareAndSetState(current, 0)) {
+                    return current;
+                }
+            }
+        }
+    }
+
+    static final class NonfairSync extends Sync {
+
+        NonfairSync(int permits) {
+            super(permits);
+        }
+
+        @Override
+        protected int tryAcquireShared(int acquires) {
+            return nonfairTryAcquireShared(acquires);
+        }
+    }
+
+    static final class FairSync extends Sync {
+
+        FairSync(int permits) {
+            super(permits);
+        }
+
+        @Override
+        protected int tryAcquireShared(int acquires) {
+            for (; ; ) {
+                if (hasQueuedPredecessors()) {
+                    return -1;
+                }
+                int available = getState();
+                int remaining = available - acquires;
+                if (remaining < 0
+                        || compareAndSetState(available, remaining)) {
+                    return remaining;
+                }
+            }
+        }
+    }
+
+    /**
+     * 分段模式。
+     * 槽位放在一个AtomicIntegerArray中，相邻槽位间隔1 << PAD_SHIFT个int(64字节)，避免伪共享。
+     * state是中心池，槽位中的许可不计入state。
+     */
+    static final class StripedSync extends Sync {
+
+        /**
+         * 槽位间隔为1 << 4个int，即64字节
+         */
+        private static final int PAD_SHIFT = 4;
+
+        private final AtomicIntegerArray cells;
+
+        private final int mask;
+
+        /**
+         * 槽位耗尽时一次从中心池补充的许可数
+         */
+        private final int batch;
+
+        StripedSync(int permits, int stripes) {
+            super(permits);
+            int n = 1;
+            while (n < stripes) {
+                n <<= 1;
+            }
+            this.mask = n - 1;
+            this.cells = new AtomicIntegerArray(n << PAD_SHIFT);
+            this.batch = Math.max(1, permits / (n << 1));
+        }
+
+        /**
+         * 当前线程对应的槽位下标，按线程id散列
+         *
+         * @return
+         */
+        private int cellIndex() {
+            long id = Thread.currentThread().getId();
+            int h = (int) ((id * 0x9E3779B97F4A7C15L) >>> 32);
+            return (h & mask) << PAD_SHIFT;
+        }
+
+        @Override
+        int getPermits() {
+            int sum = getState();
+            for (int i = 0; i <= mask; i++) {
+                sum += cells.get(i << PAD_SHIFT);
+            }
+            return sum;
+        }
+
+        @Override
+        int nonfairTryAcquireShared(int acquires) {
+            return tryAcquireShared(acquires);
+        }
+
+        @Override
+        protected int tryAcquireShared(int acquires) {
+            int i = cellIndex();
+            // 1. 本地槽位
+            for (int c; (c = cells.get(i)) >= acquires; ) {
+                if (cells.compareAndSet(i, c, c - acquires)) {
+                    return c - acquires;
+                }
+            }
+            // 2. 本地槽位耗尽，从中心池取出本次需要的许可，顺便批量补充槽位
+            for (int available; (available = getState()) >= acquires; ) {
+                int take = Math.min(available, acquires + batch);
+                if (compareAndSetState(available, available - take)) {
+                    if (take > acquires) {
+                        cells.getAndAdd(i, take - acquires);
+                        /*
+                         * 从中心池取出到写入槽位之间，排队线程可能已经收回过槽位并准备阻塞，
+                         * 与releasePermits相同，写槽位后再检查队列，有线程排队就把槽位收回中心池。
+                         */
+                        if (hasQueuedThreads()) {
+                            drainCells();
+                        }
+                    }
+                    return take - acquires;
+                }
+            }
+            // 3. 中心池也不够，准备阻塞之前把所有槽位收回中心池，再最后尝试一次
+            drainCells();
+            return super.nonfairTryAcquireShared(acquires);
+        }
+
+        @Override
+        void releasePermits(int releases) {
+            if (!hasQueuedThreads()) {
+                int i = cellIndex();
+                int c = cells.addAndGet(i, releases);
+                if (c < 0) {
+                    cells.addAndGet(i, -releases);
+                    throw new Error("Maximum permit count exceeded");
+                }
+                /*
+                 * 先写槽位再检查队列，与等待线程的先入队再收回槽位构成Dekker式的配对，
+                 * 两者至少有一方能看到另一方，不会出现许可留在槽位而线程阻塞的情况。
+                 */
+                if (!hasQueuedThreads()) {
+                    // 槽位积累过多时归还一部分，让其他槽位可以补充
+                    if (c > batch << 1) {
+                        int excess = c - batch;
+                        if (cells.compareAndSet(i, c, batch)) {
+                            releaseShared(excess);
+                        }
+                    }
+                    return;
+                }
+                drainCells();
+                releaseShared(0);
+                return;
+            }
+            releaseShared(releases);
+        }
+
+        /**
+         * 把所有槽位的许可收回中心池，并唤醒排队的线程
+         *
+         * @return 收回的许可数
+         */
+        int drainCells() {
+            int total = 0;
+            for (int i = 0; i <= mask; i++) {
+                int idx = i << PAD_SHIFT;
+                if (cells.get(idx) != 0) {
+                    total += cells.getAndSet(idx, 0);
+                }
+            }
+            if (total != 0) {
+                releaseShared(total);
+            }
+            return total;
+        }
+
+        @Override
+        int drainPermits() {
+            int drained = 0;
+            for (int i = 0; i <= mask; i++) {
+                drained += cells.getAndSet(i << PAD_SHIFT, 0);
+            }
+            return drained + super.drainPermits();
+        }
+    }
+
+    /**
+     * 默认是非公平模式
+     *
+     * @param permits 初始许可数，可以为负数，此时需要先release才能acquire
+     */
+    public Semaphore(int permits) {
+        sync = new NonfairSync(permits);
+    }
+
+    public Semaphore(int permits, boolean fair) {
+        sync = fair ? new FairSync(permits) : new NonfairSync(permits);
+    }
+
+    /**
+     * 创建分段模式的信号量，每个槽位对应一部分许可，适用于大量线程频繁获取和释放的场景。
+     *
+     * @param permits 初始许可数
+     * @param stripes 槽位数，向上取整为2的幂，一般取CPU核数
+     * @return
+     */
+    public static Semaphore striped(int permits, int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException();
+        }
+        return new Semaphore(new StripedSync(permits, stripes));
+    }
+
+    /**
+     * 槽位数取CPU核数的分段信号量
+     *
+     * @param permits 初始许可数
+     * @return
+     */
+    public static Semaphore striped(int permits) {
+        return striped(permits, Runtime.getRuntime().availableProcessors());
+    }
+
+    private Semaphore(Sync sync) {
+        this.sync = sync;
+    }
+
+    public void acquire() throws InterruptedException {
+        sync.acquireSharedInterruptibly(1);
+    }
+
+    public void acquireUninterruptibly() {
+        sync.acquireShared(1);
+    }
+
+    /**
+     * 不论公平与否，都立即尝试获取
+     *
+     * @return
+     */
+    public boolean tryAcquire() {
+        return sync.nonfairTryAcquireShared(1) >= 0;
+    }
+
+    public boolean tryAcquire(long timeout, TimeUnit unit) throws InterruptedException {
+        return sync.tryAcquireSharedNanos(1, unit.toNanos(timeout));
+    }
+
+    public void release() {
+        sync.releasePermits(1);
+    }
+
+    public void acquire(int permits) throws InterruptedException {
+        if (permits < 0) {
+            throw new IllegalArgumentException();
+        }
+        sync.acquireSharedInterruptibly(permits);
+    }
+
+    public void acquireUninterruptibly(int permits) {
+        if (permits < 0) {
+            throw new IllegalArgumentException();
+        }
+        sync.acquireShared(permits);
+    }
+
+    public boolean tryAcquire(int permits) {
+        if (permits < 0) {
+            throw new IllegalArgumentException();
+        }
+        return sync.nonfairTryAcquireShared(permits) >= 0;
+    }
+
+    public boolean tryAcquire(int permits, long timeout, TimeUnit unit) throws InterruptedException {
+        if (permits < 0) {
+            throw new IllegalArgumentException();
+        }
+        return sync.tryAcquireSharedNanos(permits, unit.toNanos(timeout));
+    }
+
+    public void release(int permits) {
+        if (permits < 0) {
+            throw new IllegalArgumentException();
+        }
+        sync.releasePermits(permits);
+    }
+
+    /**
+     * 当前可用的许可数，分段模式下是中心池与各槽位之和，只是一个估计值
+     *
+     * @return
+     */
+    public int availablePermits() {
+        return sync.getPermits();
+    }
+
+    public int drainPermits() {
+        return sync.drainPermits();
+    }
+
+    protected void reducePermits(int reduction) {
+        if (reduction < 0) {
+            throw new IllegalArgumentException();
+        }
+        sync.reducePermits(reduction);
+    }
+
+    public boolean isFair() {
+        return sync instanceof FairSync;
+    }
+
+    public boolean isStriped() {
+        return sync instanceof StripedSync;
+    }
+
+    public final boolean hasQueuedThreads() {
+        return sync.hasQueuedThreads();
+    }
+}
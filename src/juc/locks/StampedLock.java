@@ -0,0 +1,448 @@
+package juc.locks;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于版本号(stamp)的读写锁，支持乐观读。
+ * <p>
+ * 复用AQS的state和CLH队列：state的低7位是读锁数，第8位是写锁标记，其余高位是版本号。
+ * 写锁获取和释放各给state加一次WBIT，因此每次写都会让版本号前进。
+ * 乐观读只读一次state，不做任何写操作，读完数据后用validate检查期间是否有写发生，
+ * 读多写少时读线程之间不会因为CAS抢同一个缓存行。
+ * <p>
+ * 锁不可重入，返回的stamp为0表示获取失败。
+ * 版本号只有24位，一次乐观读期间如果恰好发生2^24次写，validate会误判成功，实际可以忽略。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+public class StampedLock {
+
+    /**
+     * 读锁计数占用的位数
+     */
+    private static final int LG_READERS = 7;
+
+    private static final int RUNIT = 1;
+    private static final int WBIT = 1 << LG_READERS;
+    private static final int RBITS = WBIT - 1;
+    private static final int RFULL = RBITS - 1;
+    private static final int ABITS = RBITS | WBIT;
+    private static final int SBITS = ~RBITS;
+
+    /**
+     * state的初始值，避免stamp为0，0用来表示失败
+     */
+    private static final int ORIGIN = WBIT << 1;
+
+    /**
+     * release时传给AQS的参数，区分释放的方式
+     */
+    private static final int RELEASE_WRITE = 1;
+    private static final int CONVERT_TO_READ = 2;
+
+    private final Sync sync;
+
+    public StampedLock() {
+        sync = new Sync();
+    }
+
+    static final class Sync extends AbstractQueuedSynchronizer {
+
+        /**
+         * 读锁数超过RFULL后溢出的部分，只在state的读锁位为RBITS(相当于加锁)时修改
+         */
+        private int readerOverflow;
+
+        Sync() {
+            setState(ORIGIN);
+        }
+
+        @Override
+        protected boolean tryAcquire(int unused) {
+            int s = getState();
+            return (s & ABITS) == 0 && compareAndSetState(s, s + WBIT);
+        }
+
+        @Override
+        protected boolean tryRelease(int mode) {
+            int s = getState();
+            if ((s & WBIT) == 0) {
+                throw new IllegalMonitorStateException();
+            }
+            // 加WBIT清除写标记并进位到版本号
+            int next = nextVersion(s);
+            if (mode == CONVERT_TO_READ) {
+                next += RUNIT;
+            }
+            // 只有写线程能走到这里，volatile写保证乐观读线程看到新版本
+            setState(next);
+            return true;
+        }
+
+        @Override
+        protected int tryAcquireShared(int unused) {
+            for (; ; ) {
+                int s = getState();
+                int m = s & ABITS;
+                if (m >= WBIT) {
+                    return -1;
+                }
+                // 有写线程排在队首时读线程让步，避免写线程饥饿
+                if (apparentlyFirstQueuedIsExclusive()) {
+                    return -1;
+                }
+                if (m < RFULL) {
+                    if (compareAndSetState(s, s + RUNIT)) {
+                        return 1;
+                    }
+                } else if (tryIncReaderOverflow(s) != 0) {
+                    return 1;
+                }
+            }
+        }
+
+        @Override
+        protected boolean tryReleaseShared(int unused) {
+            for (; ; ) {
+                int s = getState();
+                int m = s & ABITS;
+                if (m == 0 || m >= WBIT) {
+                    throw new IllegalMonitorStateException();
+                }
+                if (m < RFULL) {
+                    if (compareAndSetState(s, s - RUNIT)) {
+                        // 最后一个读线程释放后，排队的写线程才可能成功
+                        return m == RUNIT;
+                    }
+                } else if (tryDecReaderOverflow(s) != 0) {
+                    return false;
+                }
+            }
+        }
+
+        /**
+         * 写锁释放后的state，版本号溢出为0时回到ORIGIN
+         *
+         * @param s
+         * @return
+         */
+        static int nextVersion(int s) {
+            s += WBIT;
+            return s == 0 ? ORIGIN : s;
+        }
+
+        /**
+         * 读锁数已满时，先把读锁位CAS成RBITS作为自旋锁，再增加readerOverflow
+         *
+         * @param s
+         * @return 成功返回新的stamp，失败返回0
+         */
+        int tryIncReaderOverflow(int s) {
+            if ((s & ABITS) == RFULL) {
+                if (compareAndSetState(s, s | RBITS)) {
+                    ++readerOverflow;
+                    setState(s);
+                    return s;
+                }
+            } else {
+                Thread.onSpinWait();
+            }
+            return 0;
+        }
+
+        /**
+         * 与tryIncReaderOverflow对应，readerOverflow为0时直接减少读锁数
+         *
+         * @param s
+         * @return 成功返回新的stamp，失败返回0
+         */
+        int tryDecReaderOverflow(int s) {
+            if ((s & ABITS) == RFULL) {
+                if (compareAndSetState(s, s | RBITS)) {
+                    int next;
+                    if (readerOverflow > 0) {
+                        --readerOverflow;
+                        next = s;
+                    } else {
+                        next = s - RUNIT;
+                    }
+                    setState(next);
+                    return next;
+                }
+            } else {
+                Thread.onSpinWait();
+            }
+            return 0;
+        }
+
+        int getReadLockCount(int s) {
+            int readers = s & RBITS;
+            if (readers >= RFULL) {
+                readers = RFULL + readerOverflow;
+            }
+            return readers;
+        }
+    }
+
+    private static long toStamp(int s) {
+        return s & 0xFFFFFFFFL;
+    }
+
+    /**
+     * 获取写锁，必要时阻塞
+     *
+     * @return 用于解锁或转换模式的stamp
+     */
+    public long writeLock() {
+        sync.acquire(1);
+        return toStamp(sync.getState());
+    }
+
+    /**
+     * 写锁空闲时立即获取
+     *
+     * @return 失败返回0
+     */
+    public long tryWriteLock() {
+        int s = sync.getState();
+        int next;
+        if ((s & ABITS) == 0 && sync.compareAndSetState(s, next = s + WBIT)) {
+            return toStamp(next);
+        }
+        return 0L;
+    }
+
+    public long tryWriteLock(long time, TimeUnit unit) throws InterruptedException {
+        if (sync.tryAcquireNanos(1, unit.toNanos(time))) {
+            return toStamp(sync.getState());
+        }
+        return 0L;
+    }
+
+    public long writeLockInterruptibly() throws InterruptedException {
+        sync.acquireInterruptibly(1);
+        return toStamp(sync.getState());
+    }
+
+    /**
+     * 获取读锁，必要时阻塞
+     *
+     * @return 用于解锁或转换模式的stamp
+     */
+    public long readLock() {
+        int s = sync.getState();
+        // 队列为空时直接尝试CAS，不进入AQS
+        if (!sync.hasQueuedThreads() && (s & ABITS) < RFULL
+                && sync.compareAndSetState(s, s + RUNIT)) {
+            return toStamp(s + RUNIT);
+        }
+        sync.acquireShared(1);
+        return readStamp();
+    }
+
+    public long tryReadLock() {
+        for (; ; ) {
+            int s = sync.getState();
+            int m = s & ABITS;
+            if (m >= WBIT) {
+                return 0L;
+            }
+            if (m < RFULL) {
+                if (sync.compareAndSetState(s, s + RUNIT)) {
+                    return toStamp(s + RUNIT);
+                }
+            } else {
+                int next = sync.tryIncReaderOverflow(s);
+                if (next != 0) {
+                    return toStamp(next);
+                }
+            }
+        }
+    }
+
+    public long tryReadLock(long time, TimeUnit unit) throws InterruptedException {
+        if (sync.tryAcquireSharedNanos(1, unit.toNanos(time))) {
+            return readStamp();
+        }
+        return 0L;
+    }
+
+    public long readLockInterruptibly() throws InterruptedException {
+        sync.acquireSharedInterruptibly(1);
+        return readStamp();
+    }
+
+    /**
+     * 持有读锁时state的版本号不会变化，读锁数可能变化，只要读锁位不为0即可
+     *
+     * @return
+     */
+    private long readStamp() {
+        return toStamp((sync.getState() & SBITS) | RUNIT);
+    }
+
+    /**
+     * 乐观读，不修改任何共享状态
+     *
+     * @return 没有写锁时返回可用于validate的stamp，否则返回0
+     */
+    public long tryOptimisticRead() {
+        int s = sync.getState();
+        return (s & WBIT) == 0 ? toStamp(s & SBITS) : 0L;
+    }
+
+    /**
+     * stamp发出后没有写锁被获取则返回true。
+     * 读屏障保证在此之前的数据读取不会被重排到state读取之后。
+     *
+     * @param stamp
+     * @return
+     */
+    public boolean validate(long stamp) {
+        VarHandle.acquireFence();
+        return ((int) stamp & SBITS) == (sync.getState() & SBITS);
+    }
+
+    public void unlockWrite(long stamp) {
+        if (sync.getState() != (int) stamp || (stamp & WBIT) == 0) {
+            throw new IllegalMonitorStateException();
+        }
+        sync.release(RELEASE_WRITE);
+    }
+
+    public void unlockRead(long stamp) {
+        int s = sync.getState();
+        if (((int) stamp & SBITS) != (s & SBITS)
+                || (stamp & RBITS) == 0
+                || (s & RBITS) == 0) {
+            throw new IllegalMonitorStateException();
+        }
+        sync.releaseShared(1);
+    }
+
+    /**
+     * 根据stamp的模式释放对应的锁
+     *
+     * @param stamp
+     */
+    public void unlock(long stamp) {
+        if ((stamp & WBIT) != 0) {
+            unlockWrite(stamp);
+        } else {
+            unlockRead(stamp);
+        }
+    }
+
+    /**
+     * 转换为写锁：已经是写锁直接返回；持有唯一的读锁则升级；乐观读且锁空闲则直接获取。
+     *
+     * @param stamp
+     * @return 失败返回0
+     */
+    public long tryConvertToWriteLock(long stamp) {
+        int a = (int) stamp & ABITS;
+        int s;
+        while (((s = sync.getState()) & SBITS) == ((int) stamp & SBITS)) {
+            int m = s & ABITS;
+            if (m == 0) {
+                if (a != 0) {
+                    break;
+                }
+                if (sync.compareAndSetState(s, s + WBIT)) {
+                    return toStamp(s + WBIT);
+                }
+            } else if (m == WBIT) {
+                if (a != m) {
+                    break;
+                }
+                return stamp;
+            } else if (m == RUNIT && a != 0) {
+                if (sync.compareAndSetState(s, s - RUNIT + WBIT)) {
+                    return toStamp(s - RUNIT + WBIT);
+                }
+            } else {
+                break;
+            }
+        }
+        return 0L;
+    }
+
+    /**
+     * 转换为读锁：写锁降级为读锁并唤醒排队的读线程；已经是读锁直接返回；乐观读则尝试获取。
+     *
+     * @param stamp
+     * @return 失败返回0
+     */
+    public long tryConvertToReadLock(long stamp) {
+        int a = (int) stamp & ABITS;
+        int s;
+        while (((s = sync.getState()) & SBITS) == ((int) stamp & SBITS)) {
+            int m = s & ABITS;
+            if (m == 0) {
+                if (a != 0) {
+                    break;
+                }
+                if (sync.compareAndSetState(s, s + RUNIT)) {
+                    return toStamp(s + RUNIT);
+                }
+            } else if (m == WBIT) {
+                if (a != m) {
+                    break;
+                }
+                // 释放写锁的同时持有读锁，AQS负责唤醒后继
+                sync.release(CONVERT_TO_READ);
+                return readStamp();
+            } else if (a != 0 && a < WBIT) {
+                return stamp;
+            } else {
+                break;
+            }
+        }
+        return 0L;
+    }
+
+    /**
+     * 释放stamp代表的锁并返回乐观读stamp
+     *
+     * @param stamp
+     * @return 失败返回0
+     */
+    public long tryConvertToOptimisticRead(long stamp) {
+        int a = (int) stamp & ABITS;
+        VarHandle.acquireFence();
+        int s = sync.getState();
+        if (((int) stamp & SBITS) != (s & SBITS)) {
+            return 0L;
+        }
+        int m = s & ABITS;
+        if (m == 0) {
+            return a == 0 ? stamp : 0L;
+        }
+        if (m == WBIT) {
+            if (a != m) {
+                return 0L;
+            }
+            sync.release(RELEASE_WRITE);
+            return toStamp(Sync.nextVersion(s) & SBITS);
+        }
+        if (a == 0 || a >= WBIT) {
+            return 0L;
+        }
+        sync.releaseShared(1);
+        return toStamp(s & SBITS);
+    }
+
+    public boolean isWriteLocked() {
+        return (sync.getState() & WBIT) != 0;
+    }
+
+    public boolean isReadLocked() {
+        return (sync.getState() & RBITS) != 0;
+    }
+
+    public int getReadLockCount() {
+        return sync.getReadLockCount(sync.getState());
+    }
+}
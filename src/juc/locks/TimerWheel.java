@@ -0,0 +1,423 @@
+package juc.locks;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 限时等待共用的分层时间轮。
+ * <p>
+ * 每个parkNanos都会在内核中注册一个定时器，几万个线程同时限时等待时，大量定时器各自到期，
+ * 唤醒时间分散，timer slack带来的抖动也叠加在一起。开启时间轮后，限时等待的线程改为不限时park，
+ * 把截止时间登记到时间轮，由一个守护线程按tick成批唤醒到期的线程，整个进程只有这一个定时器。
+ * <p>
+ * 时间轮是按需开启的：只有以-Djuc.locks.timerWheel=true启动时ENABLED才为true。
+ * tick由juc.locks.timerWheel.tickNanos指定(默认1毫秒)，到期时间向上取整到tick，
+ * 所以线程最多晚一个tick(加上调度延迟)醒来，不会提前醒来。
+ * 剩余时间不足MIN_TIMEOUT_NANOS的等待精度要求高于tick，仍然使用parkNanos。
+ * <p>
+ * 时间轮分4层，第0层256个槽位，每个槽位一个tick；第1到3层各64个槽位，每个槽位是下一层一整圈的时间，
+ * 默认tick下能表示约18.6小时，更远的截止时间先放在最高层，转到时再重新计算位置。
+ * 每个槽位是一个双向链表，只有时间轮线程读写，登记和取消都通过无锁栈交给时间轮线程，O(1)完成。
+ * 取消只把状态CAS为CANCELLED，与到期的CAS只有一方能成功，被取消的定时器不会再唤醒线程。
+ * 唤醒与其他原因的唤醒没有区别，等待者醒来后总是自己检查条件和剩余时间，
+ * 所以时间轮即使多唤醒一次也只是一次虚假唤醒。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+final class TimerWheel {
+
+    static final boolean ENABLED = Boolean.getBoolean("juc.locks.timerWheel");
+
+    static final long TICK_NANOS = Math.max(1L, Long.getLong("juc.locks.timerWheel.tickNanos", 1_000_000L));
+
+    /**
+     * 剩余时间不小于该值时才登记到时间轮
+     */
+    static final long MIN_TIMEOUT_NANOS = TICK_NANOS << 2;
+
+    private static final int LEVEL0_BITS = 8;
+
+    private static final int LEVEL_BITS = 6;
+
+    private static final int LEVELS = 4;
+
+    private static final int LEVEL0_MASK = (1 << LEVEL0_BITS) - 1;
+
+    private static final int LEVEL_MASK = (1 << LEVEL_BITS) - 1;
+
+    /**
+     * 整个时间轮能表示的tick数，超过的先放在最高层
+     */
+    private static final long MAX_DELTA = 1L << (LEVEL0_BITS + (LEVELS - 1) * LEVEL_BITS);
+
+    /**
+     * Timeout.state：等待到期
+     */
+    static final int PENDING = 0;
+
+    /**
+     * Timeout.state：已经到期并唤醒了线程
+     */
+    static final int EXPIRED = 1;
+
+    /**
+     * Timeout.state：等待者已经不再需要
+     */
+    static final int CANCELLED = 2;
+
+    private final long origin = System.nanoTime();
+
+    /**
+     * buckets[level][slot]，每个槽位是一个哨兵节点
+     */
+    private final Timeout[][] buckets = new Timeout[LEVELS][];
+
+    /**
+     * 新登记的定时器，无锁栈
+     */
+    private volatile Timeout pending;
+
+    /**
+     * 被取消的定时器，无锁栈
+     */
+    private volatile Timeout cancelled;
+
+    /**
+     * 时间轮线程计划醒来的tick，空闲时为Long.MAX_VALUE；登记的定时器更早到期时需要唤醒时间轮线程
+     */
+    private volatile long wakeTick;
+
+    /**
+     * 下一个要处理的tick，只由时间轮线程读写
+     */
+    private long currentTick;
+
+    /**
+     * 时间轮中的定时器个数，只由时间轮线程读写
+     */
+    private int count;
+
+    private final Thread thread;
+
+    private TimerWheel() {
+        for (int level = 0; level < LEVELS; level++) {
+            Timeout[] slots = new Timeout[level == 0 ? 1 << LEVEL0_BITS : 1 << LEVEL_BITS];
+            for (int i = 0; i < slots.length; i++) {
+                Timeout head = new Timeout(null, 0L);
+                head.prev = head;
+                head.next = head;
+                slots[i] = head;
+            }
+            buckets[level] = slots;
+        }
+        this.wakeTick = Long.MAX_VALUE;
+        this.thread = new Thread(this::run, "juc-timer-wheel");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * 第一次限时等待时才创建时间轮线程
+     */
+    private static final class Holder {
+        static final TimerWheel WHEEL = new TimerWheel();
+    }
+
+    /**
+     * 一次限时等待登记的定时器
+     */
+    static final class Timeout {
+
+        final Thread thread;
+
+        final long expiryTick;
+
+        volatile int state;
+
+        /**
+         * 在pending或cancelled栈中的下一个
+         */
+        Timeout stackNext;
+
+        /**
+         * 槽位链表，只由时间轮线程读写，不在链表中时为null
+         */
+        Timeout prev;
+
+        Timeout next;
+
+        Timeout(Thread thread, long expiryTick) {
+            this.thread = thread;
+            this.expiryTick = expiryTick;
+        }
+
+        boolean isPending() {
+            return state == PENDING;
+        }
+
+        /**
+         * 等待结束时调用，已经到期的不受影响
+         */
+        void cancel() {
+            if (STATE.compareAndSet(this, PENDING, CANCELLED)) {
+                Holder.WHEEL.push(CANCELLED_STACK, this);
+            }
+        }
+    }
+
+    /**
+     * 剩余时间是否由时间轮负责
+     *
+     * @param nanosTimeout
+     * @return
+     */
+    static boolean covers(long nanosTimeout) {
+        return ENABLED && nanosTimeout >= MIN_TIMEOUT_NANOS;
+    }
+
+    /**
+     * 登记截止时间后不限时park，已经登记且没有到期时直接park。
+     * 被唤醒的原因可能是到期、unpark、中断或者虚假唤醒，调用者应当重新检查剩余时间。
+     *
+     * @param blocker
+     * @param timeout  上次登记的定时器，可以为null
+     * @param deadline System.nanoTime()的值
+     * @return 本次等待使用的定时器，等待结束时应当调用cancel
+     */
+    static Timeout park(Object blocker, Timeout timeout, long deadline) {
+        if (timeout == null || !timeout.isPending()) {
+            timeout = Holder.WHEEL.schedule(Thread.currentThread(), deadline);
+        }
+        LockSupport.park(blocker);
+        return timeout;
+    }
+
+    /**
+     * 取消定时器，timeout为null时什么也不做
+     *
+     * @param timeout
+     */
+    static void cancel(Timeout timeout) {
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+    private Timeout schedule(Thread thread, long deadline) {
+        long elapsed = deadline - origin;
+        // 向上取整，到期的tick开始时一定已经过了截止时间
+        long tick = elapsed <= 0L ? 0L : (elapsed - 1) / TICK_NANOS + 1;
+        Timeout timeout = new Timeout(thread, tick);
+        push(PENDING_STACK, timeout);
+        // 先入栈再读wakeTick，与时间轮线程先写wakeTick再检查栈配对
+        if (tick < wakeTick) {
+            LockSupport.unpark(this.thread);
+        }
+        return timeout;
+    }
+
+    private void push(VarHandle stack, Timeout timeout) {
+        for (; ; ) {
+            Timeout top = (Timeout) stack.getVolatile(this);
+            timeout.stackNext = top;
+            if (stack.compareAndSet(this, top, timeout)) {
+                return;
+            }
+        }
+    }
+
+    private void run() {
+        currentTick = now();
+        for (; ; ) {
+            drain();
+            long now = now();
+            while (currentTick <= now) {
+                long next = nextExpiry();
+                if (next > now) {
+                    // 到当前时间为止的槽位都是空的，nextExpiry不会越过本圈结束，不会漏掉cascade
+                    currentTick = now + 1;
+                    break;
+                }
+                currentTick = next;
+                advance(currentTick++);
+                if ((currentTick & LEVEL0_MASK) == 0) {
+                    // 每转一圈处理一次新登记的，避免长时间落后时它们错过自己的槽位
+                    drain();
+                }
+            }
+            if (count == 0) {
+                wakeTick = Long.MAX_VALUE;
+                if (pending == null) {
+                    LockSupport.park(this);
+                }
+                // 空闲期间没有定时器，直接跳到当前时间
+                currentTick = Math.max(currentTick, now());
+            } else {
+                long next = nextExpiry();
+                wakeTick = next;
+                if (pending == null) {
+                    long nanos = origin + next * TICK_NANOS - System.nanoTime();
+                    if (nanos > 0L) {
+                        LockSupport.parkNanos(this, nanos);
+                    }
+                }
+            }
+            Thread.interrupted();
+        }
+    }
+
+    private long now() {
+        return (System.nanoTime() - origin) / TICK_NANOS;
+    }
+
+    /**
+     * 把新登记的放入槽位，把取消的从槽位中摘除
+     */
+    private void drain() {
+        Timeout t = (Timeout) PENDING_STACK.getAndSet(this, null);
+        while (t != null) {
+            Timeout next = t.stackNext;
+            t.stackNext = null;
+            if (t.state == PENDING) {
+                insert(t);
+            }
+            t = next;
+        }
+        t = (Timeout) CANCELLED_STACK.getAndSet(this, null);
+        while (t != null) {
+            Timeout next = t.stackNext;
+            t.stackNext = null;
+            if (t.prev != null) {
+                unlink(t);
+            }
+            t = next;
+        }
+    }
+
+    private void insert(Timeout t) {
+        long tick = t.expiryTick;
+        long delta = tick - currentTick;
+        if (delta < 0) {
+            expire(t);
+            return;
+        }
+        if (delta >= MAX_DELTA) {
+            // 超出范围，先放在最高层最远的槽位
+            tick = currentTick + MAX_DELTA - 1;
+            delta = MAX_DELTA - 1;
+        }
+        Timeout head;
+        if (delta <= LEVEL0_MASK) {
+            head = buckets[0][(int) (tick & LEVEL0_MASK)];
+        } else {
+            int level = 1;
+            int shift = LEVEL0_BITS;
+            while (delta >= 1L << (shift + LEVEL_BITS)) {
+                level++;
+                shift += LEVEL_BITS;
+            }
+            head = buckets[level][(int) ((tick >>> shift) & LEVEL_MASK)];
+        }
+        Timeout tail = head.prev;
+        t.prev = tail;
+        t.next = head;
+        tail.next = t;
+        head.prev = t;
+        count++;
+    }
+
+    private void unlink(Timeout t) {
+        t.prev.next = t.next;
+        t.next.prev = t.prev;
+        t.prev = null;
+        t.next = null;
+        count--;
+    }
+
+    /**
+     * 处理一个tick：每转完一圈先从高层往低层把对应槽位重新放置，再唤醒第0层槽位中的所有线程
+     *
+     * @param tick
+     */
+    private void advance(long tick) {
+        if ((tick & LEVEL0_MASK) == 0) {
+            cascade(tick, 1);
+        }
+        Timeout head = buckets[0][(int) (tick & LEVEL0_MASK)];
+        for (Timeout t = head.next; t != head; ) {
+            Timeout next = t.next;
+            unlink(t);
+            expire(t);
+            t = next;
+        }
+    }
+
+    private void cascade(long tick, int level) {
+        int shift = LEVEL0_BITS + (level - 1) * LEVEL_BITS;
+        int index = (int) ((tick >>> shift) & LEVEL_MASK);
+        if (index == 0 && level + 1 < LEVELS) {
+            // 这一层也转完了一圈，先放置更高一层的
+            cascade(tick, level + 1);
+        }
+        Timeout head = buckets[level][index];
+        Timeout t = head.next;
+        if (t == head) {
+            return;
+        }
+        // 整条链表摘下来再逐个放置，放置的位置一定在更低的层
+        head.prev.next = null;
+        head.prev = head;
+        head.next = head;
+        while (t != null) {
+            Timeout next = t.next;
+            t.prev = null;
+            t.next = null;
+            count--;
+            // 已经取消的不再放回，取消栈中的它看到prev为null会跳过
+            if (t.state == PENDING) {
+                insert(t);
+            }
+            t = next;
+        }
+    }
+
+    private static void expire(Timeout t) {
+        if (STATE.compareAndSet(t, PENDING, EXPIRED)) {
+            LockSupport.unpark(t.thread);
+        }
+    }
+
+    /**
+     * 下一个需要醒来的tick：第0层到本圈结束之前第一个非空的槽位，没有则是本圈结束时
+     *
+     * @return
+     */
+    private long nextExpiry() {
+        long end = (currentTick | LEVEL0_MASK) + 1;
+        Timeout[] level0 = buckets[0];
+        for (long tick = currentTick; tick < end; tick++) {
+            Timeout head = level0[(int) (tick & LEVEL0_MASK)];
+            if (head.next != head) {
+                return tick;
+            }
+        }
+        return end;
+    }
+
+    private static final VarHandle STATE;
+    private static final VarHandle PENDING_STACK;
+    private static final VarHandle CANCELLED_STACK;
+
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            STATE = l.findVarHandle(Timeout.class, "state", int.class);
+            PENDING_STACK = l.findVarHandle(TimerWheel.class, "pending", Timeout.class);
+            CANCELLED_STACK = l.findVarHandle(TimerWheel.class, "cancelled", Timeout.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package juc.locks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * 虚拟线程相关的等待策略。
+ * <p>
+ * 虚拟线程通过LockSupport.park阻塞时会从载体线程卸载，不会占住载体线程；
+ * 但在载体线程上忙等会让同一载体上的其他虚拟线程无法运行，
+ * 所以虚拟线程不做自适应自旋，需要自旋等待的地方改为Thread.yield()让出载体线程。
+ * <p>
+ * Thread.isVirtual()在JDK 21才出现，这里通过MethodHandle查找，低版本JDK上所有线程都按平台线程处理。
+ *
+ * @author hui.zhong
+ * @date 2026/10/16
+ */
+final class VirtualThreads {
+
+    private static final MethodHandle IS_VIRTUAL;
+
+    static {
+        MethodHandle isVirtual = null;
+        try {
+            isVirtual = MethodHandles.publicLookup()
+                    .findVirtual(Thread.class, "isVirtual", MethodType.methodType(boolean.class));
+        } catch (ReflectiveOperationException ignored) {
+            // JDK 21之前没有虚拟线程
+        }
+        IS_VIRTUAL = isVirtual;
+    }
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * 当前线程是否是虚拟线程
+     *
+     * @return
+     */
+    static boolean isVirtual() {
+        if (IS_VIRTUAL == null) {
+            return false;
+        }
+        try {
+            return (boolean) IS_VIRTUAL.invokeExact(Thread.currentThread());
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+
+    /**
+     * 自旋等待的一步：平台线程提示CPU正在自旋，虚拟线程让出载体线程
+     */
+    static void onSpinWait() {
+        if (isVirtual()) {
+            Thread.yield();
+        } else {
+            Thread.onSpinWait();
+        }
+    }
+}